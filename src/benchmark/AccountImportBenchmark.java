@@ -0,0 +1,58 @@
+package benchmark;
+
+import socialmedia.AccountImportException;
+import socialmedia.IllegalHandleException;
+import socialmedia.InvalidHandleException;
+import socialmedia.SocialMedia;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares importing accounts with SocialMedia.createAccounts against calling createAccount once per account.
+ *
+ * Usage: java benchmark.AccountImportBenchmark [accounts] [rounds]
+ * (default 1000000 accounts, 5 rounds; the first round warms up the JIT and is not reported).
+ *
+ * Each round imports the same handles into two new platforms, one per path, and prints the number of accounts
+ * imported per second by each. The platforms must end up with the same number of accounts.
+ */
+public class AccountImportBenchmark {
+
+	public static void main(String[] args) throws AccountImportException, IllegalHandleException,
+			InvalidHandleException {
+		int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		List<String> handles = new ArrayList<>(count);
+		List<String> descriptions = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			handles.add("user" + i);
+			descriptions.add("account number " + i);
+		}
+
+		System.out.printf("%,d accounts%n", count);
+		for (int round = 0; round <= rounds; round++) {
+			SocialMedia single = new SocialMedia();
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				single.createAccount(handles.get(i), descriptions.get(i));
+			}
+			long singleTime = System.nanoTime() - start;
+
+			SocialMedia batch = new SocialMedia();
+			start = System.nanoTime();
+			batch.createAccounts(handles, descriptions);
+			long batchTime = System.nanoTime() - start;
+
+			if (single.getNumberOfAccounts() != batch.getNumberOfAccounts()) {
+				throw new IllegalStateException("the paths disagree: " + single.getNumberOfAccounts() + " against "
+						+ batch.getNumberOfAccounts() + " accounts");
+			}
+			if (round > 0) {
+				System.out.printf("  createAccount %,12.0f accounts/s  createAccounts %,12.0f accounts/s%n",
+						count * 1e9 / singleTime, count * 1e9 / batchTime);
+			}
+		}
+	}
+
+}
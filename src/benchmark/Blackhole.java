@@ -0,0 +1,43 @@
+package benchmark;
+
+/**
+ * Takes the results of the calls a benchmark measures, so the JIT cannot find them unused and drop the calls,
+ * in the way the Blackhole of JMH does.
+ *
+ * A result is compared with fields the JIT cannot predict, which costs a load and a compare per call. A long
+ * is compared with two volatile fields that never hold the same value. An object is kept, now and then, in a
+ * field the JIT cannot see through, at intervals that double each time, so it rarely costs a store.
+ */
+public final class Blackhole {
+	private volatile long long1 = 1;
+	private volatile long long2 = 2;
+	private volatile Object kept;
+
+	private long seed = System.nanoTime();
+	private long mask = 1;
+
+	/**
+	 * Takes an int or long result.
+	 */
+	public void consume(long value) {
+		if ((value == long1) & (value == long2)) {
+			long1 = value + 1; //never happens: the fields never hold the same value
+		}
+	}
+
+	/**
+	 * Takes an object result.
+	 */
+	public void consume(Object value) {
+		seed = seed * 0x5DEECE66DL + 0xBL;
+		if ((seed & mask) == 0) {
+			kept = value;
+			mask = (mask << 1) + 1;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Blackhole[" + long1 + ", " + long2 + ", " + (kept != null) + "]";
+	}
+}
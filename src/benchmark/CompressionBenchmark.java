@@ -0,0 +1,87 @@
+package benchmark;
+
+import socialmedia.DeflateCodec;
+import socialmedia.SnapshotCodec;
+import socialmedia.SnapshotFormat;
+import socialmedia.SocialMedia;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Reports the compression ratio and throughput of compressed snapshots.
+ * 
+ * Usage: java benchmark.CompressionBenchmark [posts] [directory]
+ * (default 1000000 posts, built as in SnapshotBenchmark).
+ * 
+ * For each format and codec it prints the size against the uncompressed snapshot, the save and load time,
+ * and the throughput in MB of uncompressed snapshot per second. The "codec" lines time the codec alone on
+ * 256KB blocks of the uncompressed snapshot, without a dictionary.
+ */
+public class CompressionBenchmark {
+	private static final int BLOCK_SIZE = 1 << 18;
+
+	public static void main(String[] args) throws Exception {
+		int posts = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		File directory = new File((args.length > 1) ? args[1] : System.getProperty("java.io.tmpdir"));
+		SocialMedia platform = SnapshotBenchmark.build(posts, 42);
+		SnapshotCodec[] codecs = { null, new DeflateCodec(1), new DeflateCodec(), new DeflateCodec(9) };
+
+		System.out.printf("%,d posts%n", posts);
+		for (SnapshotFormat format : new SnapshotFormat[] { SnapshotFormat.SERIALIZED, SnapshotFormat.BINARY }) {
+			File raw = new File(directory, "compression-" + posts + ".raw");
+			platform.savePlatform(raw.getPath(), format);
+			double megabytes = raw.length() / 1e6;
+
+			for (SnapshotCodec codec : codecs) {
+				File file = new File(directory, "compression-" + posts + ".z");
+				long save = time(() -> platform.savePlatform(file.getPath(), format, codec));
+				long load = time(() -> new SocialMedia().loadPlatform(file.getPath()));
+				System.out.printf("  %-10s %-12s size %,12d  ratio %5.2f  save %6d ms (%6.1f MB/s)  load %6d ms (%6.1f MB/s)%n",
+						format, (codec == null) ? "none" : codec, file.length(), (double) raw.length() / file.length(),
+						save, megabytes * 1000 / save, load, megabytes * 1000 / load);
+				file.delete();
+			}
+
+			byte[] bytes = Files.readAllBytes(raw.toPath());
+			for (SnapshotCodec codec : codecs) {
+				if (codec != null) {
+					codecOnly(format, codec, bytes);
+				}
+			}
+			raw.delete();
+		}
+	}
+
+	private static void codecOnly(SnapshotFormat format, SnapshotCodec codec, byte[] bytes) throws Exception {
+		byte[] block = new byte[BLOCK_SIZE];
+		byte[][] compressed = new byte[(bytes.length + BLOCK_SIZE - 1) / BLOCK_SIZE][];
+		long compressedSize = 0;
+		long start = System.nanoTime();
+		for (int i = 0; i < compressed.length; i++) {
+			int length = Math.min(BLOCK_SIZE, bytes.length - i * BLOCK_SIZE);
+			System.arraycopy(bytes, i * BLOCK_SIZE, block, 0, length);
+			compressed[i] = codec.compress(block, length, new byte[0]);
+			compressedSize += compressed[i].length;
+		}
+		long compress = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int i = 0; i < compressed.length; i++) {
+			int length = Math.min(BLOCK_SIZE, bytes.length - i * BLOCK_SIZE);
+			codec.decompress(compressed[i], compressed[i].length, block, length, new byte[0]);
+		}
+		long decompress = System.nanoTime() - start;
+		System.out.printf("  %-10s %-12s codec ratio %5.2f  compress %7.1f MB/s  decompress %7.1f MB/s%n", format, codec,
+				(double) bytes.length / compressedSize, bytes.length * 1e3 / compress, bytes.length * 1e3 / decompress);
+	}
+
+	private interface Task {
+		void run() throws Exception;
+	}
+
+	private static long time(Task task) throws Exception {
+		long start = System.nanoTime();
+		task.run();
+		return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+	}
+}
@@ -0,0 +1,98 @@
+package benchmark;
+
+import socialmedia.InvalidHandleException;
+import socialmedia.SocialMedia;
+
+import java.util.Random;
+
+/**
+ * Compares the handle check of SocialMedia with the regular expression it used before
+ * ({@code handle.matches(".*\\s.*")}).
+ *
+ * Usage: java benchmark.HandleBenchmark [handles] [rounds]
+ * (default 1000000 handles, 5 rounds; the first round warms up the JIT and is not reported).
+ *
+ * The handles are 1 to 30 characters long and one in ten has a white space, as in a bulk import of accounts
+ * where most handles are valid. Each round prints the time per handle of both checks, and checks that they
+ * gave the same answers.
+ */
+public class HandleBenchmark {
+	private static final String CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_.";
+	private static final String SPACES = " \t\n\u000B\f\r";
+
+	public static void main(String[] args) {
+		int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		String[] handles = handles(count, new Random(42));
+
+		System.out.printf("%,d handles%n", count);
+		for (int round = 0; round <= rounds; round++) {
+			long start = System.nanoTime();
+			int regex = 0;
+			for (String handle : handles) {
+				regex += regexCheck(handle) ? 1 : 0;
+			}
+			long regexTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			int check = 0;
+			for (String handle : handles) {
+				check += Checker.valid(handle) ? 1 : 0;
+			}
+			long checkTime = System.nanoTime() - start;
+
+			if (regex != check) {
+				throw new IllegalStateException("the checks disagree: " + regex + " against " + check + " valid handles");
+			}
+			if (round > 0) {
+				System.out.printf("  regex %6.1f ns/handle  checkHandle %6.1f ns/handle  (%,d valid)%n",
+						(double) regexTime / count, (double) checkTime / count, check);
+			}
+		}
+	}
+
+	private static String[] handles(int count, Random random) {
+		String[] handles = new String[count];
+		for (int i = 0; i < count; i++) {
+			char[] handle = new char[1 + random.nextInt(30)];
+			for (int j = 0; j < handle.length; j++) {
+				handle[j] = CHARACTERS.charAt(random.nextInt(CHARACTERS.length()));
+			}
+			if (random.nextInt(10) == 0) {
+				handle[random.nextInt(handle.length)] = SPACES.charAt(random.nextInt(SPACES.length()));
+			}
+			handles[i] = new String(handle);
+		}
+		return handles;
+	}
+
+	//checkHandle as it was before: the same rules and exceptions, with a regular expression
+	private static boolean regexCheck(String handle) {
+		try {
+			if ((handle == null) || handle.isEmpty()) {
+				throw new InvalidHandleException("handle is empty");
+			}
+			if (handle.length() > 30) {
+				throw new InvalidHandleException("handle has more than 30 characters");
+			}
+			if (handle.matches(".*\\s.*")) {
+				throw new InvalidHandleException("handle has white spaces");
+			}
+			return true;
+		} catch (InvalidHandleException e) {
+			return false;
+		}
+	}
+
+	//gives access to SocialMedia.checkHandle, which is protected
+	private static final class Checker extends SocialMedia {
+		private static boolean valid(String handle) {
+			try {
+				checkHandle(handle);
+				return true;
+			} catch (InvalidHandleException e) {
+				return false;
+			}
+		}
+	}
+}
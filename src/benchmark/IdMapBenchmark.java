@@ -0,0 +1,163 @@
+package benchmark;
+
+import socialmedia.internal.DenseIdMap;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Compares the DenseIdMap that SocialMedia keeps its accounts and posts in with the HashMap of boxed ids
+ * it used before.
+ *
+ * Usage: java benchmark.IdMapBenchmark [ids] [rounds]
+ * (default 1000000 ids, 5 rounds; the first round warms up the JIT and is not reported).
+ *
+ * Each round fills a map with the ids 1..n as createPost does, looks up random ids as endorsePost,
+ * commentPost and showIndividualPost do, removes a tenth of the ids as deletePost does, looks up again
+ * (half of the ids missing or removed) and iterates over the values as savePlatform does.
+ * The heap used by the filled map is printed once, measured after a full GC.
+ */
+public class IdMapBenchmark {
+	private static final int LOOKUPS = 10000000;
+
+	public static void main(String[] args) {
+		int ids = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+		Object[] values = new Object[ids + 1];
+		for (int id = 1; id <= ids; id++) {
+			values[id] = new Object();
+		}
+		int[] lookups = new int[LOOKUPS];
+		int[] removals = new int[ids / 10];
+		Random random = new Random(42);
+		for (int i = 0; i < lookups.length; i++) {
+			lookups[i] = 1 + random.nextInt(ids);
+		}
+		for (int i = 0; i < removals.length; i++) {
+			removals[i] = 1 + random.nextInt(ids);
+		}
+
+		System.out.printf("%,d ids, %,d lookups%n", ids, LOOKUPS);
+		System.out.printf("  heap: HashMap %,d bytes  DenseIdMap %,d bytes%n", heap(() -> {
+			HashMap<Integer, Object> map = new HashMap<>();
+			for (int id = 1; id <= ids; id++) {
+				map.put(id, values[id]);
+			}
+			return map;
+		}), heap(() -> {
+			DenseIdMap<Object> map = new DenseIdMap<>();
+			for (int id = 1; id <= ids; id++) {
+				map.put(id, values[id]);
+			}
+			return map;
+		}));
+
+		for (int round = 0; round <= rounds; round++) {
+			long[] boxed = hashMap(values, ids, lookups, removals);
+			long[] dense = denseIdMap(values, ids, lookups, removals);
+			if (round > 0) {
+				report("HashMap", boxed, ids);
+				report("DenseIdMap", dense, ids);
+			}
+		}
+	}
+
+	private static long[] hashMap(Object[] values, int ids, int[] lookups, int[] removals) {
+		long[] times = new long[5];
+		long found = 0;
+		long start = System.nanoTime();
+		HashMap<Integer, Object> map = new HashMap<>();
+		for (int id = 1; id <= ids; id++) {
+			map.put(id, values[id]);
+		}
+		times[0] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int id : lookups) {
+			found += (map.get(id) != null) ? 1 : 0;
+		}
+		times[1] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int id : removals) {
+			map.remove(id);
+		}
+		times[2] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int id : lookups) {
+			found += (map.get(id << 1) != null) ? 1 : 0;
+		}
+		times[3] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (Object value : map.values()) {
+			found += (value != null) ? 1 : 0;
+		}
+		times[4] = System.nanoTime() - start;
+		blackhole(found);
+		return times;
+	}
+
+	private static long[] denseIdMap(Object[] values, int ids, int[] lookups, int[] removals) {
+		long[] times = new long[5];
+		long found = 0;
+		long start = System.nanoTime();
+		DenseIdMap<Object> map = new DenseIdMap<>();
+		for (int id = 1; id <= ids; id++) {
+			map.put(id, values[id]);
+		}
+		times[0] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int id : lookups) {
+			found += (map.get(id) != null) ? 1 : 0;
+		}
+		times[1] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int id : removals) {
+			map.remove(id);
+		}
+		times[2] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (int id : lookups) {
+			found += (map.get(id << 1) != null) ? 1 : 0;
+		}
+		times[3] = System.nanoTime() - start;
+		start = System.nanoTime();
+		for (Object value : map.values()) {
+			found += (value != null) ? 1 : 0;
+		}
+		times[4] = System.nanoTime() - start;
+		blackhole(found);
+		return times;
+	}
+
+	private static void report(String name, long[] times, int ids) {
+		System.out.printf("  %-10s put %6.1f ns  get %6.1f ns  remove %6.1f ns  get after remove %6.1f ns  iterate %6.1f ns%n",
+				name, (double) times[0] / ids, (double) times[1] / LOOKUPS, (double) times[2] / (ids / 10),
+				(double) times[3] / LOOKUPS, (double) times[4] / ids);
+	}
+
+	private interface Build {
+		Object run();
+	}
+
+	private static long heap(Build build) {
+		long before = used();
+		Object map = build.run();
+		long after = used();
+		blackhole(map.hashCode());
+		return after - before;
+	}
+
+	private static long used() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	//keeps the JIT from removing the loops
+	private static volatile long sink;
+
+	private static void blackhole(long value) {
+		sink += value;
+	}
+}
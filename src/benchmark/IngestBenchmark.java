@@ -0,0 +1,90 @@
+package benchmark;
+
+import socialmedia.IngestionResult;
+import socialmedia.PostEvent;
+import socialmedia.SocialMedia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares applying a history of posts, comments and endorsements with SocialMedia.ingest against calling
+ * createPost, commentPost and endorsePost once per event.
+ *
+ * Usage: java benchmark.IngestBenchmark [events] [accounts] [rounds]
+ * (default 1000000 events, 10000 accounts, 5 rounds; the first round warms up the JIT and is not reported).
+ *
+ * One event in four is an original post, the others comment or endorse one of the last thousand posts, so the
+ * history can only be replayed in order. Each round applies the same history to two new platforms, one per
+ * path, and prints the number of events applied per second by each. Both paths must give the same post IDs.
+ */
+public class IngestBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1000000;
+		int accounts = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+		int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 5;
+		List<PostEvent> events = history(count, accounts, new Random(42));
+
+		System.out.printf("%,d events, %,d accounts%n", count, accounts);
+		for (int round = 0; round <= rounds; round++) {
+			SocialMedia single = platform(accounts);
+			int[] ids = new int[count];
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				PostEvent event = events.get(i);
+				ids[i] = switch (event.getType()) {
+					case POST -> single.createPost(event.getHandle(), event.getMessage());
+					case COMMENT -> single.commentPost(event.getHandle(), ids[event.getSourceEvent()],
+							event.getMessage());
+					case ENDORSE -> single.endorsePost(event.getHandle(), ids[event.getSourceEvent()]);
+				};
+			}
+			long singleTime = System.nanoTime() - start;
+
+			SocialMedia batch = platform(accounts);
+			start = System.nanoTime();
+			IngestionResult result = batch.ingest(events);
+			long batchTime = System.nanoTime() - start;
+
+			if (!result.getErrors().isEmpty() || (result.getId(count - 1) != ids[count - 1])) {
+				throw new IllegalStateException("the paths disagree: " + result);
+			}
+			if (round > 0) {
+				System.out.printf("  single calls %,12.0f events/s  ingest %,12.0f events/s%n",
+						count * 1e9 / singleTime, count * 1e9 / batchTime);
+			}
+		}
+	}
+
+	private static SocialMedia platform(int accounts) throws Exception {
+		SocialMedia platform = new SocialMedia();
+		for (int i = 0; i < accounts; i++) {
+			platform.createAccount("user" + i);
+		}
+		return platform;
+	}
+
+	private static List<PostEvent> history(int count, int accounts, Random random) {
+		List<PostEvent> events = new ArrayList<>(count);
+		List<Integer> actionable = new ArrayList<>(); //events that made a post or a comment
+		for (int i = 0; i < count; i++) {
+			String handle = "user" + random.nextInt(accounts);
+			int kind = actionable.isEmpty() ? 0 : random.nextInt(4);
+			int source = actionable.isEmpty() ? -1
+					: actionable.get(Math.max(0, actionable.size() - 1 - random.nextInt(1000)));
+			if (kind == 0) {
+				events.add(PostEvent.post(handle, "post " + i));
+				actionable.add(i);
+			} else if (kind == 1) {
+				events.add(PostEvent.commentOnEvent(handle, source, "comment " + i));
+				actionable.add(i);
+			} else {
+				events.add(PostEvent.endorseEvent(handle, source));
+			}
+		}
+		return events;
+	}
+
+}
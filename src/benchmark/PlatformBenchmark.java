@@ -0,0 +1,366 @@
+package benchmark;
+
+import socialmedia.NotActionablePostException;
+import socialmedia.SocialMedia;
+import socialmedia.SocialMediaPlatform;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures every operation of SocialMediaPlatform on platforms of growing size, to see how each one scales and
+ * to catch regressions between two versions of the code.
+ *
+ * Usage: java benchmark.PlatformBenchmark [posts,posts,...] [platform class] [baseline file] [filter]
+ * (default sizes 10000,100000,1000000, platform socialmedia.SocialMedia, no baseline, every operation).
+ * The platform class needs a no-argument constructor and must number posts 1, 2, 3, ... as SocialMedia and
+ * ConcurrentSocialMedia do.
+ *
+ * For each size a platform is built through the public API, with one account per 100 posts (see populate).
+ * Every operation is then run for warm-up iterations and measured iterations of a fixed number of calls, and
+ * the median time per call is printed as "operation,posts,ns/op". Read-only operations run first; the ones
+ * that add posts or accounts come next and the ones that delete them last, each on accounts and posts not yet
+ * touched, so the platform changes by a few percent at most while it is measured. The render cache of a
+ * SocialMedia is turned off, so showIndividualPost and showPostChildrenDetails measure the rendering itself.
+ * The results of the calls go to a Blackhole, so the JIT cannot drop them.
+ *
+ * Like the forks of JMH, each operation is measured in JVMs of its own, started with the same options as this
+ * one and a platform built for them, so the code the JIT compiled for one operation does not slow down or
+ * speed up the next. The result is the median of the forks. The system properties benchmark.forks (default 1,
+ * 0 measures every operation in this JVM, one after the other), benchmark.warmup (default 5) and
+ * benchmark.iterations (default 5) change the number of forks and iterations.
+ *
+ * Saving the output to a file and giving that file as the baseline of a later run prints, next to each result,
+ * its change against the baseline; changes of more than 20% are marked with "!".
+ * The filter keeps the operations whose name contains it.
+ */
+public class PlatformBenchmark {
+	private static final int FORKS = Integer.getInteger("benchmark.forks", 1);
+	private static final int WARMUP = Integer.getInteger("benchmark.warmup", 5);
+	private static final int ITERATIONS = Math.max(1, Integer.getInteger("benchmark.iterations", 5));
+	//the one operation a forked JVM measures
+	private static final String RUN = System.getProperty("benchmark.run");
+	private static final double REGRESSION = 0.2;
+
+	private static final Blackhole BLACKHOLE = new Blackhole(); //results of the calls
+	private static long sink; //calls that failed on purpose (already deleted posts, endorsements...)
+
+	/**
+	 * One operation of the platform, measured by calling it ops times per iteration.
+	 */
+	private interface Operation {
+		void call(SocialMediaPlatform platform, int i) throws Exception;
+	}
+
+	/**
+	 * Prepares a platform before an operation is measured.
+	 */
+	private interface SetUp {
+		void run(SocialMediaPlatform platform) throws Exception;
+	}
+
+	private static final class Benchmark {
+		private final String name;
+		private final int ops;
+		private final SetUp setUp;
+		private final Operation operation;
+
+		private Benchmark(String name, int ops, SetUp setUp, Operation operation) {
+			this.name = name;
+			this.ops = ops;
+			this.setUp = setUp;
+			this.operation = operation;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String sizes = (args.length > 0) ? args[0] : "10000,100000,1000000";
+		String platformClass = (args.length > 1) ? args[1] : SocialMedia.class.getName();
+		Map<String, Double> baseline = (args.length > 2) && !args[2].isEmpty() ? readBaseline(args[2])
+				: new HashMap<>();
+		String filter = (args.length > 3) ? args[3] : "";
+
+		System.out.println("# " + platformClass + ", " + FORKS + " forks, " + WARMUP + " warm-up iterations, median of "
+				+ ITERATIONS + " iterations");
+		System.out.println("operation,posts,ns/op");
+		for (String size : sizes.split(",")) {
+			int posts = Integer.parseInt(size.trim());
+			List<Benchmark> benchmarks = benchmarks(posts);
+			if ((FORKS > 0) && (RUN == null)) {
+				for (Benchmark benchmark : benchmarks) {
+					if (benchmark.name.contains(filter)) {
+						double[] forks = new double[FORKS];
+						for (int fork = 0; fork < FORKS; fork++) {
+							forks[fork] = fork(posts, platformClass, benchmark.name);
+						}
+						Arrays.sort(forks);
+						report(System.out, benchmark.name, posts, forks[FORKS / 2], baseline);
+					}
+				}
+				continue;
+			}
+
+			SocialMediaPlatform platform = (SocialMediaPlatform) Class.forName(platformClass)
+					.getDeclaredConstructor().newInstance();
+			if (platform instanceof SocialMedia socialMedia) {
+				socialMedia.setRenderCacheCapacity(0);
+			}
+			populate(platform, posts, 42);
+			for (Benchmark benchmark : benchmarks) {
+				if ((RUN == null) ? benchmark.name.contains(filter) : benchmark.name.equals(RUN)) {
+					double nanos = measure(platform, benchmark);
+					report(System.out, benchmark.name, posts, nanos, baseline);
+				}
+			}
+			platform.erasePlatform();
+		}
+		System.out.println("# sink " + sink + " " + BLACKHOLE);
+	}
+
+	/**
+	 * Measures one operation in a new JVM, started with the options and class path of this one.
+	 *
+	 * @return the median time per call in nanoseconds
+	 */
+	private static double fork(int posts, String platformClass, String name) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<>();
+		command.add(ProcessHandle.current().info().command().orElse("java"));
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments()); //heap size, GC, -D...
+		command.add("-Dbenchmark.forks=0");
+		command.add("-Dbenchmark.run=" + name);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(PlatformBenchmark.class.getName());
+		command.add(Integer.toString(posts));
+		command.add(platformClass);
+		Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		double nanos = Double.NaN;
+		try (BufferedReader reader = process.inputReader()) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split(",");
+				if ((fields.length == 3) && fields[0].equals(name)) {
+					nanos = Double.parseDouble(fields[2]);
+				}
+			}
+		}
+		if ((process.waitFor() != 0) || Double.isNaN(nanos)) {
+			throw new IOException("the fork measuring " + name + " on " + posts + " posts failed");
+		}
+		return nanos;
+	}
+
+	/**
+	 * Builds the benchmarks for a platform with the given number of posts, in the order they must run.
+	 */
+	private static List<Benchmark> benchmarks(int posts) throws IOException {
+		int accounts = Math.max(1, posts / 100);
+		int ops = Math.max(1, Math.min(10000, posts / 100)); //calls per iteration of the cheap operations
+		int rounds = WARMUP + ITERATIONS;
+		int deepThread = Math.max(10, Math.min(1000, posts / 100)); //a chain of comments, each on the last
+		int wideThread = Math.max(10, Math.min(100000, posts / 100)); //comments all on the same post
+		int[] threads = new int[2]; //ids of the deep and wide threads, added by their first set up
+		File file = File.createTempFile("platform-benchmark", ".ser");
+		file.deleteOnExit();
+		Random random = new Random(7);
+		List<Benchmark> benchmarks = new ArrayList<>();
+
+		//read-only operations
+		benchmarks.add(new Benchmark("showAccount", ops, null,
+				(p, i) -> BLACKHOLE.consume(p.showAccount(handle(random.nextInt(accounts))))));
+		benchmarks.add(new Benchmark("showIndividualPost", ops, null,
+				(p, i) -> BLACKHOLE.consume(p.showIndividualPost(1 + random.nextInt(posts)))));
+		benchmarks.add(new Benchmark("getNumberOfAccounts", ops, null, (p, i) -> BLACKHOLE.consume(p.getNumberOfAccounts())));
+		benchmarks.add(new Benchmark("getTotalOriginalPosts", ops, null, (p, i) -> BLACKHOLE.consume(p.getTotalOriginalPosts())));
+		benchmarks.add(new Benchmark("getTotalEndorsmentPosts", ops, null,
+				(p, i) -> BLACKHOLE.consume(p.getTotalEndorsmentPosts())));
+		benchmarks.add(new Benchmark("getTotalCommentPosts", ops, null, (p, i) -> BLACKHOLE.consume(p.getTotalCommentPosts())));
+		benchmarks.add(new Benchmark("getMostEndorsedPost", ops, null, (p, i) -> BLACKHOLE.consume(p.getMostEndorsedPost())));
+		benchmarks.add(new Benchmark("getMostEndorsedAccount", ops, null,
+				(p, i) -> BLACKHOLE.consume(p.getMostEndorsedAccount())));
+		benchmarks.add(new Benchmark("showPostChildrenDetails/popular", 100, null,
+				(p, i) -> BLACKHOLE.consume(p.showPostChildrenDetails(p.getMostEndorsedPost()))));
+		benchmarks.add(new Benchmark("showPostChildrenDetails/deep" + deepThread, 10,
+				p -> threads[0] = (threads[0] == 0) ? thread(p, deepThread, true) : threads[0],
+				(p, i) -> BLACKHOLE.consume(p.showPostChildrenDetails(threads[0]))));
+		benchmarks.add(new Benchmark("showPostChildrenDetails/wide" + wideThread, 10,
+				p -> threads[1] = (threads[1] == 0) ? thread(p, wideThread, false) : threads[1],
+				(p, i) -> BLACKHOLE.consume(p.showPostChildrenDetails(threads[1]))));
+
+		//operations that add accounts and posts
+		int[] created = new int[1];
+		benchmarks.add(new Benchmark("createAccount", ops, null,
+				(p, i) -> BLACKHOLE.consume(p.createAccount("new" + created[0]++, "a new account"))));
+		benchmarks.add(new Benchmark("updateAccountDescription", ops, null,
+				(p, i) -> p.updateAccountDescription(handle(random.nextInt(accounts)), "updated " + i)));
+		benchmarks.add(new Benchmark("createPost", ops, null,
+				(p, i) -> BLACKHOLE.consume(p.createPost(handle(random.nextInt(accounts)), "benchmark post " + i))));
+		benchmarks.add(new Benchmark("endorsePost", ops, null,
+				(p, i) -> BLACKHOLE.consume(actionable(p, posts, random,
+						id -> p.endorsePost(handle(random.nextInt(accounts)), id)))));
+		benchmarks.add(new Benchmark("commentPost", ops, null,
+				(p, i) -> BLACKHOLE.consume(actionable(p, posts, random,
+						id -> p.commentPost(handle(random.nextInt(accounts)), id, "benchmark comment " + i)))));
+		benchmarks.add(new Benchmark("savePlatform", 1, null, (p, i) -> p.savePlatform(file.getPath())));
+		//a forked JVM has not run savePlatform before, so the first set up saves the platform
+		SetUp saved = p -> {
+			if (file.length() == 0) {
+				p.savePlatform(file.getPath());
+			}
+		};
+		benchmarks.add(new Benchmark("loadPlatform", 1, saved, (p, i) -> p.loadPlatform(file.getPath())));
+
+		//operations that change or delete accounts and posts: each call takes ones not touched before
+		int[] next = new int[3];
+		int changes = Math.max(1, Math.min(ops, accounts / (2 * rounds)));
+		benchmarks.add(new Benchmark("changeAccountHandle", changes, null, (p, i) -> {
+			int account = next[0]++;
+			p.changeAccountHandle(handle(account), "renamed" + account);
+		}));
+		benchmarks.add(new Benchmark("removeAccount(handle)", changes, null,
+				(p, i) -> p.removeAccount(handle(accounts - 1 - next[1]++))));
+		benchmarks.add(new Benchmark("removeAccount(id)", changes, null,
+				(p, i) -> p.removeAccount(accounts / 2 - next[2]++)));
+		int deletes = Math.max(1, Math.min(ops, posts / (20 * rounds)));
+		benchmarks.add(new Benchmark("deletePost", deletes, null, (p, i) -> {
+			try {
+				p.deletePost(1 + random.nextInt(posts));
+			} catch (socialmedia.PostIDNotRecognisedException e) {
+				sink++; //already deleted, or made by a removed account
+			}
+		}));
+		benchmarks.add(new Benchmark("erasePlatform", 1, p -> {
+			saved.run(p);
+			p.loadPlatform(file.getPath());
+		}, (p, i) -> p.erasePlatform()));
+		return benchmarks;
+	}
+
+	/**
+	 * Runs a benchmark and returns the median time per call in nanoseconds.
+	 */
+	private static double measure(SocialMediaPlatform platform, Benchmark benchmark) throws Exception {
+		double[] times = new double[ITERATIONS];
+		for (int iteration = 0; iteration < WARMUP + ITERATIONS; iteration++) {
+			if (benchmark.setUp != null) {
+				benchmark.setUp.run(platform);
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < benchmark.ops; i++) {
+				benchmark.operation.call(platform, i);
+			}
+			long time = System.nanoTime() - start;
+			if (iteration >= WARMUP) {
+				times[iteration - WARMUP] = (double) time / benchmark.ops;
+			}
+		}
+		Arrays.sort(times);
+		return times[ITERATIONS / 2];
+	}
+
+	private static void report(PrintStream out, String name, int posts, double nanos, Map<String, Double> baseline) {
+		String line = name + "," + posts + "," + Math.round(nanos);
+		Double before = baseline.get(name + "," + posts);
+		if (before == null) {
+			out.println(line);
+		} else {
+			double change = (nanos - before) / before;
+			out.printf("%s  # %+.0f%%%s%n", line, change * 100, (change > REGRESSION) ? " !" : "");
+		}
+	}
+
+	private static Map<String, Double> readBaseline(String file) throws IOException {
+		Map<String, Double> baseline = new HashMap<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				String[] fields = line.split("#")[0].trim().split(",");
+				if ((fields.length == 3) && fields[2].matches("\\d+")) {
+					baseline.put(fields[0] + "," + fields[1], Double.parseDouble(fields[2]));
+				}
+			}
+		}
+		return baseline;
+	}
+
+	private interface PostCall {
+		int call(int id) throws Exception;
+	}
+
+	/**
+	 * Calls endorsePost or commentPost on a random post that can take it, retrying on the ones that cannot.
+	 */
+	private static int actionable(SocialMediaPlatform platform, int posts, Random random, PostCall call)
+			throws Exception {
+		while (true) {
+			try {
+				return call.call(1 + random.nextInt(posts));
+			} catch (NotActionablePostException e) {
+				sink++; //an endorsement
+			}
+		}
+	}
+
+	/**
+	 * Adds a thread of the given number of comments: a chain of comments on comments (deep) or comments on
+	 * the same post (wide). Returns the id of the post the thread starts from.
+	 */
+	private static int thread(SocialMediaPlatform platform, int comments, boolean deep) throws Exception {
+		int accounts = platform.getNumberOfAccounts();
+		int root = platform.createPost(handle(0), "thread root");
+		int last = root;
+		for (int i = 0; i < comments; i++) {
+			last = platform.commentPost(handle(i % accounts), deep ? last : root, "thread comment " + i);
+		}
+		return root;
+	}
+
+	private static String handle(int account) {
+		return "user" + account;
+	}
+
+	/**
+	 * Fills a platform with the given number of posts through the public API: one account per 100 posts,
+	 * half of the posts original posts, 30% comments and 20% endorsements of earlier posts.
+	 *
+	 * @param platform empty platform to fill
+	 * @param posts    number of posts
+	 * @param seed     seed of the random choices, so the same platform can be built again
+	 * @return the platform
+	 */
+	public static <P extends SocialMediaPlatform> P populate(P platform, int posts, long seed) throws Exception {
+		Random random = new Random(seed);
+		int accounts = Math.max(1, posts / 100);
+		for (int i = 0; i < accounts; i++) {
+			platform.createAccount(handle(i), "description of user " + i);
+		}
+		int lastPost = 0;
+		for (int i = 0; i < posts; i++) {
+			String handle = handle(random.nextInt(accounts));
+			int kind = random.nextInt(10);
+			if ((lastPost == 0) || (kind < 5)) {
+				lastPost = platform.createPost(handle, "post number " + i + " from " + handle);
+			} else {
+				int target = 1 + random.nextInt(lastPost);
+				try {
+					if (kind < 8) {
+						lastPost = platform.commentPost(handle, target, "comment number " + i);
+					} else {
+						lastPost = platform.endorsePost(handle, target);
+					}
+				} catch (NotActionablePostException e) {
+					lastPost = platform.createPost(handle, "post number " + i + " from " + handle);
+				}
+			}
+		}
+		return platform;
+	}
+}
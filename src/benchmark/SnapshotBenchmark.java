@@ -0,0 +1,68 @@
+package benchmark;
+
+import socialmedia.SnapshotFormat;
+import socialmedia.SnapshotView;
+import socialmedia.SocialMedia;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Measures savePlatform / loadPlatform time and file size for every SnapshotFormat, and the time to open
+ * a SnapshotView on a MAPPED snapshot and show one post.
+ * 
+ * Usage: java -Xmx16g benchmark.SnapshotBenchmark [posts,posts,...] [directory]
+ * (default sizes 1000000,10000000; the 10M platform needs a large heap).
+ * 
+ * The platform has one account per 100 posts; half the posts are original posts,
+ * 30% are comments and 20% are endorsements of earlier posts.
+ */
+public class SnapshotBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		String sizes = (args.length > 0) ? args[0] : "1000000,10000000";
+		File directory = new File((args.length > 1) ? args[1] : System.getProperty("java.io.tmpdir"));
+
+		for (String size : sizes.split(",")) {
+			int posts = Integer.parseInt(size.trim());
+			SocialMedia platform = build(posts, 42);
+			System.out.printf("%,d posts%n", posts);
+			for (SnapshotFormat format : SnapshotFormat.values()) {
+				File file = new File(directory, "snapshot-" + posts + "." + format.name().toLowerCase());
+				long save = time(() -> platform.savePlatform(file.getPath(), format));
+				SocialMedia loaded = new SocialMedia();
+				long load = time(() -> loaded.loadPlatform(file.getPath()));
+				if (loaded.getTotalCommentPosts() != platform.getTotalCommentPosts()) {
+					throw new IllegalStateException("loaded platform differs from the saved one");
+				}
+				System.out.printf("  %-10s save %7d ms  load %7d ms  size %,14d bytes%n", format, save, load,
+						file.length());
+				if (format == SnapshotFormat.MAPPED) {
+					long start = System.nanoTime();
+					try (SnapshotView view = new SnapshotView(file.getPath())) {
+						view.showPostChildrenDetails(platform.getMostEndorsedPost());
+					}
+					System.out.printf("  %-10s open and show one thread %d us%n", "VIEW", (System.nanoTime() - start) / 1000);
+				}
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Builds a platform with the given number of posts through the public API.
+	 */
+	public static SocialMedia build(int posts, long seed) throws Exception {
+		return PlatformBenchmark.populate(new SocialMedia(), posts, seed);
+	}
+
+	private interface Task {
+		void run() throws Exception;
+	}
+
+	private static long time(Task task) throws Exception {
+		long start = System.nanoTime();
+		task.run();
+		return (System.nanoTime() - start) / 1_000_000;
+	}
+}
@@ -0,0 +1,204 @@
+package benchmark;
+
+import benchmark.WorkloadGenerator.Op;
+import benchmark.WorkloadGenerator.Type;
+import socialmedia.SocialMedia;
+import socialmedia.SocialMediaPlatform;
+
+import java.util.Arrays;
+
+/**
+ * Drives a SocialMediaPlatform with a generated or recorded stream of operations and reports the throughput
+ * and the latency percentiles of each kind of operation.
+ *
+ * Usage:
+ * <pre>
+ * java benchmark.WorkloadBenchmark generate [operations] [seed] [read ratio] [platform class] [trace file]
+ * java benchmark.WorkloadBenchmark replay trace-file [platform class]
+ * </pre>
+ * (default 1000000 operations, seed 42, read ratio 0.7, platform socialmedia.SocialMedia, no trace file).
+ *
+ * generate makes the stream with a WorkloadGenerator: one initial account per 1000 operations and one initial
+ * post per 10, then the mixed operations, 30% of the comments replying to the last comment. With a trace file,
+ * the stream is also recorded there, so replay can run exactly the same operations later.
+ *
+ * The initial accounts and posts are created first and not measured. Every other operation is timed on its
+ * own; an operation the platform refuses (a post deleted in the meantime, an endorsement of an endorsement)
+ * is timed and counted as an error, as the same stream always gets the same refusals.
+ */
+public class WorkloadBenchmark {
+
+	/**
+	 * Where the operations come from: a generator or a trace.
+	 */
+	private interface Source {
+		Op next() throws Exception;
+	}
+
+	private final SocialMediaPlatform platform;
+	private int[] ids = new int[1024]; //ID given by the platform to each post index (0 if refused)
+	private int posts;
+	private long sink; //results of the calls, so the JIT cannot drop them
+
+	//latencies of each kind of operation, in nanoseconds
+	private final long[][] latencies = new long[Type.values().length][];
+	private final int[] counts = new int[Type.values().length];
+	private final int[] errors = new int[Type.values().length];
+
+	private WorkloadBenchmark(SocialMediaPlatform platform) {
+		this.platform = platform;
+		for (int type = 0; type < latencies.length; type++) {
+			latencies[type] = new long[1024];
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String mode = (args.length > 0) ? args[0] : "generate";
+		if (mode.equals("replay")) {
+			if (args.length < 2) {
+				throw new IllegalArgumentException("replay needs a trace file");
+			}
+			SocialMediaPlatform platform = platform((args.length > 2) ? args[2] : SocialMedia.class.getName());
+			try (WorkloadTrace.Reader trace = new WorkloadTrace.Reader(args[1])) {
+				System.out.println("# replay " + args[1] + " on " + platform.getClass().getName());
+				new WorkloadBenchmark(platform).run(trace::next, trace.getInitialOperations(), Integer.MAX_VALUE);
+			}
+			return;
+		}
+		if (!mode.equals("generate")) {
+			throw new IllegalArgumentException("mode must be generate or replay");
+		}
+		int operations = (args.length > 1) ? Integer.parseInt(args[1]) : 1000000;
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42;
+		double readRatio = (args.length > 3) ? Double.parseDouble(args[3]) : 0.7;
+		SocialMediaPlatform platform = platform((args.length > 4) ? args[4] : SocialMedia.class.getName());
+		String traceFile = (args.length > 5) ? args[5] : null;
+
+		WorkloadGenerator generator = new WorkloadGenerator(seed, Math.max(1, operations / 1000),
+				Math.max(1, operations / 10), readRatio, 0.3);
+		int initial = generator.getInitialOperations();
+		System.out.println("# generate " + operations + " operations, seed " + seed + ", read ratio " + readRatio
+				+ " on " + platform.getClass().getName());
+		if (traceFile == null) {
+			new WorkloadBenchmark(platform).run(generator::next, initial, initial + operations);
+			return;
+		}
+		try (WorkloadTrace.Writer trace = new WorkloadTrace.Writer(traceFile, initial)) {
+			new WorkloadBenchmark(platform).run(() -> {
+				Op op = generator.next();
+				trace.append(op);
+				return op;
+			}, initial, initial + operations);
+		}
+		System.out.println("# recorded to " + traceFile);
+	}
+
+	private static SocialMediaPlatform platform(String platformClass) throws Exception {
+		return (SocialMediaPlatform) Class.forName(platformClass).getDeclaredConstructor().newInstance();
+	}
+
+	/**
+	 * Runs the operations of a source and prints the report.
+	 *
+	 * @param source  operations to run.
+	 * @param initial operations at the start that set up the platform and are not measured.
+	 * @param limit   most operations to run.
+	 */
+	private void run(Source source, int initial, int limit) throws Exception {
+		long measured = 0;
+		int index = 0;
+		for (Op op = (limit > 0) ? source.next() : null; op != null; op = (++index < limit) ? source.next() : null) {
+			long start = System.nanoTime();
+			boolean ok = apply(op);
+			long time = System.nanoTime() - start;
+			if (index >= initial) {
+				record(op.getType(), time, ok);
+				measured += time;
+			}
+		}
+		report(measured);
+	}
+
+	/**
+	 * Calls the platform for one operation.
+	 *
+	 * @return false if the platform refused the operation.
+	 */
+	private boolean apply(Op op) {
+		int id = 0;
+		boolean ok = true;
+		try {
+			String handle = WorkloadGenerator.handle(op.getAccount());
+			switch (op.getType()) {
+				case CREATE_ACCOUNT -> platform.createAccount(handle, op.getMessage());
+				case CREATE_POST -> id = platform.createPost(handle, op.getMessage());
+				case COMMENT -> id = platform.commentPost(handle, post(op), op.getMessage());
+				case ENDORSE -> id = platform.endorsePost(handle, post(op));
+				case DELETE_POST -> platform.deletePost(post(op));
+				case SHOW_ACCOUNT -> sink += platform.showAccount(handle).length();
+				case SHOW_POST -> sink += platform.showIndividualPost(post(op)).length();
+				case SHOW_THREAD -> sink += platform.showPostChildrenDetails(post(op)).length();
+				case MOST_ENDORSED -> sink += platform.getMostEndorsedPost();
+			}
+		} catch (Exception e) {
+			ok = false;
+		}
+		if (op.getType().makesPost()) {
+			if (posts == ids.length) {
+				ids = Arrays.copyOf(ids, posts * 2);
+			}
+			ids[posts++] = id;
+		}
+		return ok;
+	}
+
+	private int post(Op op) {
+		return (op.getPost() < posts) ? ids[op.getPost()] : 0;
+	}
+
+	private void record(Type type, long time, boolean ok) {
+		int t = type.ordinal();
+		if (counts[t] == latencies[t].length) {
+			latencies[t] = Arrays.copyOf(latencies[t], counts[t] * 2);
+		}
+		latencies[t][counts[t]++] = time;
+		if (!ok) {
+			errors[t]++;
+		}
+	}
+
+	private void report(long measured) {
+		long total = 0;
+		for (int count : counts) {
+			total += count;
+		}
+		System.out.printf("%,d operations in %,d ms: %,.0f ops/s (time in the platform only)%n", total,
+				measured / 1_000_000, (measured == 0) ? 0 : total * 1e9 / measured);
+		System.out.printf("%-15s %10s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "count", "errors", "ops/s",
+				"p50 us", "p90 us", "p99 us", "p99.9 us", "max us");
+		for (Type type : Type.values()) {
+			int t = type.ordinal();
+			if (counts[t] == 0) {
+				continue;
+			}
+			long[] times = Arrays.copyOf(latencies[t], counts[t]);
+			Arrays.sort(times);
+			long sum = 0;
+			for (long time : times) {
+				sum += time;
+			}
+			System.out.printf("%-15s %,10d %,8d %,10.0f %9.1f %9.1f %9.1f %9.1f %9.1f%n", type, counts[t], errors[t],
+					counts[t] * 1e9 / Math.max(1, sum), percentile(times, 0.5), percentile(times, 0.9),
+					percentile(times, 0.99), percentile(times, 0.999), times[times.length - 1] / 1000.0);
+		}
+		System.out.println("# sink " + sink);
+	}
+
+	/**
+	 * @return the latency below which the given share of the sorted times fall, in microseconds.
+	 */
+	private static double percentile(long[] sorted, double share) {
+		int rank = (int) Math.ceil(share * sorted.length);
+		return sorted[Math.max(0, rank - 1)] / 1000.0;
+	}
+}
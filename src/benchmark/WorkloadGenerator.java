@@ -0,0 +1,223 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates a stream of platform operations that looks like real use: a few accounts make most of the posts,
+ * a few posts get most of the endorsements, comments and reads, some comments reply to the last comment and
+ * build long chains, and reads and writes are mixed in a given ratio.
+ *
+ * The stream only depends on the seed and the settings, so two generators with the same seed give the same
+ * operations. Posts are referred to by their index in the stream (the n-th operation that makes a post has
+ * index n), not by their ID, so the stream can drive any SocialMediaPlatform; WorkloadBenchmark keeps the
+ * IDs the platform gives back.
+ *
+ * The stream starts with the creation of the initial accounts and posts, then mixes:
+ * <ul>
+ * <li>writes: createPost 30%, commentPost 35%, endorsePost 25%, deletePost 5%, createAccount 5%</li>
+ * <li>reads: showIndividualPost 40%, showPostChildrenDetails 30%, showAccount 20%, getMostEndorsedPost 10%</li>
+ * </ul>
+ * Accounts are chosen with a Zipf-like (log-uniform) law. Posts to comment, endorse and read are chosen by
+ * preferential attachment: a post is picked in proportion to 1 + the comments and endorsements it already got,
+ * which gives a power law of endorsements.
+ */
+public class WorkloadGenerator {
+
+	/**
+	 * The kinds of operation.
+	 */
+	public enum Type {
+		CREATE_ACCOUNT, CREATE_POST, COMMENT, ENDORSE, DELETE_POST, SHOW_ACCOUNT, SHOW_POST, SHOW_THREAD,
+		MOST_ENDORSED;
+
+		/**
+		 * @return true if the operation makes a post (and takes the next post index).
+		 */
+		public boolean makesPost() {
+			return (this == CREATE_POST) || (this == COMMENT) || (this == ENDORSE);
+		}
+	}
+
+	/**
+	 * One operation of the stream.
+	 */
+	public static final class Op {
+		private final Type type;
+		private final int account;
+		private final int post;
+		private final String message;
+
+		/**
+		 * @param type    kind of operation.
+		 * @param account index of the account that makes it, -1 if none.
+		 * @param post    index of the post it is about, -1 if none.
+		 * @param message message of a post or comment, description of an account, or null.
+		 */
+		public Op(Type type, int account, int post, String message) {
+			this.type = type;
+			this.account = account;
+			this.post = post;
+			this.message = message;
+		}
+
+		public Type getType() {
+			return type;
+		}
+
+		public int getAccount() {
+			return account;
+		}
+
+		public int getPost() {
+			return post;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			return type + " " + account + " " + post + ((message == null) ? "" : " " + message);
+		}
+	}
+
+	private final Random random;
+	private final double readRatio;
+	private final double chainRatio;
+	private final int initialAccounts;
+	private final int initialPosts;
+
+	private int accounts; //accounts created so far
+	private int posts; //posts made so far (the next post index)
+	private boolean[] deleted = new boolean[1024]; //posts deleted so far
+	private int[] pool = new int[1024]; //actionable posts, once more for every comment or endorsement they got
+	private int poolSize;
+	private int lastComment = -1; //the last comment made, which a chain continues from
+	private int count; //operations generated so far
+
+	/**
+	 * Constructs a generator.
+	 *
+	 * @param seed            seed of the random choices.
+	 * @param initialAccounts accounts created at the start of the stream (at least 1).
+	 * @param initialPosts    original posts made at the start of the stream (at least 1).
+	 * @param readRatio       share of reads in the mixed part of the stream (0 to 1).
+	 * @param chainRatio      share of the comments that reply to the last comment (0 to 1).
+	 */
+	public WorkloadGenerator(long seed, int initialAccounts, int initialPosts, double readRatio, double chainRatio) {
+		if ((initialAccounts < 1) || (initialPosts < 1)) {
+			throw new IllegalArgumentException("the stream must start with at least one account and one post");
+		}
+		this.random = new Random(seed);
+		this.initialAccounts = initialAccounts;
+		this.initialPosts = initialPosts;
+		this.readRatio = readRatio;
+		this.chainRatio = chainRatio;
+	}
+
+	/**
+	 * @return the number of operations at the start of the stream that create the initial accounts and posts.
+	 */
+	public int getInitialOperations() {
+		return initialAccounts + initialPosts;
+	}
+
+	/**
+	 * @return the next operation of the stream.
+	 */
+	public Op next() {
+		int index = count++;
+		if (index < initialAccounts) {
+			return createAccount();
+		}
+		if (index < initialAccounts + initialPosts) {
+			return post(Type.CREATE_POST, account(), -1, "post " + posts);
+		}
+		double choice = random.nextDouble();
+		if (random.nextDouble() < readRatio) {
+			if (choice < 0.4) {
+				return new Op(Type.SHOW_POST, -1, popularPost(), null);
+			} else if (choice < 0.7) {
+				return new Op(Type.SHOW_THREAD, -1, popularPost(), null);
+			} else if (choice < 0.9) {
+				return new Op(Type.SHOW_ACCOUNT, account(), -1, null);
+			}
+			return new Op(Type.MOST_ENDORSED, -1, -1, null);
+		}
+		if (choice < 0.3) {
+			return post(Type.CREATE_POST, account(), -1, "post " + posts);
+		} else if (choice < 0.65) {
+			boolean chain = (lastComment >= 0) && !deleted[lastComment] && (random.nextDouble() < chainRatio);
+			int source = chain ? lastComment : popularPost();
+			attach(source);
+			Op op = post(Type.COMMENT, account(), source, "comment " + posts + " on " + source);
+			lastComment = posts - 1;
+			return op;
+		} else if (choice < 0.9) {
+			int source = popularPost();
+			attach(source);
+			return post(Type.ENDORSE, account(), source, null);
+		} else if (choice < 0.95) {
+			int post = random.nextInt(posts);
+			deleted[post] = true;
+			return new Op(Type.DELETE_POST, -1, post, null);
+		}
+		return createAccount();
+	}
+
+	private Op createAccount() {
+		int account = accounts++;
+		return new Op(Type.CREATE_ACCOUNT, account, -1, "account " + account);
+	}
+
+	/**
+	 * Makes an operation that takes the next post index.
+	 */
+	private Op post(Type type, int account, int source, String message) {
+		int post = posts++;
+		if (post == deleted.length) {
+			deleted = Arrays.copyOf(deleted, post * 2);
+		}
+		if (type != Type.ENDORSE) {
+			attach(post);
+		}
+		return new Op(type, account, source, message);
+	}
+
+	private void attach(int post) {
+		if (poolSize == pool.length) {
+			pool = Arrays.copyOf(pool, poolSize * 2);
+		}
+		pool[poolSize++] = post;
+	}
+
+	/**
+	 * Picks a post that can be commented or endorsed, in proportion to the comments and endorsements it got.
+	 * Deleted posts are skipped, except when many tries in a row find one (the operation then fails).
+	 */
+	private int popularPost() {
+		int post = pool[random.nextInt(poolSize)];
+		for (int tries = 0; deleted[post] && (tries < 8); tries++) {
+			post = pool[random.nextInt(poolSize)];
+		}
+		return post;
+	}
+
+	/**
+	 * Picks an account with a log-uniform law: account k is picked about 1 / (k + 1) as often as account 0.
+	 */
+	private int account() {
+		int account = (int) Math.exp(random.nextDouble() * Math.log(accounts + 1)) - 1;
+		return Math.min(Math.max(account, 0), accounts - 1);
+	}
+
+	/**
+	 * @param account index of an account.
+	 * @return the handle of the account.
+	 */
+	public static String handle(int account) {
+		return "user" + account;
+	}
+}
@@ -0,0 +1,145 @@
+package benchmark;
+
+import benchmark.WorkloadGenerator.Op;
+import benchmark.WorkloadGenerator.Type;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * A file of operations made by WorkloadGenerator, so the same stream can be replayed later, on another
+ * platform or after a change, without the generator.
+ *
+ * The file is text: a header line with the number of operations that set up the initial accounts and posts
+ * (they are run but not measured), then one operation per line with the type, the account index, the post
+ * index and the message separated by tabs (a missing message is empty; tabs, new lines and backslashes in
+ * messages are escaped with a backslash).
+ */
+public final class WorkloadTrace {
+	private static final String HEADER = "# workload trace v1";
+
+	private WorkloadTrace() {
+	}
+
+	/**
+	 * Writes operations to a trace file.
+	 */
+	public static final class Writer implements Closeable {
+		private final BufferedWriter out;
+
+		/**
+		 * @param file              trace file, replaced if it exists.
+		 * @param initialOperations operations at the start of the trace that set up the platform.
+		 */
+		public Writer(String file, int initialOperations) throws IOException {
+			out = new BufferedWriter(new FileWriter(file));
+			out.write(HEADER + " initial=" + initialOperations);
+			out.newLine();
+		}
+
+		/**
+		 * @param op operation to add at the end of the trace.
+		 */
+		public void append(Op op) throws IOException {
+			out.write(op.getType().name());
+			out.write('\t');
+			out.write(Integer.toString(op.getAccount()));
+			out.write('\t');
+			out.write(Integer.toString(op.getPost()));
+			out.write('\t');
+			if (op.getMessage() != null) {
+				out.write(escape(op.getMessage()));
+			}
+			out.newLine();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads the operations of a trace file, in order.
+	 */
+	public static final class Reader implements Closeable {
+		private final BufferedReader in;
+		private final int initialOperations;
+		private int line = 1;
+
+		/**
+		 * @param file trace file written by a Writer.
+		 * @throws IOException if the file cannot be read or is not a trace.
+		 */
+		public Reader(String file) throws IOException {
+			in = new BufferedReader(new FileReader(file));
+			String header = in.readLine();
+			String prefix = HEADER + " initial=";
+			if ((header == null) || !header.startsWith(prefix)
+					|| !header.substring(prefix.length()).matches("\\d{1,9}")) {
+				in.close();
+				throw new IOException(file + " is not a workload trace");
+			}
+			initialOperations = Integer.parseInt(header.substring(prefix.length()));
+		}
+
+		/**
+		 * @return the number of operations at the start of the trace that set up the platform.
+		 */
+		public int getInitialOperations() {
+			return initialOperations;
+		}
+
+		/**
+		 * @return the next operation, or null at the end of the trace.
+		 * @throws IOException if the file cannot be read or a line is malformed.
+		 */
+		public Op next() throws IOException {
+			String text = in.readLine();
+			if (text == null) {
+				return null;
+			}
+			line++;
+			String[] fields = text.split("\t", -1);
+			try {
+				if (fields.length != 4) {
+					throw new IllegalArgumentException("expected 4 fields");
+				}
+				Type type = Type.valueOf(fields[0]);
+				String message = fields[3].isEmpty() ? null : unescape(fields[3]);
+				return new Op(type, Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), message);
+			} catch (IllegalArgumentException e) {
+				throw new IOException("malformed trace line " + line + ": " + text, e);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			in.close();
+		}
+	}
+
+	private static String escape(String message) {
+		return message.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+	}
+
+	private static String unescape(String message) {
+		if (message.indexOf('\\') < 0) {
+			return message;
+		}
+		StringBuilder text = new StringBuilder(message.length());
+		for (int i = 0; i < message.length(); i++) {
+			char c = message.charAt(i);
+			if ((c == '\\') && (i + 1 < message.length())) {
+				c = message.charAt(++i);
+				c = (c == 't') ? '\t' : (c == 'n') ? '\n' : (c == 'r') ? '\r' : c;
+			}
+			text.append(c);
+		}
+		return text.toString();
+	}
+}
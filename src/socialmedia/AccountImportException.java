@@ -0,0 +1,41 @@
+package socialmedia;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Thrown when a batch of accounts given to
+ * {@link SocialMedia#createAccounts(java.util.List, java.util.List)} has rows
+ * that cannot be imported. No account of the batch is created.
+ *
+ * Each failing row is reported with the exception createAccount would have
+ * thrown for it: an {@link InvalidHandleException} or an
+ * {@link IllegalHandleException}.
+ *
+ * @version 1.0
+ *
+ */
+public class AccountImportException extends Exception {
+
+	private final SortedMap<Integer, Exception> errors;
+
+	/**
+	 * Constructs an instance of the exception with the errors of the batch.
+	 *
+	 * @param errors the exception of each failing row, by row index.
+	 */
+	public AccountImportException(SortedMap<Integer, Exception> errors) {
+		super(errors.size() + " row(s) of the batch cannot be imported, first at row " + errors.firstKey() + ": "
+				+ errors.get(errors.firstKey()).getMessage());
+		this.errors = Collections.unmodifiableSortedMap(new TreeMap<>(errors));
+	}
+
+	/**
+	 * @return the exception of each failing row, by row index (from 0).
+	 */
+	public SortedMap<Integer, Exception> getErrors() {
+		return errors;
+	}
+
+}
@@ -0,0 +1,667 @@
+package socialmedia;
+
+import socialmedia.internal.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * This class implements the SocialMediaPlatform with posts kept in primitive arrays instead of objects.
+ *
+ * A post is a slot in parallel arrays indexed by its id: its type, the id of its account, the id of its source
+ * post, the handle of its message in a MessagePool, its counts of comments and endorsements, and the links of
+ * the lists of comments and endorsements it belongs to (each list is chained through the ids of its posts, so
+ * adding or removing a child is O(1) and keeps the order the children were made in). An endorsement stores
+ * no message: it is made from the endorsed post.
+ *
+ * Post, Comment, Endorsement and Account objects are only made for the time it takes to show a post or an
+ * account, and are not kept. The results are the same as SocialMedia.
+ *
+ * Slots are indexed by post id and are not reused, so the arrays grow with the number of posts ever made.
+ * Snapshots are written in the BINARY format of SocialMedia, and loadPlatform reads binary snapshots,
+ * compressed or not.
+ *
+ * @version 1.0
+ *
+ */
+public class CompactSocialMedia implements SocialMediaPlatform {
+  private static final int INITIAL_CAPACITY = 16;
+  //the messages are copied to a new pool when removed ones take more than half of it (and more than this)
+  private static final long MIN_MESSAGE_GARBAGE = 1 << 20;
+
+  private int lastAccountId = 0; //all accounts are unique
+  private int lastPostId = 0; //all posts are unique
+
+  //accounts, indexed by account id (a null handle means there is no account with that id)
+  private HashMap<String, Integer> accountIds = new HashMap<>();
+  private String[] handles;
+  private String[] descriptions;
+  private int[] postCounts;
+  //ids of the posts made by each account; ids of deleted posts stay until the list is compacted
+  private int[][] accountPosts;
+  private int[] accountPostsSize;
+
+  //posts, indexed by post id (type 0 means there is no post with that id)
+  private byte[] types;
+  private int[] authors;
+  private int[] sources; //0 -> original post || -1 -> the source was deleted
+  private int[] messages;
+  private int[] commentCounts;
+  private int[] endorsementCounts;
+  //first comment and first endorsement of each post; the first child links back to the last one
+  private int[] firstComments;
+  private int[] firstEndorsements;
+  private int[] nextSiblings;
+  private int[] previousSiblings;
+  private MessagePool messagePool;
+
+  //Endorsement rankings; posts without endorsements are not ranked
+  private final EndorsementRanking postRanking = new EndorsementRanking();
+  private final EndorsementRanking accountRanking = new EndorsementRanking();
+  private int firstLivePost = 1; //no post with a lower id is in the system
+
+  //Live number of posts of each type
+  private int totalOriginalPosts = 0;
+  private int totalEndorsementPosts = 0;
+  private int totalCommentPosts = 0;
+
+  /**
+   * The constructor; CompactSocialMedia() creates an empty platform
+   */
+  public CompactSocialMedia() {
+    eraseInternal();
+  }
+
+  @Override
+  public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+      SocialMedia.checkHandle(handle); //for InvalidHandleException
+      if (accountIds.containsKey(handle)) { //if the account has the same name
+          throw new IllegalHandleException("the handle already exists in the platform");
+      }
+
+      int id = ++lastAccountId;
+      ensureAccountCapacity(id);
+      handles[id] = handle;
+      descriptions[id] = description;
+      accountPosts[id] = new int[4];
+      accountIds.put(handle, id);
+      return id;
+  }
+
+  @Override
+  public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+      return createAccount(handle, null);
+  }
+
+  @Override
+  public void removeAccount(int id) throws AccountIDNotRecognisedException {
+      if (!isAccount(id)) {
+          throw new AccountIDNotRecognisedException("account Id does not match to any account in the system");
+      }
+      removeAccountInternal(id);
+  }
+
+  @Override
+  public void removeAccount(String handle) throws HandleNotRecognisedException {
+      removeAccountInternal(accountId(handle));
+  }
+
+  /**
+   * This method deletes every post made by the account, then the account itself
+   *
+   * @param id account ID
+   */
+  private void removeAccountInternal(int id) {
+      //deleting posts only lowers the post count, so the list does not change while it is read
+      int[] posts = accountPosts[id];
+      for (int i = 0; i < accountPostsSize[id]; i++) {
+          //an endorsement of the account's own post may already be gone with that post
+          if (isPost(posts[i])) {
+              deletePostInternal(posts[i]);
+          }
+      }
+      accountIds.remove(handles[id]);
+      handles[id] = null;
+      descriptions[id] = null;
+      postCounts[id] = 0;
+      accountPosts[id] = null;
+      accountPostsSize[id] = 0;
+      compactMessagesIfNeeded();
+  }
+
+  @Override
+  public void changeAccountHandle(String oldHandle, String newHandle)
+          throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+      SocialMedia.checkHandle(newHandle);
+      if (accountIds.containsKey(newHandle)) {
+          throw new IllegalHandleException("Handle already exists in the platform");
+      }
+      Integer id = accountIds.get(oldHandle);
+      if (id == null) {
+          throw new HandleNotRecognisedException("Old Handle does not match to any account in the system");
+      }
+      accountIds.remove(oldHandle);
+      accountIds.put(newHandle, id);
+      handles[id] = newHandle;
+  }
+
+  @Override
+  public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+      descriptions[accountId(handle)] = description;
+  }
+
+  @Override
+  public String showAccount(String handle) throws HandleNotRecognisedException {
+      int id = accountId(handle);
+      //the endorsements received by the posts of an account are its count in the account ranking
+      return accountView(id).showAccount(new StringBuilder()).append("Post count: ")
+              .append(postCounts[id]).append("\n").append("Endorse count: ")
+              .append(accountRanking.getCount(id)).append("\n").toString();
+  }
+
+  @Override
+  public int getNumberOfAccounts() {
+      return accountIds.size();
+  }
+
+  @Override
+  public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+      int accountId = accountId(handle);
+      SocialMedia.checkMessage(message); //InvalidPostException
+      return addPost(SnapshotWriter.POST, ++lastPostId, accountId, 0, message);
+  }
+
+  @Override
+  public int endorsePost(String handle, int id)
+          throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+      int accountId = accountId(handle);
+      checkActionable(id);
+
+      int endorsement = addPost(SnapshotWriter.ENDORSEMENT, ++lastPostId, accountId, id, null);
+      //the endorsed post and the account that made it both receive one more endorsement
+      postRanking.adjust(id, 1);
+      accountRanking.adjust(authors[id], 1);
+      return endorsement;
+  }
+
+  @Override
+  public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
+          PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+      int accountId = accountId(handle);
+      checkActionable(id);
+      SocialMedia.checkMessage(message); //InvalidPostException
+      return addPost(SnapshotWriter.COMMENT, ++lastPostId, accountId, id, message);
+  }
+
+  @Override
+  public void deletePost(int id) throws PostIDNotRecognisedException {
+      if (!isPost(id)) {
+          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+      }
+      deletePostInternal(id);
+      compactMessagesIfNeeded();
+  }
+
+  /**
+   * This method deletes a post as SocialMedia does: its endorsements are deleted with it, and its comments
+   * stay but reply to a post that is no longer available
+   *
+   * @param id ID of a post in the system
+   */
+  private void deletePostInternal(int id) {
+      int endorsements = endorsementCounts[id];
+      for (int endorsement = firstEndorsements[id]; endorsement != 0; ) {
+          int next = nextSiblings[endorsement];
+          freePost(endorsement);
+          postRanking.remove(endorsement);
+          endorsement = next;
+      }
+      for (int comment = firstComments[id]; comment != 0; ) {
+          int next = nextSiblings[comment];
+          sources[comment] = -1;
+          nextSiblings[comment] = 0;
+          previousSiblings[comment] = 0;
+          comment = next;
+      }
+
+      //leave the list of the source post
+      int source = sources[id];
+      if ((source > 0) && isPost(source)) {
+          if (types[id] == SnapshotWriter.ENDORSEMENT) {
+              firstEndorsements[source] = unlink(firstEndorsements[source], id);
+              endorsementCounts[source]--;
+              postRanking.adjust(source, -1);
+              accountRanking.adjust(authors[source], -1);
+          } else {
+              firstComments[source] = unlink(firstComments[source], id);
+              commentCounts[source]--;
+          }
+      }
+
+      //the account that made the post loses the endorsements the post received
+      if (authors[id] != 0) {
+          accountRanking.adjust(authors[id], -endorsements);
+      }
+      postRanking.remove(id);
+      freePost(id);
+  }
+
+  @Override
+  public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+      if (!isPost(id)) {
+          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+      }
+      AbstractPost post = view(id);
+      post.setComments(Collections.nCopies(commentCounts[id], null)); //only the number of comments is shown
+      return post.showPostDetails(new StringBuilder(), false).toString();
+  }
+
+  @Override
+  public StringBuilder showPostChildrenDetails(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+      if (!isPost(id)) {
+          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+      }
+      //make the views of the whole comment tree, then show it as SocialMedia does
+      AbstractPost post = view(id);
+      ArrayDeque<AbstractPost> pending = new ArrayDeque<>();
+      pending.push(post);
+      while (!pending.isEmpty()) {
+          AbstractPost parent = pending.pop();
+          int parentId = parent.getId();
+          if (commentCounts[parentId] > 0) {
+              List<Comment> comments = new ArrayList<>(commentCounts[parentId]);
+              for (int comment = firstComments[parentId]; comment != 0; comment = nextSiblings[comment]) {
+                  Comment child = (Comment) view(comment, parent);
+                  comments.add(child);
+                  pending.push(child);
+              }
+              parent.setComments(comments);
+          }
+      }
+      return post.showPostDetails(new StringBuilder(), true);
+  }
+
+  @Override
+  public int getMostEndorsedPost() {
+      int id = postRanking.first();
+      if (id != 0) {
+          return id;
+      }
+      //no post has endorsements: the lowest post id wins, as in SocialMedia
+      while ((firstLivePost <= lastPostId) && (types[firstLivePost] == 0)) {
+          firstLivePost++;
+      }
+      return (firstLivePost <= lastPostId) ? firstLivePost : 0;
+  }
+
+  @Override
+  public int getMostEndorsedAccount() {
+      return accountRanking.first();
+  }
+
+  @Override
+  public int getTotalOriginalPosts() {
+      return totalOriginalPosts;
+  }
+
+  @Override
+  public int getTotalEndorsmentPosts() {
+      return totalEndorsementPosts;
+  }
+
+  @Override
+  public int getTotalCommentPosts() {
+      return totalCommentPosts;
+  }
+
+  /**
+   * This method returns the number of accounts and of posts of each type
+   * @return the totals of the platform
+   */
+  public PlatformStats getPlatformStats() {
+      return new PlatformStats(accountIds.size(), totalOriginalPosts, totalEndorsementPosts, totalCommentPosts);
+  }
+
+  @Override
+  public void erasePlatform() {
+      eraseInternal();
+  }
+
+  private void eraseInternal() {
+      lastAccountId = 0;
+      accountIds = new HashMap<>();
+      handles = new String[INITIAL_CAPACITY];
+      descriptions = new String[INITIAL_CAPACITY];
+      postCounts = new int[INITIAL_CAPACITY];
+      accountPosts = new int[INITIAL_CAPACITY][];
+      accountPostsSize = new int[INITIAL_CAPACITY];
+
+      lastPostId = 0;
+      types = new byte[INITIAL_CAPACITY];
+      authors = new int[INITIAL_CAPACITY];
+      sources = new int[INITIAL_CAPACITY];
+      messages = new int[INITIAL_CAPACITY];
+      commentCounts = new int[INITIAL_CAPACITY];
+      endorsementCounts = new int[INITIAL_CAPACITY];
+      firstComments = new int[INITIAL_CAPACITY];
+      firstEndorsements = new int[INITIAL_CAPACITY];
+      nextSiblings = new int[INITIAL_CAPACITY];
+      previousSiblings = new int[INITIAL_CAPACITY];
+      messagePool = new MessagePool();
+
+      postRanking.clear();
+      accountRanking.clear();
+      firstLivePost = 1;
+
+      totalOriginalPosts = 0;
+      totalEndorsementPosts = 0;
+      totalCommentPosts = 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The platform is saved in the BINARY format of SocialMedia, which SocialMedia can load too.
+   */
+  @Override
+  public void savePlatform(String filename) throws IOException {
+      try (SnapshotWriter writer = new SnapshotWriter(FileChannel.open(Path.of(filename),
+              StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+          writer.writeHeader(lastAccountId, lastPostId, accountIds.size());
+          for (int id = 1; id <= lastAccountId; id++) {
+              if (isAccount(id)) {
+                  writer.writeAccount(accountView(id));
+              }
+          }
+          writer.writePostCount(totalOriginalPosts + totalEndorsementPosts + totalCommentPosts);
+          for (int id = 1; id <= lastPostId; id++) {
+              if (isPost(id)) {
+                  writer.writePost(types[id], id, authors[id], Math.max(0, sources[id]),
+                          (types[id] == SnapshotWriter.ENDORSEMENT) ? null : messagePool.get(messages[id]));
+              }
+          }
+      }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Only binary snapshots (compressed or not) can be loaded.
+   */
+  @Override
+  public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+      try (SnapshotReader reader = new SnapshotReader(SocialMedia.openSnapshot(filename))) {
+          reader.read(new SnapshotReader.Handler() {
+              @Override
+              public void header(int lastAccId, int lastPId) {
+                  eraseInternal();
+                  lastAccountId = lastAccId;
+                  lastPostId = lastPId;
+                  ensureAccountCapacity(lastAccId);
+                  ensurePostCapacity(lastPId);
+              }
+
+              @Override
+              public void account(int id, String handle, String description) {
+                  ensureAccountCapacity(id);
+                  handles[id] = handle;
+                  descriptions[id] = description;
+                  accountPosts[id] = new int[4];
+                  accountIds.put(handle, id);
+              }
+
+              @Override
+              public void post(byte type, int id, int accountId, int sourcePostId, String message) {
+                  //a post whose account or source is missing from the snapshot keeps none
+                  addPost(type, id, isAccount(accountId) ? accountId : 0,
+                          ((type == SnapshotWriter.POST) || isPost(sourcePostId)) ? sourcePostId : -1, message);
+              }
+          });
+      }
+
+      for (int id = 1; id <= lastPostId; id++) {
+          if (isPost(id) && (endorsementCounts[id] > 0)) {
+              postRanking.adjust(id, endorsementCounts[id]);
+              if (authors[id] != 0) {
+                  accountRanking.adjust(authors[id], endorsementCounts[id]);
+              }
+          }
+      }
+  }
+
+  /**
+   * This method puts a post in its slot and links it to its account and source
+   *
+   * @return the post ID
+   */
+  private int addPost(byte type, int id, int accountId, int source, String message) {
+      ensurePostCapacity(id);
+      types[id] = type;
+      authors[id] = accountId;
+      sources[id] = source;
+      if (type != SnapshotWriter.ENDORSEMENT) {
+          messages[id] = messagePool.add(message);
+      }
+      if (type == SnapshotWriter.COMMENT) {
+          if (source > 0) {
+              firstComments[source] = append(firstComments[source], id);
+              commentCounts[source]++;
+          }
+          totalCommentPosts++;
+      } else if (type == SnapshotWriter.ENDORSEMENT) {
+          if (source > 0) {
+              firstEndorsements[source] = append(firstEndorsements[source], id);
+              endorsementCounts[source]++;
+          }
+          totalEndorsementPosts++;
+      } else {
+          totalOriginalPosts++;
+      }
+      if (accountId != 0) {
+          addToAccount(accountId, id);
+      }
+      return id;
+  }
+
+  /**
+   * This method empties the slot of a post and takes it away from its account and the totals
+   */
+  private void freePost(int id) {
+      if (types[id] == SnapshotWriter.COMMENT) {
+          totalCommentPosts--;
+      } else if (types[id] == SnapshotWriter.ENDORSEMENT) {
+          totalEndorsementPosts--;
+      } else {
+          totalOriginalPosts--;
+      }
+      if (types[id] != SnapshotWriter.ENDORSEMENT) {
+          messagePool.remove(messages[id]);
+      }
+      if (authors[id] != 0) {
+          postCounts[authors[id]]--;
+      }
+      types[id] = 0;
+      authors[id] = 0;
+      sources[id] = 0;
+      messages[id] = 0;
+      commentCounts[id] = 0;
+      endorsementCounts[id] = 0;
+      firstComments[id] = 0;
+      firstEndorsements[id] = 0;
+      nextSiblings[id] = 0;
+      previousSiblings[id] = 0;
+  }
+
+  /**
+   * This method adds a post at the end of a list of children
+   *
+   * @param first first post of the list (0 if empty)
+   * @param id post to add
+   * @return the new first post of the list
+   */
+  private int append(int first, int id) {
+      nextSiblings[id] = 0;
+      if (first == 0) {
+          previousSiblings[id] = id;
+          return id;
+      }
+      int last = previousSiblings[first];
+      nextSiblings[last] = id;
+      previousSiblings[id] = last;
+      previousSiblings[first] = id;
+      return first;
+  }
+
+  /**
+   * This method removes a post from a list of children
+   *
+   * @param first first post of the list
+   * @param id post to remove
+   * @return the new first post of the list (0 if it is empty)
+   */
+  private int unlink(int first, int id) {
+      int next = nextSiblings[id];
+      int previous = previousSiblings[id];
+      if (id == first) {
+          if (next != 0) {
+              previousSiblings[next] = previous; //the new first post links back to the last one
+          }
+          first = next;
+      } else {
+          nextSiblings[previous] = next;
+          if (next != 0) {
+              previousSiblings[next] = previous;
+          } else {
+              previousSiblings[first] = previous; //the removed post was the last one
+          }
+      }
+      nextSiblings[id] = 0;
+      previousSiblings[id] = 0;
+      return first;
+  }
+
+  private void addToAccount(int accountId, int id) {
+      int[] posts = accountPosts[accountId];
+      int size = accountPostsSize[accountId];
+      if (size == posts.length) {
+          if (postCounts[accountId] * 2 <= size) {
+              //half of the list are deleted posts: drop them instead of growing
+              int live = 0;
+              for (int i = 0; i < size; i++) {
+                  if (isPost(posts[i])) {
+                      posts[live++] = posts[i];
+                  }
+              }
+              size = live;
+          } else {
+              posts = Arrays.copyOf(posts, size * 2);
+              accountPosts[accountId] = posts;
+          }
+      }
+      posts[size] = id;
+      accountPostsSize[accountId] = size + 1;
+      postCounts[accountId]++;
+  }
+
+  /**
+   * This method copies the live messages to a new pool when deleted ones take too much room
+   */
+  private void compactMessagesIfNeeded() {
+      long garbage = messagePool.getGarbage();
+      if ((garbage < MIN_MESSAGE_GARBAGE) || (garbage * 2 < messagePool.getSize())) {
+          return;
+      }
+      MessagePool pool = new MessagePool();
+      for (int id = 1; id <= lastPostId; id++) {
+          if (isPost(id) && (types[id] != SnapshotWriter.ENDORSEMENT)) {
+              messages[id] = pool.add(messagePool.get(messages[id]));
+          }
+      }
+      messagePool = pool;
+  }
+
+  /**
+   * This method makes the (transient) object of a post, to show it
+   */
+  private AbstractPost view(int id) {
+      //the message of an endorsement is made from the endorsed post
+      boolean endorsement = (types[id] == SnapshotWriter.ENDORSEMENT) && isPost(sources[id]);
+      return view(id, endorsement ? view(sources[id]) : null);
+  }
+
+  private AbstractPost view(int id, AbstractPost source) {
+      Account account = (authors[id] == 0) ? null : accountView(authors[id]);
+      AbstractPost post;
+      if (types[id] == SnapshotWriter.COMMENT) {
+          post = new Comment(id, account, source, messagePool.get(messages[id]));
+      } else if (types[id] == SnapshotWriter.ENDORSEMENT) {
+          post = new Endorsement(id, account, source);
+      } else {
+          post = new Post(id, account, messagePool.get(messages[id]));
+      }
+      //only the number of endorsements is shown
+      post.setEndorsements(Collections.nCopies(endorsementCounts[id], null));
+      return post;
+  }
+
+  private Account accountView(int id) {
+      return new Account(id, handles[id], descriptions[id]);
+  }
+
+  private boolean isAccount(int id) {
+      return (id > 0) && (id <= lastAccountId) && (id < handles.length) && (handles[id] != null);
+  }
+
+  private boolean isPost(int id) {
+      return (id > 0) && (id <= lastPostId) && (id < types.length) && (types[id] != 0);
+  }
+
+  private int accountId(String handle) throws HandleNotRecognisedException {
+      Integer id = accountIds.get(handle);
+      if (id == null) {
+          throw new HandleNotRecognisedException("Handle does not match to any account in the system");
+      }
+      return id;
+  }
+
+  private void checkActionable(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+      if (!isPost(id)) {
+          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+      }
+      if (types[id] == SnapshotWriter.ENDORSEMENT) {
+          throw new NotActionablePostException("Not an actionable post");
+      }
+  }
+
+  private void ensureAccountCapacity(int id) {
+      if (id < handles.length) {
+          return;
+      }
+      int capacity = Math.max(id + 1, handles.length + (handles.length >> 1));
+      handles = Arrays.copyOf(handles, capacity);
+      descriptions = Arrays.copyOf(descriptions, capacity);
+      postCounts = Arrays.copyOf(postCounts, capacity);
+      accountPosts = Arrays.copyOf(accountPosts, capacity);
+      accountPostsSize = Arrays.copyOf(accountPostsSize, capacity);
+  }
+
+  private void ensurePostCapacity(int id) {
+      if (id < types.length) {
+          return;
+      }
+      int capacity = Math.max(id + 1, types.length + (types.length >> 1));
+      types = Arrays.copyOf(types, capacity);
+      authors = Arrays.copyOf(authors, capacity);
+      sources = Arrays.copyOf(sources, capacity);
+      messages = Arrays.copyOf(messages, capacity);
+      commentCounts = Arrays.copyOf(commentCounts, capacity);
+      endorsementCounts = Arrays.copyOf(endorsementCounts, capacity);
+      firstComments = Arrays.copyOf(firstComments, capacity);
+      firstEndorsements = Arrays.copyOf(firstEndorsements, capacity);
+      nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+      previousSiblings = Arrays.copyOf(previousSiblings, capacity);
+  }
+}
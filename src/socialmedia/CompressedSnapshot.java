@@ -0,0 +1,251 @@
+package socialmedia;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The container of a compressed snapshot: the bytes of a SERIALIZED or BINARY snapshot, cut into blocks that
+ * are compressed by a SnapshotCodec.
+ * <pre>
+ * "SMPZ" version
+ * short length + UTF-8 name of the codec
+ * int block size, int dictionary length, dictionary
+ * blocks: int length before compression, int compressed length, compressed bytes
+ * int 0 (end of the snapshot)
+ * </pre>
+ *
+ * @version 1.0
+ *
+ */
+final class CompressedSnapshot {
+  static final byte[] MAGIC = { 'S', 'M', 'P', 'Z' };
+  static final byte VERSION = 1;
+  static final int BLOCK_SIZE = 1 << 18;
+
+  //codecs loadPlatform can find by name
+  private static final ConcurrentHashMap<String, SnapshotCodec> codecs = new ConcurrentHashMap<>();
+
+  static {
+    register(new DeflateCodec());
+  }
+
+  private CompressedSnapshot() {
+  }
+
+  static void register(SnapshotCodec codec) {
+    codecs.put(codec.getName(), codec);
+  }
+
+  static SnapshotCodec forName(String name) {
+    return codecs.get(name);
+  }
+
+  /**
+   * A channel that compresses what is written to it, one block at a time
+   */
+  static final class Writer implements WritableByteChannel {
+    private final WritableByteChannel channel;
+    private final SnapshotCodec codec;
+    private final byte[] dictionary;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private int blockLength;
+    private boolean open = true;
+
+    /**
+     * The constructor; Writer(channel, codec, dictionary) writes the header of a compressed snapshot
+     *
+     * @param channel destination of the compressed snapshot (closed with the writer)
+     * @param codec codec the blocks are compressed with
+     * @param dictionary preset dictionary of every block
+     */
+    Writer(WritableByteChannel channel, SnapshotCodec codec, byte[] dictionary) throws IOException {
+      this.channel = channel;
+      this.codec = codec;
+      this.dictionary = dictionary;
+      byte[] name = codec.getName().getBytes(StandardCharsets.UTF_8);
+      ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 1 + 2 + name.length + 8 + dictionary.length);
+      header.put(MAGIC).put(VERSION).putShort((short) name.length).put(name)
+          .putInt(BLOCK_SIZE).putInt(dictionary.length).put(dictionary);
+      writeFully(header.flip());
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      if (!open) {
+        throw new IOException("channel is closed");
+      }
+      int written = src.remaining();
+      while (src.hasRemaining()) {
+        int n = Math.min(src.remaining(), block.length - blockLength);
+        src.get(block, blockLength, n);
+        blockLength += n;
+        if (blockLength == block.length) {
+          writeBlock();
+        }
+      }
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    /**
+     * This method writes the last block and the end of the snapshot, then closes the channel
+     */
+    @Override
+    public void close() throws IOException {
+      if (!open) {
+        return;
+      }
+      open = false;
+      try {
+        if (blockLength > 0) {
+          writeBlock();
+        }
+        writeFully(ByteBuffer.allocate(4).putInt(0).flip());
+      } finally {
+        channel.close();
+      }
+    }
+
+    private void writeBlock() throws IOException {
+      byte[] compressed = codec.compress(block, blockLength, dictionary);
+      writeFully(ByteBuffer.allocate(8).putInt(blockLength).putInt(compressed.length).flip());
+      writeFully(ByteBuffer.wrap(compressed));
+      blockLength = 0;
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+
+  /**
+   * A channel that gives back the bytes of a compressed snapshot, one block at a time
+   */
+  static final class Reader implements ReadableByteChannel {
+    private final ReadableByteChannel channel;
+    private final SnapshotCodec codec;
+    private final byte[] dictionary;
+    private final int blockSize;
+    private final ByteBuffer block;
+    private byte[] compressed = new byte[0];
+    private boolean ended;
+    private boolean open = true;
+
+    /**
+     * The constructor; Reader(channel) reads the header of a compressed snapshot
+     *
+     * @param channel source of the compressed snapshot (closed with the reader)
+     * @throws IOException if the snapshot is not compressed or its codec is not registered
+     */
+    Reader(ReadableByteChannel channel) throws IOException {
+      this.channel = channel;
+      try {
+        ByteBuffer header = readFully(MAGIC.length + 1 + 2);
+        for (byte b : MAGIC) {
+          if (header.get() != b) {
+            throw new StreamCorruptedException("not a compressed snapshot");
+          }
+        }
+        byte version = header.get();
+        if (version != VERSION) {
+          throw new StreamCorruptedException("unsupported snapshot version " + version);
+        }
+        String name = new String(readFully(header.getShort() & 0xFFFF).array(), StandardCharsets.UTF_8);
+        codec = forName(name);
+        if (codec == null) {
+          throw new IOException("snapshot codec " + name + " is not registered");
+        }
+        ByteBuffer sizes = readFully(8);
+        blockSize = sizes.getInt();
+        int dictionaryLength = sizes.getInt();
+        if ((blockSize <= 0) || (dictionaryLength < 0)) {
+          throw new StreamCorruptedException("bad compressed snapshot header");
+        }
+        dictionary = readFully(dictionaryLength).array();
+        block = ByteBuffer.allocate(blockSize);
+        block.flip(); //empty until the first read
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (!open) {
+        throw new IOException("channel is closed");
+      }
+      if (!block.hasRemaining() && !nextBlock()) {
+        return -1;
+      }
+      int n = Math.min(dst.remaining(), block.remaining());
+      dst.put(block.array(), block.position(), n);
+      block.position(block.position() + n);
+      return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+      open = false;
+      channel.close();
+    }
+
+    /**
+     * This method decompresses the next block
+     * @return false at the end of the snapshot
+     */
+    private boolean nextBlock() throws IOException {
+      if (ended) {
+        return false;
+      }
+      int length = readFully(4).getInt();
+      if (length == 0) {
+        ended = true;
+        return false;
+      }
+      int compressedLength = readFully(4).getInt();
+      if ((length < 0) || (length > blockSize) || (compressedLength < 0)) {
+        throw new StreamCorruptedException("bad compressed block");
+      }
+      if (compressed.length < compressedLength) {
+        compressed = new byte[compressedLength];
+      }
+      ByteBuffer in = ByteBuffer.wrap(compressed, 0, compressedLength);
+      while (in.hasRemaining()) {
+        if (channel.read(in) < 0) {
+          throw new EOFException("snapshot is truncated");
+        }
+      }
+      codec.decompress(compressed, compressedLength, block.array(), length, dictionary);
+      block.position(0).limit(length);
+      return true;
+    }
+
+    private ByteBuffer readFully(int length) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) < 0) {
+          throw new EOFException("snapshot is truncated");
+        }
+      }
+      return buffer.flip();
+    }
+  }
+}
@@ -0,0 +1,686 @@
+package socialmedia;
+
+import socialmedia.internal.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class implements the SocialMediaPlatform so that it can be used by many threads at the same time.
+ *
+ * Posts are created, endorsed, commented, deleted and shown in parallel: accounts and posts are kept in
+ * concurrent maps, IDs come from atomic counters and each post guards its own lists of comments and
+ * endorsements. Operations that change many accounts or posts at once (removeAccount, changeAccountHandle,
+ * erasePlatform, savePlatform, loadPlatform and getPlatformStats) wait for the others to finish and run alone.
+ *
+ * Locks are always taken in the same order: the platform lock first, then the lock of one post or of one
+ * account. Two post locks are only held together while rendering, the post before its comments. The
+ * endorsement rankings and the post counters take no lock, so threads that create, endorse or comment
+ * different posts only wait for each other when they post from the same account.
+ *
+ * The results are the same as SocialMedia when the calls are made one after the other.
+ *
+ * @version 1.0
+ *
+ */
+public class ConcurrentSocialMedia implements SocialMediaPlatform {
+  private final AtomicInteger lastAccountId = new AtomicInteger(); //all accounts are unique
+  private final AtomicInteger lastPostId = new AtomicInteger(); //all posts are unique
+
+  //Where we store all accounts and posts information
+  private final ConcurrentHashMap<String, Account> accountsByHandle = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Integer, Account> accountsById = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<Integer, AbstractPost> postsById = new ConcurrentHashMap<>();
+
+  //read lock -> operations that can run in parallel || write lock -> operations that run alone
+  private final ReentrantReadWriteLock platformLock = new ReentrantReadWriteLock();
+
+  //Endorsement rankings, which threads update without a shared lock
+  private final ConcurrentEndorsementRanking postRanking = new ConcurrentEndorsementRanking();
+  private final ConcurrentEndorsementRanking accountRanking = new ConcurrentEndorsementRanking();
+  //every post ID below it was deleted, so the lowest post ID is looked for from there
+  private final AtomicInteger firstLivePost = new AtomicInteger(1);
+
+  //Live number of posts of each type
+  private final AtomicInteger totalOriginalPosts = new AtomicInteger();
+  private final AtomicInteger totalEndorsementPosts = new AtomicInteger();
+  private final AtomicInteger totalCommentPosts = new AtomicInteger();
+
+  @Override
+  public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+      SocialMedia.checkHandle(handle); //for InvalidHandleException
+      platformLock.readLock().lock();
+      try {
+          //the id is only taken once the handle is reserved, so a refused call does not use one up and the ids
+          //are the same as SocialMedia's for the same accounts
+          boolean[] created = new boolean[1];
+          Account account = accountsByHandle.computeIfAbsent(handle, key -> {
+              created[0] = true;
+              return new Account(lastAccountId.incrementAndGet(), key, description);
+          });
+          if (!created[0]) { //if the account has the same name
+              throw new IllegalHandleException("the handle already exists in the platform");
+          }
+          accountsById.put(account.getId(), account);
+          return account.getId(); //the id of created account
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  @Override
+  public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+      return createAccount(handle, null);
+  }
+
+  /**
+   * This method will delete all post relating to the account being deleted. It will also delete that particular account.
+   * It must be called while holding the write lock, so nothing else changes the platform at the same time.
+   *
+   * @param account Account(handle, description) that you want to delete
+   */
+  private void removeAccountInternal(Account account) {
+      List<AbstractPost> posts = new ArrayList<>(account.getPosts());
+      for (AbstractPost post : posts) {
+          deletePostInternal(post); //posts already removed by an earlier cascade are skipped
+      }
+
+      //remove the account from the system
+      accountsByHandle.remove(account.getHandle());
+      accountsById.remove(account.getId());
+  }
+
+  @Override
+  public void removeAccount(String handle) throws HandleNotRecognisedException {
+      platformLock.writeLock().lock();
+      try {
+          Account account = accountsByHandle.get(handle);
+          if (account == null) {
+              throw new HandleNotRecognisedException("Handle does not match to any account in the system");
+          }
+          removeAccountInternal(account);
+      } finally {
+          platformLock.writeLock().unlock();
+      }
+  }
+
+  @Override
+  public void removeAccount(int id) throws AccountIDNotRecognisedException {
+      platformLock.writeLock().lock();
+      try {
+          Account account = accountsById.get(id);
+          if (account == null) {
+              throw new AccountIDNotRecognisedException("account Id does not match to any account in the system");
+          }
+          removeAccountInternal(account);
+      } finally {
+          platformLock.writeLock().unlock();
+      }
+  }
+
+  @Override
+  public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+      platformLock.readLock().lock();
+      try {
+          Account account = getAccount(handle);
+          synchronized (account) {
+              account.setDescription(description);
+          }
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  @Override
+  public void changeAccountHandle(String oldHandle, String newHandle)
+          throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+      SocialMedia.checkHandle(newHandle); //InvalidHandleException
+      platformLock.writeLock().lock();
+      try {
+          if (accountsByHandle.containsKey(newHandle)) {
+              throw new IllegalHandleException("Handle already exists in the platform");
+          }
+          Account account = accountsByHandle.get(oldHandle);
+          if (account == null) {
+              throw new HandleNotRecognisedException("Old Handle does not match to any account in the system");
+          }
+          account.setHandle(newHandle);
+          accountsByHandle.remove(oldHandle);
+          accountsByHandle.put(newHandle, account);
+      } finally {
+          platformLock.writeLock().unlock();
+      }
+  }
+
+  @Override
+  public int getNumberOfAccounts() {
+      return accountsByHandle.size();
+  }
+
+  @Override
+  public String showAccount(String handle) throws HandleNotRecognisedException {
+      platformLock.readLock().lock();
+      try {
+          Account account = getAccount(handle);
+          StringBuilder sb;
+          List<AbstractPost> posts;
+          synchronized (account) {
+              sb = account.showAccount(new StringBuilder());
+              posts = new ArrayList<>(account.getPosts());
+          }
+
+          int endorseCount = 0;
+          for (AbstractPost post : posts) {
+              endorseCount += post.getEndorsementsCount();
+          }
+
+          return sb.append("Post count: ").append(posts.size()).append("\n")
+                  .append("Endorse count: ").append(endorseCount).append("\n").toString();
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  /**
+   * This method returns the account with that handle
+   *
+   * @param handle account's handle
+   * @return the account
+   * @throws HandleNotRecognisedException if the handle does not match to any account in the system
+   */
+  private Account getAccount(String handle) throws HandleNotRecognisedException {
+      Account account = (handle == null) ? null : accountsByHandle.get(handle);
+      if (account == null) {
+          throw new HandleNotRecognisedException("Handle does not match to any account in the system");
+      }
+      return account;
+  }
+
+  /**
+   * This method returns the post with that ID
+   *
+   * @param id post ID
+   * @return the post i.e Post, Endorsement or Comment
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the system
+   */
+  private AbstractPost getPost(int id) throws PostIDNotRecognisedException {
+      AbstractPost post = postsById.get(id);
+      if (post == null) {
+          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+      }
+      return post;
+  }
+
+  /**
+   * This method tells if the post is still in the system. It is only reliable while holding the post's lock.
+   *
+   * @param post post i.e Post, Endorsement or Comment
+   * @return true if the post has not been deleted
+   */
+  private boolean isLive(AbstractPost post) {
+      return postsById.get(post.getId()) == post;
+  }
+
+  @Override
+  public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+      platformLock.readLock().lock();
+      try {
+          Account account = getAccount(handle);
+          SocialMedia.checkMessage(message); //InvalidPostException
+
+          Post post = new Post(lastPostId.incrementAndGet(), account, message);
+          postsById.put(post.getId(), post);
+          addToAccount(post);
+          totalOriginalPosts.incrementAndGet();
+          return post.getId();
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  @Override
+  public int endorsePost(String handle, int id)
+          throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+      platformLock.readLock().lock();
+      try {
+          Account account = getAccount(handle);
+          AbstractPost post = getPost(id);
+          if (post instanceof Endorsement) {
+              throw new NotActionablePostException("Not an actionable post");
+          }
+
+          Endorsement endorsement;
+          synchronized (post) {
+              if (!isLive(post)) { //deleted by another thread since we looked it up
+                  throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+              }
+              endorsement = new Endorsement(lastPostId.incrementAndGet(), account, post);
+              post.addEndorsement(endorsement);
+              postsById.put(endorsement.getId(), endorsement);
+              //updated under the post's lock so a concurrent delete sees the final count
+              postRanking.adjust(post.getId(), 1);
+              adjustAccountRanking(post, 1);
+          }
+          addToAccount(endorsement);
+          totalEndorsementPosts.incrementAndGet();
+          return endorsement.getId();
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  @Override
+  public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
+          PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+      platformLock.readLock().lock();
+      try {
+          Account account = getAccount(handle);
+          AbstractPost post = getPost(id);
+          if (post instanceof Endorsement) {
+              throw new NotActionablePostException("Not an actionable post");
+          }
+          SocialMedia.checkMessage(message); //InvalidPostException
+
+          Comment comment;
+          synchronized (post) {
+              if (!isLive(post)) { //deleted by another thread since we looked it up
+                  throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+              }
+              comment = new Comment(lastPostId.incrementAndGet(), account, post, message);
+              post.addComment(comment);
+              postsById.put(comment.getId(), comment);
+          }
+          addToAccount(comment);
+          totalCommentPosts.incrementAndGet();
+          return comment.getId();
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  /**
+   * This method delete the post from the platform with the same rules as SocialMedia: its endorsements are
+   * deleted as well and its comments are moved under an empty post.
+   *
+   * Only one thread deletes a post: the one that removes it from postsById. The post's lock is never held
+   * while waiting for the lock of another post, so deletes of a chain of comments cannot deadlock.
+   *
+   * @param post post i.e Post, Endorsement or Comment that you want to delete.
+   * @return false if the post was already deleted by another thread
+   */
+  private boolean deletePostInternal(AbstractPost post) {
+      List<Endorsement> endorsements;
+      synchronized (post) {
+          if (!postsById.remove(post.getId(), post)) {
+              return false;
+          }
+          endorsements = (post.getEndorsements() == null) ? List.of() : new ArrayList<>(post.getEndorsements());
+
+          if ((post instanceof Post) && (post.getCommentsCount() > 0)) {
+              Post emptyPost = new Post(-1, null, "The original content was removed from the system and is no longer available.");
+              for (Comment comment : post.getComments()) {
+                  comment.setSourcePost(emptyPost);
+              }
+          }
+          if ((post instanceof Comment) && (post.getCommentsCount() > 0)) {
+              Comment emptyPost = new Comment(-1, null, post, "The original content was removed from the system and is no longer available.");
+              for (Comment comment : post.getComments()) {
+                  comment.setSourcePost(emptyPost);
+              }
+          }
+      }
+
+      //endorsements cannot be acted on, so they go straight away (unless their own delete got there first)
+      for (Endorsement endorsement : endorsements) {
+          if (postsById.remove(endorsement.getId(), endorsement)) {
+              retire(endorsement);
+          }
+      }
+
+      if (post instanceof AbstractRepost repost) {
+          AbstractPost sourcePost = repost.getSourcePost();
+          if (sourcePost != null) {
+              synchronized (sourcePost) {
+                  if (repost instanceof Endorsement endorsement) {
+                      sourcePost.removeEndorsement(endorsement);
+                      if (isLive(sourcePost)) { //a deleted source already gave its endorsements back
+                          postRanking.adjust(sourcePost.getId(), -1);
+                          adjustAccountRanking(sourcePost, -1);
+                      }
+                  } else {
+                      sourcePost.removeComment((Comment) repost);
+                  }
+              }
+          }
+      }
+
+      retire(post);
+      return true;
+  }
+
+  /**
+   * This method removes a post that is no longer in postsById from its account, the counters and the rankings
+   *
+   * @param post post i.e Post, Endorsement or Comment that has been deleted
+   */
+  private void retire(AbstractPost post) {
+      Account account = post.getAccount();
+      if (account != null) {
+          synchronized (account) {
+              account.removePost(post);
+          }
+      }
+      //the account that made the post loses the endorsements the post received; nothing can endorse it any more
+      adjustAccountRanking(post, -postRanking.remove(post.getId()));
+      //only the thread that deleted the post gets here, so the ID can be skipped for good
+      firstLivePost.compareAndSet(post.getId(), post.getId() + 1);
+      if (post instanceof Post) {
+          totalOriginalPosts.decrementAndGet();
+      } else if (post instanceof Endorsement) {
+          totalEndorsementPosts.decrementAndGet();
+      } else if (post instanceof Comment) {
+          totalCommentPosts.decrementAndGet();
+      }
+  }
+
+  /**
+   * This method adds the post to the posts index of the account that made it
+   *
+   * @param post post i.e Post, Endorsement or Comment being created
+   */
+  private static void addToAccount(AbstractPost post) {
+      Account account = post.getAccount();
+      synchronized (account) {
+          account.addPost(post);
+      }
+  }
+
+  /**
+   * This method updates the endorsements received by the account that made the post.
+   * The count of a post only changes while holding the post's lock; the count of an account can change from
+   * many threads at once, which the ranking allows.
+   *
+   * @param post post that received (or lost) endorsements
+   * @param delta number of endorsements added (positive) or removed (negative)
+   */
+  private void adjustAccountRanking(AbstractPost post, int delta) {
+      Integer accountId = post.getAccountId();
+      if (accountId != null) {
+          accountRanking.adjust(accountId, delta);
+      }
+  }
+
+  @Override
+  public void deletePost(int id) throws PostIDNotRecognisedException {
+      platformLock.readLock().lock();
+      try {
+          if (!deletePostInternal(getPost(id))) { //another thread deleted it first
+              throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+          }
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  @Override
+  public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+      platformLock.readLock().lock();
+      try {
+          return getPost(id).showPostDetails(new StringBuilder(), false).toString();
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  @Override
+  public StringBuilder showPostChildrenDetails(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+      platformLock.readLock().lock();
+      try {
+          return getPost(id).showPostDetails(new StringBuilder(), true);
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  /**
+   * This method shows one page of a thread: at most pageSize posts of the post and its comment chains, in the
+   * format of showPostChildrenDetails(id), and a cursor for the next page. The work done depends on the size
+   * of the page, not on the size of the thread.
+   * 
+   * @param id ID of the post the thread starts from
+   * @param cursor null for the first page || the cursor of the last page
+   * @param pageSize most posts shown on the page (at least 1)
+   * @return the page and the cursor of the next one
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the system
+   * @throws IllegalArgumentException if the cursor was not made for this post
+   */
+  public ThreadPage showPostChildrenDetails(int id, String cursor, int pageSize) throws PostIDNotRecognisedException {
+      platformLock.readLock().lock();
+      try {
+          return SocialMedia.showPage(getPost(id), cursor, pageSize);
+      } finally {
+          platformLock.readLock().unlock();
+      }
+  }
+
+  @Override
+  public int getMostEndorsedPost() {
+      int id = postRanking.first();
+      if (id != 0) {
+          return id;
+      }
+      //no post has endorsements: the lowest post id wins, as in SocialMedia
+      int[] first = firstPosts(1);
+      return (first.length == 0) ? 0 : first[0];
+  }
+
+  /**
+   * This method returns the IDs of the most endorsed posts, ordered like getMostEndorsedPost()
+   *
+   * @param n maximum number of posts to return
+   * @return up to n post IDs, most endorsed first
+   */
+  public int[] getMostEndorsedPosts(int n) {
+      int[] top = postRanking.top(n);
+      if (top.length >= n) {
+          return top;
+      }
+      //the posts without endorsements come after, lowest post id first
+      int[] rest = firstPosts(n);
+      int[] ids = Arrays.copyOf(top, Math.min(n, top.length + rest.length));
+      Set<Integer> ranked = new HashSet<>();
+      for (int id : top) {
+          ranked.add(id);
+      }
+      int i = top.length;
+      for (int j = 0; (j < rest.length) && (i < ids.length); j++) {
+          if (!ranked.contains(rest[j])) {
+              ids[i++] = rest[j];
+          }
+      }
+      return Arrays.copyOf(ids, i);
+  }
+
+  /**
+   * This method returns the lowest IDs of the posts in the system.
+   * An ID taken by a post that is still being created is skipped, as the post is not in the system yet.
+   *
+   * @param n maximum number of posts to return
+   * @return up to n post IDs, lowest first
+   */
+  private int[] firstPosts(int n) {
+      int[] ids = new int[Math.max(0, n)];
+      int i = 0;
+      int last = lastPostId.get();
+      for (int id = firstLivePost.get(); (id <= last) && (i < ids.length); id++) {
+          if (postsById.containsKey(id)) {
+              ids[i++] = id;
+          }
+      }
+      return Arrays.copyOf(ids, i);
+  }
+
+  @Override
+  public int getMostEndorsedAccount() {
+      return accountRanking.first();
+  }
+
+  /**
+   * This method returns the IDs of the most endorsed accounts, ordered like getMostEndorsedAccount()
+   *
+   * @param n maximum number of accounts to return
+   * @return up to n account IDs, most endorsed first
+   */
+  public int[] getMostEndorsedAccounts(int n) {
+      return accountRanking.top(n);
+  }
+
+  @Override
+  public void erasePlatform() {
+      platformLock.writeLock().lock();
+      try {
+          eraseInternal();
+      } finally {
+          platformLock.writeLock().unlock();
+      }
+  }
+
+  private void eraseInternal() {
+      lastAccountId.set(0);
+      accountsByHandle.clear();
+      accountsById.clear();
+
+      lastPostId.set(0);
+      postsById.clear();
+      firstLivePost.set(1);
+
+      postRanking.clear();
+      accountRanking.clear();
+      totalOriginalPosts.set(0);
+      totalEndorsementPosts.set(0);
+      totalCommentPosts.set(0);
+  }
+
+  //serialization, same format as SocialMedia
+  @Override
+  public void savePlatform(String filename) throws IOException {
+      platformLock.writeLock().lock();
+      try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
+          //in id order like SocialMedia, so loading puts the comments of a post back in the order they were made
+          List<Account> accountList = new ArrayList<>(accountsById.values());
+          accountList.sort(Comparator.comparingInt(Account::getId));
+          List<AbstractPost> postList = new ArrayList<>(postsById.values());
+          postList.sort(Comparator.comparingInt(AbstractPost::getId));
+          out.writeInt(lastAccountId.get());
+          out.writeObject(accountList);
+          out.writeInt(lastPostId.get());
+          out.writeObject(postList);
+      } finally {
+          platformLock.writeLock().unlock();
+      }
+  }
+
+  //deserialization, same format as SocialMedia
+  @SuppressWarnings("unchecked")
+  @Override
+  public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+      int lastAccId;
+      List<Account> accountList;
+      int lastPId;
+      List<AbstractPost> postList;
+      try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
+          lastAccId = in.readInt();
+          accountList = (List<Account>) in.readObject();
+          lastPId = in.readInt();
+          postList = (List<AbstractPost>) in.readObject();
+      }
+      //in id order, so the comments and endorsements of each post are linked in the order they were made
+      postList.sort(Comparator.comparingInt(AbstractPost::getId));
+
+      platformLock.writeLock().lock();
+      try {
+          eraseInternal();
+          lastAccountId.set(lastAccId);
+          lastPostId.set(lastPId);
+
+          for (Account account : accountList) {
+              accountsById.put(account.getId(), account);
+              accountsByHandle.put(account.getHandle(), account);
+          }
+
+          Map<Integer, List<Comment>> commentMap = new HashMap<>();
+          Map<Integer, List<Endorsement>> endorsementMap = new HashMap<>();
+          for (AbstractPost post : postList) {
+              postsById.put(post.getId(), post);
+              if (post instanceof Comment comment) {
+                  commentMap.computeIfAbsent(comment.getSourcePostId(), k -> new ArrayList<>()).add(comment);
+              }
+              if (post instanceof Endorsement endorsement) {
+                  endorsementMap.computeIfAbsent(endorsement.getSourcePostId(), k -> new ArrayList<>()).add(endorsement);
+              }
+          }
+
+          for (AbstractPost post : postList) {
+              Account account = accountsById.get(post.getAccountId());
+              post.setAccount(account);
+              if (account != null) {
+                  account.addPost(post);
+              }
+              post.setComments(commentMap.get(post.getId()));
+              post.setEndorsements(endorsementMap.get(post.getId()));
+              if (post instanceof AbstractRepost repost) {
+                  Integer sourcePostId = repost.getSourcePostId();
+                  repost.setSourcePost((sourcePostId == null) ? null : postsById.get(sourcePostId));
+              }
+          }
+
+          for (AbstractPost post : postList) {
+              postRanking.adjust(post.getId(), post.getEndorsementsCount());
+              adjustAccountRanking(post, post.getEndorsementsCount());
+              if (post instanceof Post) {
+                  totalOriginalPosts.incrementAndGet();
+              } else if (post instanceof Endorsement) {
+                  totalEndorsementPosts.incrementAndGet();
+              } else if (post instanceof Comment) {
+                  totalCommentPosts.incrementAndGet();
+              }
+          }
+      } finally {
+          platformLock.writeLock().unlock();
+      }
+  }
+
+  @Override
+  public int getTotalOriginalPosts() {
+      return totalOriginalPosts.get();
+  }
+
+  @Override
+  public int getTotalEndorsmentPosts() {
+      return totalEndorsementPosts.get();
+  }
+
+  @Override
+  public int getTotalCommentPosts() {
+      return totalCommentPosts.get();
+  }
+
+  /**
+   * This method returns the number of accounts and of each type of post in one snapshot.
+   * It waits for the operations in progress to finish, so the counts are consistent with each other.
+   *
+   * @return accounts, original posts, endorsements and comments present in the platform
+   */
+  public PlatformStats getPlatformStats() {
+      platformLock.writeLock().lock();
+      try {
+          return new PlatformStats(accountsByHandle.size(), totalOriginalPosts.get(),
+                  totalEndorsementPosts.get(), totalCommentPosts.get());
+      } finally {
+          platformLock.writeLock().unlock();
+      }
+  }
+}
@@ -0,0 +1,104 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link SnapshotCodec} based on java.util.zip's Deflater, the codec of zip
+ * and gzip. The dictionary is given to the Deflater as its preset dictionary;
+ * only its last 32KB can be used.
+ *
+ * @version 1.0
+ *
+ */
+public class DeflateCodec implements SnapshotCodec {
+
+	private final int level;
+
+	/**
+	 * Constructs a codec with the default compression level.
+	 */
+	public DeflateCodec() {
+		this(Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Constructs a codec with the given compression level.
+	 *
+	 * @param level 1 (fastest) to 9 (smallest), or -1 for the default level.
+	 */
+	public DeflateCodec(int level) {
+		if ((level < -1) || (level > 9)) {
+			throw new IllegalArgumentException("level must be -1 or between 1 and 9");
+		}
+		this.level = level;
+	}
+
+	/**
+	 * @return "deflate", whatever the level: the level is not needed to decompress.
+	 */
+	@Override
+	public String getName() {
+		return "deflate";
+	}
+
+	@Override
+	public byte[] compress(byte[] block, int length, byte[] dictionary) {
+		Deflater deflater = new Deflater(level);
+		try {
+			if (dictionary.length > 0) {
+				deflater.setDictionary(dictionary);
+			}
+			deflater.setInput(block, 0, length);
+			deflater.finish();
+			byte[] out = new byte[Math.max(64, length / 2)];
+			int n = 0;
+			while (!deflater.finished()) {
+				if (n == out.length) {
+					out = Arrays.copyOf(out, out.length * 2);
+				}
+				n += deflater.deflate(out, n, out.length - n);
+			}
+			return Arrays.copyOf(out, n);
+		} finally {
+			deflater.end();
+		}
+	}
+
+	@Override
+	public void decompress(byte[] compressed, int length, byte[] block, int blockLength, byte[] dictionary)
+			throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed, 0, length);
+			byte[] extra = new byte[1]; //the end of the stream may come after the block is full
+			int n = 0;
+			while (!inflater.finished()) {
+				int read = (n < blockLength) ? inflater.inflate(block, n, blockLength - n) : inflater.inflate(extra);
+				if ((read == 0) && inflater.needsDictionary()) {
+					inflater.setDictionary(dictionary);
+				} else if ((read == 0) && inflater.needsInput()) {
+					break;
+				}
+				n += read;
+			}
+			if ((n != blockLength) || !inflater.finished()) {
+				throw new StreamCorruptedException("compressed block is corrupted");
+			}
+		} catch (DataFormatException e) {
+			throw new StreamCorruptedException("compressed block is corrupted: " + e.getMessage());
+		} finally {
+			inflater.end();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "deflate(" + level + ")";
+	}
+
+}
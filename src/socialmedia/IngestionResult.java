@@ -0,0 +1,85 @@
+package socialmedia;
+
+import java.util.Collections;
+import java.util.SortedMap;
+
+/**
+ * The outcome of {@link SocialMedia#ingest(java.util.List)}: the ID given to
+ * the post of each event, and the exception of each event that was not
+ * applied.
+ *
+ * @version 1.0
+ *
+ */
+public final class IngestionResult {
+
+	private final int[] ids;
+	private final SortedMap<Integer, Exception> errors;
+
+	/**
+	 * Constructs a result.
+	 *
+	 * @param ids    ID of the post of each event, 0 for the events not applied.
+	 * @param errors exception of each event not applied, by event index.
+	 */
+	IngestionResult(int[] ids, SortedMap<Integer, Exception> errors) {
+		this.ids = ids;
+		this.errors = Collections.unmodifiableSortedMap(errors);
+	}
+
+	/**
+	 * @return the number of events of the batch.
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @param event index of an event of the batch.
+	 * @return the ID of the post made by the event, or 0 if it was not applied.
+	 */
+	public int getId(int event) {
+		return ids[event];
+	}
+
+	/**
+	 * @return the ID of the post made by each event, in the order of the batch
+	 *         (0 for the events not applied).
+	 */
+	public int[] getIds() {
+		return ids.clone();
+	}
+
+	/**
+	 * @param event index of an event of the batch.
+	 * @return true if the event made a post.
+	 */
+	public boolean isApplied(int event) {
+		return ids[event] != 0;
+	}
+
+	/**
+	 * @return the exception of each event that was not applied, by event
+	 *         index: a HandleNotRecognisedException,
+	 *         PostIDNotRecognisedException, NotActionablePostException or
+	 *         InvalidPostException, as the single calls would have thrown.
+	 */
+	public SortedMap<Integer, Exception> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * @return the number of events applied.
+	 */
+	public int getAppliedCount() {
+		return ids.length - errors.size();
+	}
+
+	@Override
+	public String toString() {
+		return getAppliedCount() + " of " + ids.length + " events applied"
+				+ (errors.isEmpty() ? "" : ", first error at event " + errors.firstKey() + ": "
+						+ errors.get(errors.firstKey()).getMessage());
+	}
+
+}
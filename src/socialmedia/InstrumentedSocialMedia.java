@@ -0,0 +1,554 @@
+package socialmedia;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * This class wraps a SocialMediaPlatform and measures every call made to it: the number of calls of each method,
+ * the number of calls that threw, by exception type (HandleNotRecognisedException, PostIDNotRecognisedException,
+ * ...), and a histogram of their latencies.
+ *
+ * The counters are read with getStats, or with getAndResetStats to start a new period, and written for metric
+ * scrapers by writeMetrics, in the Prometheus text format. Calls can come from many threads at once when the
+ * wrapped platform allows it (ConcurrentSocialMedia, ShardedSocialMedia).
+ *
+ * Measuring can be turned off with setEnabled(false); a call then costs one more volatile read than a call
+ * to the wrapped platform.
+ *
+ * @version 1.0
+ *
+ */
+public class InstrumentedSocialMedia implements SocialMediaPlatform {
+  //percentiles written by writeMetrics
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  private final SocialMediaPlatform platform;
+  private volatile boolean enabled = true;
+
+  //counters of each method, in the order of SocialMediaPlatform
+  private final LinkedHashMap<String, OperationMetrics> metrics = new LinkedHashMap<>();
+  private final OperationMetrics createAccountWithDescription = metrics("createAccount(handle, description)");
+  private final OperationMetrics createAccount = metrics("createAccount(handle)");
+  private final OperationMetrics removeAccountById = metrics("removeAccount(id)");
+  private final OperationMetrics removeAccount = metrics("removeAccount(handle)");
+  private final OperationMetrics changeAccountHandle = metrics("changeAccountHandle");
+  private final OperationMetrics updateAccountDescription = metrics("updateAccountDescription");
+  private final OperationMetrics showAccount = metrics("showAccount");
+  private final OperationMetrics createPost = metrics("createPost");
+  private final OperationMetrics endorsePost = metrics("endorsePost");
+  private final OperationMetrics commentPost = metrics("commentPost");
+  private final OperationMetrics deletePost = metrics("deletePost");
+  private final OperationMetrics showIndividualPost = metrics("showIndividualPost");
+  private final OperationMetrics showPostChildrenDetails = metrics("showPostChildrenDetails");
+  private final OperationMetrics getNumberOfAccounts = metrics("getNumberOfAccounts");
+  private final OperationMetrics getTotalOriginalPosts = metrics("getTotalOriginalPosts");
+  private final OperationMetrics getTotalEndorsmentPosts = metrics("getTotalEndorsmentPosts");
+  private final OperationMetrics getTotalCommentPosts = metrics("getTotalCommentPosts");
+  private final OperationMetrics getMostEndorsedPost = metrics("getMostEndorsedPost");
+  private final OperationMetrics getMostEndorsedAccount = metrics("getMostEndorsedAccount");
+  private final OperationMetrics erasePlatform = metrics("erasePlatform");
+  private final OperationMetrics savePlatform = metrics("savePlatform");
+  private final OperationMetrics loadPlatform = metrics("loadPlatform");
+
+  /**
+   * The constructor; InstrumentedSocialMedia() measures a new, empty SocialMedia
+   */
+  public InstrumentedSocialMedia() {
+    this(new SocialMedia());
+  }
+
+  /**
+   * The constructor; InstrumentedSocialMedia(platform) measures the calls made to platform through this object
+   *
+   * @param platform platform to measure
+   */
+  public InstrumentedSocialMedia(SocialMediaPlatform platform) {
+    this.platform = Objects.requireNonNull(platform);
+  }
+
+  private OperationMetrics metrics(String method) {
+    OperationMetrics operation = new OperationMetrics(method);
+    metrics.put(method, operation);
+    return operation;
+  }
+
+  /**
+   * This method returns the platform whose calls are measured
+   * @return the wrapped platform
+   */
+  public SocialMediaPlatform getPlatform() {
+    return platform;
+  }
+
+  /**
+   * This method turns measuring on or off; the counters keep their values while it is off
+   * @param enabled true -> calls are measured || false -> calls go straight to the wrapped platform
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * This method returns whether calls are measured
+   * @return true if calls are measured
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * This method returns the counters of every method
+   * @return counters by method, in the order of SocialMediaPlatform
+   */
+  public Map<String, OperationStats> getStats() {
+    return snapshot(false);
+  }
+
+  /**
+   * This method returns the counters of every method and starts them again from 0.
+   * A call that ends at the same time is counted either in the returned counters or in the next ones.
+   * @return counters by method since the last reset, in the order of SocialMediaPlatform
+   */
+  public Map<String, OperationStats> getAndResetStats() {
+    return snapshot(true);
+  }
+
+  /**
+   * This method starts every counter again from 0
+   */
+  public void reset() {
+    snapshot(true);
+  }
+
+  private Map<String, OperationStats> snapshot(boolean reset) {
+    Map<String, OperationStats> stats = new LinkedHashMap<>();
+    for (Map.Entry<String, OperationMetrics> entry : metrics.entrySet()) {
+      stats.put(entry.getKey(), entry.getValue().snapshot(reset));
+    }
+    return Collections.unmodifiableMap(stats);
+  }
+
+  /**
+   * This method writes the current counters in the Prometheus text format (see the static writeMetrics)
+   * @param out where the counters are written
+   * @throws IOException if out cannot be written
+   */
+  public void writeMetrics(Appendable out) throws IOException {
+    writeMetrics(getStats(), out);
+  }
+
+  /**
+   * This method writes counters in the Prometheus text format: the counters socialmedia_calls_total and
+   * socialmedia_errors_total, the summary socialmedia_latency_seconds (quantiles 0.5, 0.9, 0.99 and 0.999,
+   * sum and count) and the gauge socialmedia_latency_max_seconds, each labelled with the method and, for the
+   * errors, the simple name of the exception
+   * @param stats counters by method, from getStats or getAndResetStats
+   * @param out where the counters are written
+   * @throws IOException if out cannot be written
+   */
+  public static void writeMetrics(Map<String, OperationStats> stats, Appendable out) throws IOException {
+    out.append("# HELP socialmedia_calls_total Calls of each method of the platform.\n");
+    out.append("# TYPE socialmedia_calls_total counter\n");
+    for (OperationStats operation : stats.values()) {
+      out.append("socialmedia_calls_total{method=\"").append(operation.getMethod()).append("\"} ")
+          .append(Long.toString(operation.getCalls())).append('\n');
+    }
+    out.append("# HELP socialmedia_errors_total Calls of each method of the platform that threw, by exception.\n");
+    out.append("# TYPE socialmedia_errors_total counter\n");
+    for (OperationStats operation : stats.values()) {
+      for (Map.Entry<String, Long> error : operation.getErrorsByType().entrySet()) {
+        out.append("socialmedia_errors_total{method=\"").append(operation.getMethod()).append("\",exception=\"")
+            .append(error.getKey()).append("\"} ").append(Long.toString(error.getValue())).append('\n');
+      }
+    }
+    out.append("# HELP socialmedia_latency_seconds Latency of the calls of each method of the platform.\n");
+    out.append("# TYPE socialmedia_latency_seconds summary\n");
+    for (OperationStats operation : stats.values()) {
+      String method = operation.getMethod();
+      for (double quantile : QUANTILES) {
+        String value = (operation.getCalls() == 0) ? "NaN"
+            : seconds(operation.getLatencyAtPercentile(quantile * 100));
+        out.append("socialmedia_latency_seconds{method=\"").append(method).append("\",quantile=\"")
+            .append(Double.toString(quantile)).append("\"} ").append(value).append('\n');
+      }
+      out.append("socialmedia_latency_seconds_sum{method=\"").append(method).append("\"} ")
+          .append(seconds(operation.getTotalLatency())).append('\n');
+      out.append("socialmedia_latency_seconds_count{method=\"").append(method).append("\"} ")
+          .append(Long.toString(operation.getCalls())).append('\n');
+    }
+    out.append("# HELP socialmedia_latency_max_seconds Latency of the slowest call of each method of the platform.\n");
+    out.append("# TYPE socialmedia_latency_max_seconds gauge\n");
+    for (OperationStats operation : stats.values()) {
+      out.append("socialmedia_latency_max_seconds{method=\"").append(operation.getMethod()).append("\"} ")
+          .append(seconds(operation.getMaxLatency())).append('\n');
+    }
+  }
+
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+
+  @Override
+  public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+    if (!enabled) {
+      return platform.createAccount(handle, description);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.createAccount(handle, description);
+    } catch (Exception e) {
+      createAccountWithDescription.error(e);
+      throw e;
+    } finally {
+      createAccountWithDescription.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+    if (!enabled) {
+      return platform.createAccount(handle);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.createAccount(handle);
+    } catch (Exception e) {
+      createAccount.error(e);
+      throw e;
+    } finally {
+      createAccount.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void removeAccount(int id) throws AccountIDNotRecognisedException {
+    if (!enabled) {
+      platform.removeAccount(id);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.removeAccount(id);
+    } catch (Exception e) {
+      removeAccountById.error(e);
+      throw e;
+    } finally {
+      removeAccountById.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void removeAccount(String handle) throws HandleNotRecognisedException {
+    if (!enabled) {
+      platform.removeAccount(handle);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.removeAccount(handle);
+    } catch (Exception e) {
+      removeAccount.error(e);
+      throw e;
+    } finally {
+      removeAccount.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void changeAccountHandle(String oldHandle, String newHandle)
+      throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+    if (!enabled) {
+      platform.changeAccountHandle(oldHandle, newHandle);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.changeAccountHandle(oldHandle, newHandle);
+    } catch (Exception e) {
+      changeAccountHandle.error(e);
+      throw e;
+    } finally {
+      changeAccountHandle.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+    if (!enabled) {
+      platform.updateAccountDescription(handle, description);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.updateAccountDescription(handle, description);
+    } catch (Exception e) {
+      updateAccountDescription.error(e);
+      throw e;
+    } finally {
+      updateAccountDescription.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public String showAccount(String handle) throws HandleNotRecognisedException {
+    if (!enabled) {
+      return platform.showAccount(handle);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.showAccount(handle);
+    } catch (Exception e) {
+      showAccount.error(e);
+      throw e;
+    } finally {
+      showAccount.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+    if (!enabled) {
+      return platform.createPost(handle, message);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.createPost(handle, message);
+    } catch (Exception e) {
+      createPost.error(e);
+      throw e;
+    } finally {
+      createPost.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int endorsePost(String handle, int id)
+      throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+    if (!enabled) {
+      return platform.endorsePost(handle, id);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.endorsePost(handle, id);
+    } catch (Exception e) {
+      endorsePost.error(e);
+      throw e;
+    } finally {
+      endorsePost.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int commentPost(String handle, int id, String message)
+      throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException,
+      InvalidPostException {
+    if (!enabled) {
+      return platform.commentPost(handle, id, message);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.commentPost(handle, id, message);
+    } catch (Exception e) {
+      commentPost.error(e);
+      throw e;
+    } finally {
+      commentPost.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void deletePost(int id) throws PostIDNotRecognisedException {
+    if (!enabled) {
+      platform.deletePost(id);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.deletePost(id);
+    } catch (Exception e) {
+      deletePost.error(e);
+      throw e;
+    } finally {
+      deletePost.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+    if (!enabled) {
+      return platform.showIndividualPost(id);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.showIndividualPost(id);
+    } catch (Exception e) {
+      showIndividualPost.error(e);
+      throw e;
+    } finally {
+      showIndividualPost.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public StringBuilder showPostChildrenDetails(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+    if (!enabled) {
+      return platform.showPostChildrenDetails(id);
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.showPostChildrenDetails(id);
+    } catch (Exception e) {
+      showPostChildrenDetails.error(e);
+      throw e;
+    } finally {
+      showPostChildrenDetails.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int getNumberOfAccounts() {
+    if (!enabled) {
+      return platform.getNumberOfAccounts();
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.getNumberOfAccounts();
+    } catch (RuntimeException e) {
+      getNumberOfAccounts.error(e);
+      throw e;
+    } finally {
+      getNumberOfAccounts.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int getTotalOriginalPosts() {
+    if (!enabled) {
+      return platform.getTotalOriginalPosts();
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.getTotalOriginalPosts();
+    } catch (RuntimeException e) {
+      getTotalOriginalPosts.error(e);
+      throw e;
+    } finally {
+      getTotalOriginalPosts.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int getTotalEndorsmentPosts() {
+    if (!enabled) {
+      return platform.getTotalEndorsmentPosts();
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.getTotalEndorsmentPosts();
+    } catch (RuntimeException e) {
+      getTotalEndorsmentPosts.error(e);
+      throw e;
+    } finally {
+      getTotalEndorsmentPosts.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int getTotalCommentPosts() {
+    if (!enabled) {
+      return platform.getTotalCommentPosts();
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.getTotalCommentPosts();
+    } catch (RuntimeException e) {
+      getTotalCommentPosts.error(e);
+      throw e;
+    } finally {
+      getTotalCommentPosts.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int getMostEndorsedPost() {
+    if (!enabled) {
+      return platform.getMostEndorsedPost();
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.getMostEndorsedPost();
+    } catch (RuntimeException e) {
+      getMostEndorsedPost.error(e);
+      throw e;
+    } finally {
+      getMostEndorsedPost.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public int getMostEndorsedAccount() {
+    if (!enabled) {
+      return platform.getMostEndorsedAccount();
+    }
+    long start = System.nanoTime();
+    try {
+      return platform.getMostEndorsedAccount();
+    } catch (RuntimeException e) {
+      getMostEndorsedAccount.error(e);
+      throw e;
+    } finally {
+      getMostEndorsedAccount.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void erasePlatform() {
+    if (!enabled) {
+      platform.erasePlatform();
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.erasePlatform();
+    } catch (RuntimeException e) {
+      erasePlatform.error(e);
+      throw e;
+    } finally {
+      erasePlatform.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void savePlatform(String filename) throws IOException {
+    if (!enabled) {
+      platform.savePlatform(filename);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.savePlatform(filename);
+    } catch (Exception e) {
+      savePlatform.error(e);
+      throw e;
+    } finally {
+      savePlatform.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+    if (!enabled) {
+      platform.loadPlatform(filename);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      platform.loadPlatform(filename);
+    } catch (Exception e) {
+      loadPlatform.error(e);
+      throw e;
+    } finally {
+      loadPlatform.record(System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package socialmedia;
+
+import socialmedia.internal.LatencyHistogram;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of one method of an InstrumentedSocialMedia: errors by exception type and latencies (one per call).
+ * Every counter can be updated from many threads at once.
+ *
+ * @version 1.0
+ *
+ */
+final class OperationMetrics implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final String method;
+  private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+  private final LatencyHistogram latencies = new LatencyHistogram();
+
+  /**
+   * The constructor; OperationMetrics(method)
+   *
+   * @param method name of the method of the platform
+   */
+  OperationMetrics(String method) {
+    this.method = method;
+  }
+
+  /**
+   * This method records a call, whether it returned or threw
+   * @param nanos time the call took
+   */
+  void record(long nanos) {
+    latencies.record(nanos);
+  }
+
+  /**
+   * This method records the exception thrown by a call
+   * @param error exception thrown
+   */
+  void error(Throwable error) {
+    errors.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+  }
+
+  /**
+   * This method returns the counters of the method
+   * @param reset true -> the counters start again from 0 (each call is counted in one snapshot only)
+   * @return snapshot of the counters
+   */
+  OperationStats snapshot(boolean reset) {
+    Map<String, Long> errorCounts = new TreeMap<>();
+    for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+      long count = reset ? entry.getValue().sumThenReset() : entry.getValue().sum();
+      if (count > 0) {
+        errorCounts.put(entry.getKey(), count);
+      }
+    }
+    LatencyHistogram histogram = reset ? latencies.copyAndReset() : latencies.copy();
+    return new OperationStats(method, histogram.getCount(), errorCounts, histogram);
+  }
+}
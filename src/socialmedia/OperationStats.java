@@ -0,0 +1,109 @@
+package socialmedia;
+
+import socialmedia.internal.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The calls, errors and latencies of one method of an
+ * {@link InstrumentedSocialMedia}, taken at a single point in time.
+ *
+ * @version 1.0
+ *
+ */
+public final class OperationStats {
+
+	private final String method;
+	private final long calls;
+	private final Map<String, Long> errors;
+	private final LatencyHistogram latencies;
+
+	/**
+	 * Constructs a snapshot.
+	 *
+	 * @param method    name of the method.
+	 * @param calls     number of calls.
+	 * @param errors    number of calls that threw, by simple name of the
+	 *                  exception.
+	 * @param latencies latencies of the calls, which the snapshot keeps.
+	 */
+	OperationStats(String method, long calls, Map<String, Long> errors, LatencyHistogram latencies) {
+		this.method = method;
+		this.calls = calls;
+		this.errors = Collections.unmodifiableMap(errors);
+		this.latencies = latencies;
+	}
+
+	/**
+	 * @return the name of the method, as in SocialMediaPlatform.
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * @return the number of calls, including the ones that threw.
+	 */
+	public long getCalls() {
+		return calls;
+	}
+
+	/**
+	 * @return the number of calls that threw an exception.
+	 */
+	public long getErrors() {
+		long total = 0;
+		for (long count : errors.values()) {
+			total += count;
+		}
+		return total;
+	}
+
+	/**
+	 * @return the number of calls that threw, by simple name of the exception
+	 *         (for example "HandleNotRecognisedException").
+	 */
+	public Map<String, Long> getErrorsByType() {
+		return errors;
+	}
+
+	/**
+	 * @return the mean latency of the calls in nanoseconds, 0 if there was no
+	 *         call.
+	 */
+	public double getMeanLatency() {
+		return latencies.getMean();
+	}
+
+	/**
+	 * @return the total time spent in the calls in nanoseconds.
+	 */
+	public long getTotalLatency() {
+		return latencies.getSum();
+	}
+
+	/**
+	 * @return the latency of the slowest call in nanoseconds, 0 if there was no
+	 *         call.
+	 */
+	public long getMaxLatency() {
+		return latencies.getMax();
+	}
+
+	/**
+	 * @param percentile share of the calls, from 0 to 100.
+	 * @return the latency in nanoseconds below which that share of the calls
+	 *         fall, within about 3%; 0 if there was no call.
+	 */
+	public long getLatencyAtPercentile(double percentile) {
+		return latencies.getValueAtPercentile(percentile);
+	}
+
+	@Override
+	public String toString() {
+		return method + ": calls=" + calls + ", errors=" + errors + ", p50=" + getLatencyAtPercentile(50)
+				+ "ns, p99=" + getLatencyAtPercentile(99) + "ns, max=" + getMaxLatency() + "ns";
+	}
+
+}
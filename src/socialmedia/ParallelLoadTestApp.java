@@ -0,0 +1,112 @@
+package socialmedia;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * A short program checking that loadPlatform gives the same platform when it links the posts in parallel as
+ * when it links them on the calling thread. Run it with assertions enabled (java -ea).
+ *
+ * A random platform is built with posts, comments, endorsements, deleted posts (whose comments are left
+ * without a source), removed accounts and renamed accounts, then saved, loaded both ways and compared.
+ *
+ * @version 1.0
+ */
+public class ParallelLoadTestApp {
+	private static final int ACCOUNTS = 50;
+	private static final int OPERATIONS = 20000;
+
+	/**
+	 * Test method.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) throws Exception {
+		SocialMedia platform = new SocialMedia();
+		int lastPost = build(platform, new Random(9));
+		File file = File.createTempFile("parallel-load", ".ser");
+		file.deleteOnExit();
+		platform.savePlatform(file.getPath());
+
+		SocialMedia sequential = new SocialMedia();
+		sequential.loadPlatform(file.getPath(), false);
+		SocialMedia parallel = new SocialMedia();
+		parallel.loadPlatform(file.getPath(), true);
+
+		String expected = dump(platform, lastPost);
+		assert dump(sequential, lastPost).equals(expected) : "sequential load does not match the saved platform";
+		assert dump(parallel, lastPost).equals(expected) : "parallel load does not match the sequential load";
+
+		//the loaded posts must be linked to their accounts, sources and children, not only shown the same
+		int last = Math.max(build(sequential, new Random(10)), build(parallel, new Random(10)));
+		assert dump(parallel, last).equals(dump(sequential, last)) : "platforms loaded both ways change differently";
+		System.out.println("parallel and sequential loads match");
+	}
+
+	/**
+	 * Makes random calls on a platform.
+	 *
+	 * @return the highest post id made
+	 */
+	private static int build(SocialMedia platform, Random random) {
+		int lastPost = 0;
+		for (int i = 0; i < ACCOUNTS; i++) {
+			try {
+				platform.createAccount("user" + i, "account " + i);
+			} catch (IllegalHandleException | InvalidHandleException e) {
+				//already made by an earlier call
+			}
+		}
+		for (int i = 0; i < OPERATIONS; i++) {
+			String handle = "user" + random.nextInt(ACCOUNTS);
+			int target = 1 + random.nextInt(Math.max(1, lastPost));
+			int kind = random.nextInt(100);
+			try {
+				if ((kind < 30) || (lastPost == 0)) {
+					lastPost = Math.max(lastPost, platform.createPost(handle, "post " + i));
+				} else if (kind < 60) {
+					lastPost = Math.max(lastPost, platform.commentPost(handle, target, "comment " + i));
+				} else if (kind < 85) {
+					lastPost = Math.max(lastPost, platform.endorsePost(handle, target));
+				} else if (kind < 97) {
+					platform.deletePost(target);
+				} else if (kind < 98) {
+					platform.removeAccount(handle);
+				} else if (kind < 99) {
+					platform.changeAccountHandle(handle, "user" + random.nextInt(ACCOUNTS));
+				} else {
+					platform.createAccount(handle);
+				}
+			} catch (Exception e) {
+				//a call the platform refuses, as it does on both sides
+			}
+		}
+		return lastPost;
+	}
+
+	/**
+	 * Shows every account and post of a platform.
+	 */
+	private static String dump(SocialMedia platform, int lastPost) throws Exception {
+		StringBuilder sb = new StringBuilder();
+		sb.append(platform.getNumberOfAccounts()).append(' ').append(platform.getTotalOriginalPosts()).append(' ')
+				.append(platform.getTotalCommentPosts()).append(' ').append(platform.getTotalEndorsmentPosts())
+				.append(' ').append(platform.getMostEndorsedPost()).append(' ')
+				.append(platform.getMostEndorsedAccount()).append('\n');
+		for (int i = 0; i < ACCOUNTS; i++) {
+			try {
+				sb.append(platform.showAccount("user" + i));
+			} catch (HandleNotRecognisedException e) {
+				sb.append("no user").append(i).append('\n');
+			}
+		}
+		for (int id = 1; id <= lastPost; id++) {
+			try {
+				sb.append(platform.showPostChildrenDetails(id));
+			} catch (PostIDNotRecognisedException e) {
+				sb.append("no post ").append(id).append('\n');
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,73 @@
+package socialmedia;
+
+/**
+ * A snapshot of the number of accounts and posts present in a platform, taken
+ * at a single point in time.
+ * 
+ * @version 1.0
+ *
+ */
+public final class PlatformStats {
+
+	private final int accounts;
+	private final int originalPosts;
+	private final int endorsementPosts;
+	private final int commentPosts;
+
+	/**
+	 * Constructs a snapshot with the given totals.
+	 * 
+	 * @param accounts         number of accounts.
+	 * @param originalPosts    number of original posts.
+	 * @param endorsementPosts number of endorsement posts.
+	 * @param commentPosts     number of comment posts.
+	 */
+	public PlatformStats(int accounts, int originalPosts, int endorsementPosts, int commentPosts) {
+		this.accounts = accounts;
+		this.originalPosts = originalPosts;
+		this.endorsementPosts = endorsementPosts;
+		this.commentPosts = commentPosts;
+	}
+
+	/**
+	 * @return the number of accounts, as {@link SocialMediaPlatform#getNumberOfAccounts()}.
+	 */
+	public int getNumberOfAccounts() {
+		return accounts;
+	}
+
+	/**
+	 * @return the number of original posts, as {@link SocialMediaPlatform#getTotalOriginalPosts()}.
+	 */
+	public int getTotalOriginalPosts() {
+		return originalPosts;
+	}
+
+	/**
+	 * @return the number of endorsements, as {@link SocialMediaPlatform#getTotalEndorsmentPosts()}.
+	 */
+	public int getTotalEndorsmentPosts() {
+		return endorsementPosts;
+	}
+
+	/**
+	 * @return the number of comments, as {@link SocialMediaPlatform#getTotalCommentPosts()}.
+	 */
+	public int getTotalCommentPosts() {
+		return commentPosts;
+	}
+
+	/**
+	 * @return the number of posts of every type.
+	 */
+	public int getTotalPosts() {
+		return originalPosts + endorsementPosts + commentPosts;
+	}
+
+	@Override
+	public String toString() {
+		return "accounts=" + accounts + ", originalPosts=" + originalPosts + ", endorsementPosts="
+				+ endorsementPosts + ", commentPosts=" + commentPosts;
+	}
+
+}
@@ -0,0 +1,152 @@
+package socialmedia;
+
+/**
+ * One event of a batch given to {@link SocialMedia#ingest(java.util.List)}: an
+ * original post, a comment or an endorsement, as made by createPost,
+ * commentPost and endorsePost.
+ *
+ * The post a comment or an endorsement is about is either a post already in
+ * the platform, given by its ID, or a post created by an earlier event of the
+ * same batch, given by the index of that event.
+ *
+ * @version 1.0
+ *
+ */
+public final class PostEvent {
+
+	/**
+	 * The kinds of event.
+	 */
+	public enum Type {
+		/** An original post, as made by createPost. */
+		POST,
+		/** A comment, as made by commentPost. */
+		COMMENT,
+		/** An endorsement, as made by endorsePost. */
+		ENDORSE
+	}
+
+	private final Type type;
+	private final String handle;
+	private final String message;
+	private final int sourceId;
+	private final int sourceEvent;
+
+	private PostEvent(Type type, String handle, String message, int sourceId, int sourceEvent) {
+		this.type = type;
+		this.handle = handle;
+		this.message = message;
+		this.sourceId = sourceId;
+		this.sourceEvent = sourceEvent;
+	}
+
+	/**
+	 * Makes an original post event.
+	 *
+	 * @param handle  handle of the account making the post.
+	 * @param message message of the post.
+	 * @return the event.
+	 */
+	public static PostEvent post(String handle, String message) {
+		return new PostEvent(Type.POST, handle, message, 0, -1);
+	}
+
+	/**
+	 * Makes a comment event on a post already in the platform.
+	 *
+	 * @param handle  handle of the account making the comment.
+	 * @param id      ID of the post commented.
+	 * @param message message of the comment.
+	 * @return the event.
+	 */
+	public static PostEvent comment(String handle, int id, String message) {
+		return new PostEvent(Type.COMMENT, handle, message, id, -1);
+	}
+
+	/**
+	 * Makes a comment event on the post created by an earlier event of the same
+	 * batch.
+	 *
+	 * @param handle  handle of the account making the comment.
+	 * @param event   index of the event that created the post commented.
+	 * @param message message of the comment.
+	 * @return the event.
+	 */
+	public static PostEvent commentOnEvent(String handle, int event, String message) {
+		return new PostEvent(Type.COMMENT, handle, message, 0, checkEvent(event));
+	}
+
+	/**
+	 * Makes an endorsement event of a post already in the platform.
+	 *
+	 * @param handle handle of the account making the endorsement.
+	 * @param id     ID of the post endorsed.
+	 * @return the event.
+	 */
+	public static PostEvent endorse(String handle, int id) {
+		return new PostEvent(Type.ENDORSE, handle, null, id, -1);
+	}
+
+	/**
+	 * Makes an endorsement event of the post created by an earlier event of the
+	 * same batch.
+	 *
+	 * @param handle handle of the account making the endorsement.
+	 * @param event  index of the event that created the post endorsed.
+	 * @return the event.
+	 */
+	public static PostEvent endorseEvent(String handle, int event) {
+		return new PostEvent(Type.ENDORSE, handle, null, 0, checkEvent(event));
+	}
+
+	private static int checkEvent(int event) {
+		if (event < 0) {
+			throw new IllegalArgumentException("event index must not be negative");
+		}
+		return event;
+	}
+
+	/**
+	 * @return the kind of event.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the handle of the account making the post.
+	 */
+	public String getHandle() {
+		return handle;
+	}
+
+	/**
+	 * @return the message of the post or comment, null for an endorsement.
+	 */
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * @return the ID of the post commented or endorsed, 0 if it is given by
+	 *         an event index or for an original post.
+	 */
+	public int getSourceId() {
+		return sourceId;
+	}
+
+	/**
+	 * @return the index of the event that created the post commented or
+	 *         endorsed, -1 if it is given by its ID or for an original post.
+	 */
+	public int getSourceEvent() {
+		return sourceEvent;
+	}
+
+	@Override
+	public String toString() {
+		String source = (type == Type.POST) ? "" : (sourceEvent >= 0) ? " event " + sourceEvent : " post " + sourceId;
+		return type + " " + handle + source + ((message == null) ? "" : ": " + message);
+	}
+
+}
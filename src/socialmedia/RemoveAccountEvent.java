@@ -0,0 +1,43 @@
+package socialmedia;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder event of a removeAccount call of a SocialMedia: the account, and the posts the
+ * removal deleted or changed on the way.
+ *
+ * @version 1.0
+ *
+ */
+@Name("socialmedia.RemoveAccount")
+@Label("Remove Account")
+@Category("Social Media")
+@Description("An account removed with every post it made")
+final class RemoveAccountEvent extends jdk.jfr.Event {
+  @Label("Account ID")
+  int accountId;
+
+  @Label("Handle")
+  String handle;
+
+  @Label("Posts Made")
+  @Description("Posts, comments and endorsements made by the account")
+  int postsMade;
+
+  @Label("Original Posts Deleted")
+  int originalPostsDeleted;
+
+  @Label("Comments Deleted")
+  int commentsDeleted;
+
+  @Label("Endorsements Deleted")
+  @Description("Endorsements made by the account, and endorsements of its posts made by other accounts")
+  int endorsementsDeleted;
+
+  @Label("Comments Detached")
+  @Description("Comments whose source post was deleted and replaced by an empty post")
+  int commentsDetached;
+}
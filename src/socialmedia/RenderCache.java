@@ -0,0 +1,164 @@
+package socialmedia;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The cache of the text shown by showIndividualPost and showPostChildrenDetails, keyed by post id and mode.
+ *
+ * The cache is bounded by the number of characters it holds and drops the least recently used texts first.
+ * A text longer than a sixteenth of the cache is not kept, so one huge thread cannot empty the cache.
+ * The platform removes the texts of a post when the post changes (see SocialMedia.invalidate).
+ *
+ * @version 1.0
+ *
+ */
+final class RenderCache {
+  //access order -> the first entry is the least recently used
+  private final LinkedHashMap<Long, String> texts = new LinkedHashMap<>(16, 0.75f, true);
+  private long capacity;
+  private long chars;
+  private int threads; //texts shown with their comment chains
+
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long invalidations;
+
+  /**
+   * The constructor; RenderCache(capacity)
+   *
+   * @param capacity most characters held by the cache (0 -> nothing is cached)
+   */
+  RenderCache(long capacity) {
+    setCapacity(capacity);
+  }
+
+  /**
+   * This method returns the cached text of a post
+   * @param id post ID
+   * @param withChildren true -> the post with its comment chains || false -> the individual post
+   * @return the text, or null if it is not cached
+   */
+  String get(int id, boolean withChildren) {
+    String text = texts.get(key(id, withChildren));
+    if (text == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return text;
+  }
+
+  /**
+   * This method caches the text of a post
+   * @param id post ID
+   * @param withChildren true -> the post with its comment chains || false -> the individual post
+   * @param text text shown for the post
+   */
+  void put(int id, boolean withChildren, String text) {
+    if (text.length() > capacity / 16) {
+      return;
+    }
+    String previous = texts.put(key(id, withChildren), text);
+    if (previous != null) {
+      chars -= previous.length();
+    } else if (withChildren) {
+      threads++;
+    }
+    chars += text.length();
+    evict();
+  }
+
+  /**
+   * This method removes both texts of a post
+   * @param id post ID
+   */
+  void invalidate(int id) {
+    remove(key(id, false));
+    remove(key(id, true));
+  }
+
+  /**
+   * This method removes the text of a post shown with its comment chains
+   * @param id post ID
+   */
+  void invalidateThread(int id) {
+    remove(key(id, true));
+  }
+
+  /**
+   * This method returns whether a text shown with comment chains is cached
+   * @return true if a change to a comment can make a cached text wrong, besides its own
+   */
+  boolean hasThreads() {
+    return threads > 0;
+  }
+
+  /**
+   * This method returns whether nothing is cached
+   * @return true if the cache is empty
+   */
+  boolean isEmpty() {
+    return texts.isEmpty();
+  }
+
+  /**
+   * This method removes every text
+   */
+  void clear() {
+    texts.clear();
+    chars = 0;
+    threads = 0;
+  }
+
+  /**
+   * This method changes the number of characters the cache can hold, dropping texts if needed
+   * @param capacity most characters held by the cache (0 -> nothing is cached)
+   */
+  void setCapacity(long capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must not be negative");
+    }
+    this.capacity = capacity;
+    evict();
+  }
+
+  /**
+   * This method returns the counters of the cache
+   * @return hits, misses, evictions, invalidations and size of the cache
+   */
+  RenderCacheStats getStats() {
+    return new RenderCacheStats(hits, misses, evictions, invalidations, texts.size(), chars, capacity);
+  }
+
+  private void remove(long key) {
+    String text = texts.remove(key);
+    if (text != null) {
+      forget(key, text);
+      invalidations++;
+    }
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Long, String>> eldest = texts.entrySet().iterator();
+    while ((chars > capacity) && eldest.hasNext()) {
+      Map.Entry<Long, String> entry = eldest.next();
+      eldest.remove();
+      forget(entry.getKey(), entry.getValue());
+      evictions++;
+    }
+  }
+
+  private void forget(long key, String text) {
+    chars -= text.length();
+    if ((key & 1) != 0) {
+      threads--;
+    }
+  }
+
+  private static long key(int id, boolean withChildren) {
+    return ((long) id << 1) | (withChildren ? 1 : 0);
+  }
+}
@@ -0,0 +1,104 @@
+package socialmedia;
+
+/**
+ * The counters of the cache of rendered posts of a SocialMedia, taken at a single point in time.
+ *
+ * @version 1.0
+ *
+ */
+public final class RenderCacheStats {
+
+	private final long hits;
+	private final long misses;
+	private final long evictions;
+	private final long invalidations;
+	private final int entries;
+	private final long chars;
+	private final long capacity;
+
+	/**
+	 * Constructs a snapshot with the given counters.
+	 *
+	 * @param hits          number of posts shown from the cache.
+	 * @param misses        number of posts rendered because they were not cached.
+	 * @param evictions     number of texts dropped to make room.
+	 * @param invalidations number of texts dropped because their post changed.
+	 * @param entries       number of texts in the cache.
+	 * @param chars         number of characters in the cache.
+	 * @param capacity      most characters the cache can hold.
+	 */
+	public RenderCacheStats(long hits, long misses, long evictions, long invalidations, int entries, long chars,
+			long capacity) {
+		this.hits = hits;
+		this.misses = misses;
+		this.evictions = evictions;
+		this.invalidations = invalidations;
+		this.entries = entries;
+		this.chars = chars;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * @return the number of posts shown from the cache.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of posts rendered because they were not cached.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the share of the posts shown from the cache (0 if no post was shown).
+	 */
+	public double getHitRate() {
+		long requests = hits + misses;
+		return (requests == 0) ? 0 : (double) hits / requests;
+	}
+
+	/**
+	 * @return the number of texts dropped to make room for newer ones.
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the number of texts dropped because their post changed.
+	 */
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * @return the number of texts in the cache.
+	 */
+	public int getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return the number of characters in the cache.
+	 */
+	public long getChars() {
+		return chars;
+	}
+
+	/**
+	 * @return the most characters the cache can hold.
+	 */
+	public long getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", invalidations="
+				+ invalidations + ", entries=" + entries + ", chars=" + chars + ", capacity=" + capacity;
+	}
+
+}
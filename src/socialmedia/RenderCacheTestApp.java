@@ -0,0 +1,93 @@
+package socialmedia;
+
+import java.util.Random;
+
+/**
+ * A short program checking that the cache of rendered posts never changes what a SocialMedia shows. The same
+ * random calls are made on a platform with the default cache, one with a cache small enough to drop texts all
+ * the time, and one without a cache, and every result must be the same. Run it with assertions enabled
+ * (java -ea).
+ *
+ * The calls show the same few posts again and again, so most of them are answered from the cache, and change
+ * the platform in every way that changes a post: endorsements, comments, deleted posts, removed accounts and
+ * renamed accounts.
+ *
+ * @version 1.0
+ */
+public class RenderCacheTestApp {
+	private static final int OPERATIONS = 300000;
+	private static final int ACCOUNTS = 40;
+	private static final int HOT_POSTS = 64; //the posts shown are among the last ones made
+
+	/**
+	 * Test method.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) {
+		SocialMedia cached = new SocialMedia();
+		SocialMedia small = new SocialMedia();
+		small.setRenderCacheCapacity(4096);
+		SocialMedia uncached = new SocialMedia();
+		uncached.setRenderCacheCapacity(0);
+		SocialMedia[] platforms = {cached, small, uncached};
+
+		Random random = new Random(18);
+		int lastPost = 0;
+		for (int step = 0; step < OPERATIONS; step++) {
+			String handle = "user" + random.nextInt(ACCOUNTS);
+			int post = Math.max(1, lastPost - random.nextInt(HOT_POSTS));
+			int kind = random.nextInt(100);
+			String[] results = new String[platforms.length];
+			for (int i = 0; i < platforms.length; i++) {
+				results[i] = call(platforms[i], kind, handle, post, step);
+			}
+			assert results[1].equals(results[0]) && results[2].equals(results[0])
+					: "step " + step + " differs: " + results[0] + " / " + results[1] + " / " + results[2];
+			if (results[0].matches("\\d+")) {
+				lastPost = Math.max(lastPost, Integer.parseInt(results[0]));
+			}
+		}
+
+		assert cached.getRenderCacheStats().getHits() > OPERATIONS / 10 : "the cache was hardly used";
+		assert small.getRenderCacheStats().getEvictions() > 0 : "the small cache never dropped a text";
+		assert uncached.getRenderCacheStats().getHits() == 0 : "the disabled cache was used";
+		System.out.println("cached and uncached platforms show the same: " + cached.getRenderCacheStats());
+	}
+
+	/**
+	 * Makes one call on a platform.
+	 *
+	 * @return what the call returned, or the exception it threw
+	 */
+	private static String call(SocialMedia platform, int kind, String handle, int post, int step) {
+		try {
+			if (kind < 30) {
+				return platform.showIndividualPost(post);
+			} else if (kind < 50) {
+				return platform.showPostChildrenDetails(post).toString();
+			} else if (kind < 55) {
+				return handle + ": " + platform.showAccount(handle);
+			} else if (kind < 58) {
+				return Integer.toString(platform.createAccount(handle));
+			} else if (kind < 68) {
+				return Integer.toString(platform.createPost(handle, "post " + step));
+			} else if (kind < 80) {
+				return Integer.toString(platform.commentPost(handle, post, "comment " + step));
+			} else if (kind < 92) {
+				return Integer.toString(platform.endorsePost(handle, post));
+			} else if (kind < 97) {
+				platform.deletePost(post);
+			} else if (kind < 98) {
+				platform.removeAccount(handle);
+			} else if (kind < 99) {
+				platform.changeAccountHandle(handle, "user" + ((Integer.parseInt(handle.substring(4)) + 1) % ACCOUNTS));
+			} else {
+				platform.updateAccountDescription(handle, "description " + step);
+			}
+			return "done";
+		} catch (Exception e) {
+			return e.getClass().getSimpleName() + ": " + e.getMessage();
+		}
+	}
+}
@@ -0,0 +1,659 @@
+package socialmedia;
+
+import socialmedia.internal.Account;
+import socialmedia.internal.ConcurrentEndorsementRanking;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class implements the SocialMediaPlatform on top of several SocialMedia shards that run side by side
+ * in the same JVM, one thread per shard.
+ *
+ * Accounts are partitioned: an account lives on its home shard (account id modulo the number of shards),
+ * which holds its description, and the facade maps each handle to its id. An original post goes to the home
+ * shard of the account that made it, and comments and endorsements go to the shard of the post they reply to,
+ * so a whole thread, and every delete cascade, stays on one shard. Post ids are allocated so that post id
+ * modulo the number of shards is the shard that holds the post.
+ *
+ * A comment or an endorsement is made on the shard of its post, so that shard needs the account that made it:
+ * the first time an account comments or endorses a post of another shard, that shard gets a copy of the
+ * account (same id and handle, no description). Creating an account and changing its description only touch
+ * its home shard, and run in parallel with the posts. Changing a handle and removing an account go to the
+ * shards that have the account, and run alone, as the cascade of a removal can reach any of them.
+ *
+ * Each shard passes the changes of the endorsements received by an account on to one ranking shared by the
+ * shards, so the most endorsed account is read from it. The totals and the most endorsed post ask every shard
+ * in parallel and merge the answers.
+ *
+ * @version 1.0
+ *
+ */
+public class ShardedSocialMedia implements SocialMediaPlatform, AutoCloseable {
+  private final SocialMedia[] shards;
+  private final transient ExecutorService executor;
+
+  //handle -> account id, to find the shard of an account without asking the shards
+  private final ConcurrentHashMap<String, Integer> accountIds = new ConcurrentHashMap<>();
+  private final AtomicInteger lastAccountId = new AtomicInteger(); //all accounts are unique
+
+  //endorsements received by each account, over every shard
+  private final ConcurrentEndorsementRanking accountRanking = new ConcurrentEndorsementRanking();
+
+  //read lock -> calls on one shard (each shard is used by one thread at a time)
+  //write lock -> handle changes, account removals and calls on the whole platform
+  private final ReentrantReadWriteLock accountLock = new ReentrantReadWriteLock();
+
+  /**
+   * The constructor; ShardedSocialMedia() creates an empty platform with one shard per available processor
+   */
+  public ShardedSocialMedia() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * The constructor; ShardedSocialMedia(shardCount) creates an empty platform split into shardCount shards
+   *
+   * @param shardCount number of SocialMedia shards
+   */
+  public ShardedSocialMedia(int shardCount) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("shardCount must be at least 1");
+    }
+    shards = new SocialMedia[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new SocialMedia(i, shardCount);
+      shards[i].shareAccountRanking(accountRanking);
+    }
+    executor = Executors.newFixedThreadPool(shardCount, runnable -> {
+      Thread thread = new Thread(runnable, "social-media-shard");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * This method returns the number of shards of the platform
+   * @return number of shards
+   */
+  public int getShardCount() {
+    return shards.length;
+  }
+
+  /**
+   * A call made on one shard, while holding that shard's lock
+   */
+  private interface ShardCall<T> {
+    T call(SocialMedia shard) throws Exception;
+  }
+
+  /**
+   * This method runs the call on a shard, one thread per shard at a time
+   */
+  private static <T> T onShard(SocialMedia shard, ShardCall<T> call) throws Exception {
+    synchronized (shard) {
+      return call.call(shard);
+    }
+  }
+
+  /**
+   * This method runs the call on every shard in parallel and returns the answers in shard order.
+   * A shard that fails is a bug (the answers of the shards must agree), so it is rethrown unchecked.
+   */
+  private <T> List<T> onAllShards(ShardCall<T> call) {
+    List<Future<T>> futures = new ArrayList<>(shards.length);
+    for (SocialMedia shard : shards) {
+      futures.add(executor.submit(() -> onShard(shard, call)));
+    }
+    List<T> answers = new ArrayList<>(shards.length);
+    try {
+      for (Future<T> future : futures) {
+        answers.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for the shards", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("shard failed", e.getCause());
+    }
+    return answers;
+  }
+
+  /**
+   * This method runs an account change on every shard that has the account, in parallel.
+   * The caller must hold the write lock and have checked the change.
+   */
+  private void onShardsOf(int accountId, ShardCall<Void> call) {
+    onAllShards(shard -> (shard.findAccount(accountId) == null) ? null : call.call(shard));
+  }
+
+  /**
+   * This method returns the shard that holds a post (or would hold it)
+   */
+  private SocialMedia shardOfPost(int id) {
+    return shards[Math.floorMod(id, shards.length)];
+  }
+
+  /**
+   * This method returns the home shard of an account, which holds its description and its original posts
+   */
+  private SocialMedia shardOfAccount(int id) {
+    return shards[Math.floorMod(id, shards.length)];
+  }
+
+  /**
+   * This method returns the ID of the account with that handle
+   * @throws HandleNotRecognisedException if the handle is not in the system
+   */
+  private int accountId(String handle) throws HandleNotRecognisedException {
+    Integer id = (handle == null) ? null : accountIds.get(handle);
+    if (id == null) {
+      throw new HandleNotRecognisedException("Handle does not match to any account in the system");
+    }
+    return id;
+  }
+
+  /**
+   * This method gives a shard a copy of an account, if the shard has the post the account replies to and not
+   * the account yet. It must be called on the shard, under the read lock.
+   *
+   * @throws PostIDNotRecognisedException if the shard does not have the post
+   */
+  private static void copyAccount(SocialMedia shard, int accountId, String handle, int postId)
+      throws PostIDNotRecognisedException {
+    if (shard.getPost(postId) == null) {
+      throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+    }
+    if (shard.findAccount(accountId) == null) {
+      shard.addAccount(accountId, handle, null);
+    }
+  }
+
+  /**
+   * Rethrows the checked exception thrown by a shard as the type the caller declares
+   */
+  private static <E extends Exception> void rethrow(Exception e, Class<E> type) throws E {
+    if (type.isInstance(e)) {
+      throw type.cast(e);
+    }
+  }
+
+  private static RuntimeException unexpected(Exception e) {
+    if (e instanceof RuntimeException runtime) {
+      return runtime;
+    }
+    if (e instanceof InterruptedException) {
+      Thread.currentThread().interrupt();
+    }
+    return new IllegalStateException(e);
+  }
+
+  @Override
+  public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
+    SocialMedia.checkHandle(handle); //for InvalidHandleException
+    accountLock.readLock().lock();
+    try {
+      //the id is only taken once the handle is reserved, and the account is on its shard before the handle can
+      //be used
+      boolean[] created = new boolean[1];
+      int id = accountIds.computeIfAbsent(handle, key -> {
+        int accountId = lastAccountId.incrementAndGet();
+        SocialMedia shard = shardOfAccount(accountId);
+        synchronized (shard) {
+          shard.addAccount(accountId, handle, description);
+        }
+        created[0] = true;
+        return accountId;
+      });
+      if (!created[0]) { //if the account has the same name
+        throw new IllegalHandleException("the handle already exists in the platform");
+      }
+      return id;
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int createAccount(String handle) throws IllegalHandleException, InvalidHandleException {
+    return createAccount(handle, null);
+  }
+
+  @Override
+  public void removeAccount(int id) throws AccountIDNotRecognisedException {
+    accountLock.writeLock().lock();
+    try {
+      Account account = onShard(shardOfAccount(id), shard -> shard.findAccount(id));
+      if (account == null) {
+        throw new AccountIDNotRecognisedException("account Id does not match to any account in the system");
+      }
+      removeAccountInternal(id, account.getHandle());
+    } catch (Exception e) {
+      rethrow(e, AccountIDNotRecognisedException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void removeAccount(String handle) throws HandleNotRecognisedException {
+    accountLock.writeLock().lock();
+    try {
+      removeAccountInternal(accountId(handle), handle);
+    } finally {
+      accountLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * This method removes an account from every shard that has it, each shard deleting the posts of the account
+   * it holds. The caller must hold the write lock.
+   */
+  private void removeAccountInternal(int id, String handle) {
+    onShardsOf(id, shard -> {
+      shard.removeAccount(id);
+      return null;
+    });
+    accountIds.remove(handle);
+  }
+
+  @Override
+  public void changeAccountHandle(String oldHandle, String newHandle)
+      throws HandleNotRecognisedException, IllegalHandleException, InvalidHandleException {
+    SocialMedia.checkHandle(newHandle); //InvalidHandleException
+    accountLock.writeLock().lock();
+    try {
+      //checked in the same order as SocialMedia, over the handles of every shard
+      if (accountIds.containsKey(newHandle)) {
+        throw new IllegalHandleException("Handle already exists in the platform");
+      }
+      Integer id = (oldHandle == null) ? null : accountIds.get(oldHandle);
+      if (id == null) {
+        throw new HandleNotRecognisedException("Old Handle does not match to any account in the system");
+      }
+      onShardsOf(id, shard -> {
+        shard.changeAccountHandle(oldHandle, newHandle);
+        return null;
+      });
+      accountIds.put(newHandle, accountIds.remove(oldHandle));
+    } finally {
+      accountLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void updateAccountDescription(String handle, String description) throws HandleNotRecognisedException {
+    accountLock.readLock().lock();
+    try {
+      //only the home shard keeps the description
+      int id = accountId(handle);
+      onShard(shardOfAccount(id), shard -> {
+        shard.updateAccountDescription(handle, description);
+        return null;
+      });
+    } catch (Exception e) {
+      rethrow(e, HandleNotRecognisedException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int getNumberOfAccounts() {
+    return accountIds.size();
+  }
+
+  @Override
+  public String showAccount(String handle) throws HandleNotRecognisedException {
+    accountLock.readLock().lock();
+    try {
+      int id = accountId(handle);
+      //posts of the account on each shard that has it
+      int postCount = 0;
+      for (int count : onAllShards(shard -> {
+        Account account = shard.findAccount(id);
+        return (account == null) ? 0 : account.getPostsCount();
+      })) {
+        postCount += count;
+      }
+      StringBuilder sb = onShard(shardOfAccount(id), shard -> shard.findAccount(id).showAccount(new StringBuilder()));
+      return sb.append("Post count: ").append(postCount).append("\n")
+          .append("Endorse count: ").append(accountRanking.getCount(id)).append("\n").toString();
+    } catch (Exception e) {
+      rethrow(e, HandleNotRecognisedException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
+    accountLock.readLock().lock();
+    try {
+      //original posts live on the home shard of the account that made them
+      return onShard(shardOfAccount(accountId(handle)), shard -> shard.createPost(handle, message));
+    } catch (Exception e) {
+      rethrow(e, HandleNotRecognisedException.class);
+      rethrow(e, InvalidPostException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int endorsePost(String handle, int id)
+      throws HandleNotRecognisedException, PostIDNotRecognisedException, NotActionablePostException {
+    accountLock.readLock().lock();
+    try {
+      //the endorsement lives with the post it endorses
+      int accountId = accountId(handle);
+      return onShard(shardOfPost(id), shard -> {
+        copyAccount(shard, accountId, handle, id);
+        return shard.endorsePost(handle, id);
+      });
+    } catch (Exception e) {
+      rethrow(e, HandleNotRecognisedException.class);
+      rethrow(e, PostIDNotRecognisedException.class);
+      rethrow(e, NotActionablePostException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int commentPost(String handle, int id, String message) throws HandleNotRecognisedException,
+      PostIDNotRecognisedException, NotActionablePostException, InvalidPostException {
+    accountLock.readLock().lock();
+    try {
+      //the comment lives with the post it comments, so a thread never spans two shards
+      int accountId = accountId(handle);
+      return onShard(shardOfPost(id), shard -> {
+        copyAccount(shard, accountId, handle, id);
+        return shard.commentPost(handle, id, message);
+      });
+    } catch (Exception e) {
+      rethrow(e, HandleNotRecognisedException.class);
+      rethrow(e, PostIDNotRecognisedException.class);
+      rethrow(e, NotActionablePostException.class);
+      rethrow(e, InvalidPostException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void deletePost(int id) throws PostIDNotRecognisedException {
+    accountLock.readLock().lock();
+    try {
+      onShard(shardOfPost(id), shard -> {
+        shard.deletePost(id);
+        return null;
+      });
+    } catch (Exception e) {
+      rethrow(e, PostIDNotRecognisedException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public String showIndividualPost(int id) throws PostIDNotRecognisedException {
+    accountLock.readLock().lock();
+    try {
+      return onShard(shardOfPost(id), shard -> shard.showIndividualPost(id));
+    } catch (Exception e) {
+      rethrow(e, PostIDNotRecognisedException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public StringBuilder showPostChildrenDetails(int id) throws PostIDNotRecognisedException, NotActionablePostException {
+    accountLock.readLock().lock();
+    try {
+      return onShard(shardOfPost(id), shard -> shard.showPostChildrenDetails(id));
+    } catch (Exception e) {
+      rethrow(e, PostIDNotRecognisedException.class);
+      rethrow(e, NotActionablePostException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method shows one page of a thread: at most pageSize posts of the post and its comment chains, in the
+   * format of showPostChildrenDetails(id), and a cursor for the next page. The work done depends on the size
+   * of the page, not on the size of the thread.
+   * 
+   * @param id ID of the post the thread starts from
+   * @param cursor null for the first page || the cursor of the last page
+   * @param pageSize most posts shown on the page (at least 1)
+   * @return the page and the cursor of the next one
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the system
+   * @throws IllegalArgumentException if the cursor was not made for this post
+   */
+  public ThreadPage showPostChildrenDetails(int id, String cursor, int pageSize) throws PostIDNotRecognisedException {
+    accountLock.readLock().lock();
+    try {
+      return onShard(shardOfPost(id), shard -> shard.showPostChildrenDetails(id, cursor, pageSize));
+    } catch (Exception e) {
+      rethrow(e, PostIDNotRecognisedException.class);
+      throw unexpected(e);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int getMostEndorsedPost() {
+    accountLock.readLock().lock();
+    try {
+      //most endorsed post of each shard as {endorsements, id}
+      List<int[]> tops = onAllShards(shard -> {
+        int id = shard.getMostEndorsedPost();
+        return new int[] { shard.getPostEndorsements(id), id };
+      });
+      int mostPost = 0;
+      int maxEndr = -1;
+      for (int[] top : tops) {
+        //same tie breaking as SocialMedia: most endorsements, then lowest id
+        if ((top[1] != 0) && ((top[0] > maxEndr) || ((top[0] == maxEndr) && (top[1] < mostPost)))) {
+          mostPost = top[1];
+          maxEndr = top[0];
+        }
+      }
+      return mostPost;
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public int getMostEndorsedAccount() {
+    accountLock.readLock().lock();
+    try {
+      //ranking only keeps accounts that received endorsements; ties go to the lowest account id
+      return accountRanking.first();
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void erasePlatform() {
+    accountLock.writeLock().lock();
+    try {
+      onAllShards(shard -> {
+        shard.erasePlatform();
+        return null;
+      });
+      accountIds.clear();
+      lastAccountId.set(0);
+      accountRanking.clear();
+    } finally {
+      accountLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * This method returns the file used by one shard when the platform is saved to filename
+   */
+  private static String shardFile(String filename, int shard) {
+    return filename + "." + shard;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Each shard is saved to its own file, filename.0, filename.1, ... in parallel.
+   */
+  @Override
+  public void savePlatform(String filename) throws IOException {
+    accountLock.writeLock().lock();
+    try {
+      List<Future<Void>> futures = new ArrayList<>(shards.length);
+      for (int i = 0; i < shards.length; i++) {
+        SocialMedia shard = shards[i];
+        String file = shardFile(filename, i);
+        futures.add(executor.submit(() -> {
+          onShard(shard, s -> {
+            s.savePlatform(file);
+            return null;
+          });
+          return null;
+        }));
+      }
+      waitForFiles(futures);
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw unexpected(e);
+    } finally {
+      accountLock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The platform must have the same number of shards as the one that saved the files. The files are loaded
+   * into new shards, which replace the old ones only once every file was read: if one file cannot be loaded,
+   * the platform is left as it was.
+   */
+  @Override
+  public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+    accountLock.writeLock().lock();
+    try {
+      SocialMedia[] loaded = new SocialMedia[shards.length];
+      List<Future<Void>> futures = new ArrayList<>(shards.length);
+      for (int i = 0; i < shards.length; i++) {
+        SocialMedia shard = new SocialMedia(i, shards.length);
+        String file = shardFile(filename, i);
+        loaded[i] = shard;
+        futures.add(executor.submit(() -> {
+          shard.loadPlatform(file);
+          return null;
+        }));
+      }
+      waitForFiles(futures);
+      //every shard loaded: swap them all in (the write lock keeps every other call out)
+      System.arraycopy(loaded, 0, shards, 0, shards.length);
+      accountIds.clear();
+      accountRanking.clear();
+      int lastId = 0;
+      for (SocialMedia shard : shards) {
+        for (Account account : shard.getAccounts()) {
+          if (shardOfAccount(account.getId()) == shard) { //the other shards have copies
+            accountIds.put(account.getHandle(), account.getId());
+          }
+        }
+        shard.getAccountEndorsements().forEach(accountRanking::adjust);
+        shard.shareAccountRanking(accountRanking);
+        lastId = Math.max(lastId, shard.getLastAccountId());
+      }
+      lastAccountId.set(lastId);
+    } catch (IOException | ClassNotFoundException e) {
+      throw e;
+    } catch (Exception e) {
+      throw unexpected(e);
+    } finally {
+      accountLock.writeLock().unlock();
+    }
+  }
+
+  private static void waitForFiles(List<Future<Void>> futures) throws Exception {
+    Exception failure = null;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = (e.getCause() instanceof Exception cause) ? cause : e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public int getTotalOriginalPosts() {
+    return getPlatformStats().getTotalOriginalPosts();
+  }
+
+  @Override
+  public int getTotalEndorsmentPosts() {
+    return getPlatformStats().getTotalEndorsmentPosts();
+  }
+
+  @Override
+  public int getTotalCommentPosts() {
+    return getPlatformStats().getTotalCommentPosts();
+  }
+
+  /**
+   * This method returns the number of accounts and of each type of post, added up over the shards in parallel.
+   * Post operations keep running while it reads: the counts of each shard are consistent with each other, and
+   * no account is created or removed during the call.
+   *
+   * @return accounts, original posts, endorsements and comments present in the platform
+   */
+  public PlatformStats getPlatformStats() {
+    accountLock.readLock().lock();
+    try {
+      int originalPosts = 0;
+      int endorsementPosts = 0;
+      int commentPosts = 0;
+      for (PlatformStats stats : onAllShards(SocialMedia::getPlatformStats)) {
+        originalPosts += stats.getTotalOriginalPosts();
+        endorsementPosts += stats.getTotalEndorsmentPosts();
+        commentPosts += stats.getTotalCommentPosts();
+      }
+      return new PlatformStats(accountIds.size(), originalPosts, endorsementPosts, commentPosts);
+    } finally {
+      accountLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method stops the threads of the shards. The platform cannot be used afterwards.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+}
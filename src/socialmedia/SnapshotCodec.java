@@ -0,0 +1,70 @@
+package socialmedia;
+
+import java.io.IOException;
+
+/**
+ * A block compression codec for platform snapshots, see
+ * {@link SocialMedia#savePlatform(String, SnapshotFormat, SnapshotCodec)}.
+ * <p>
+ * A compressed snapshot is cut into blocks that are compressed independently.
+ * Every block is compressed with the same preset dictionary, made of the
+ * handles of the platform, which is stored once at the start of the file. The
+ * name of the codec is stored too, and loadPlatform finds the codec again with
+ * {@link #forName(String)}; codecs other than {@link DeflateCodec} must be
+ * {@link #register(SnapshotCodec) registered} before loading.
+ * <p>
+ * A codec may be used by several threads at the same time.
+ *
+ * @version 1.0
+ *
+ */
+public interface SnapshotCodec {
+
+	/**
+	 * @return the name the codec is stored under in a snapshot.
+	 */
+	String getName();
+
+	/**
+	 * Compresses a block.
+	 *
+	 * @param block      bytes to compress.
+	 * @param length     number of bytes of the block.
+	 * @param dictionary preset dictionary (may be empty).
+	 * @return the compressed block.
+	 */
+	byte[] compress(byte[] block, int length, byte[] dictionary);
+
+	/**
+	 * Decompresses a block compressed by {@link #compress(byte[], int, byte[])}.
+	 *
+	 * @param compressed  compressed bytes.
+	 * @param length      number of compressed bytes.
+	 * @param block       where the block is decompressed to.
+	 * @param blockLength number of bytes of the block before compression.
+	 * @param dictionary  preset dictionary the block was compressed with.
+	 * @throws IOException if the compressed bytes are corrupted.
+	 */
+	void decompress(byte[] compressed, int length, byte[] block, int blockLength, byte[] dictionary)
+			throws IOException;
+
+	/**
+	 * Makes a codec known to loadPlatform.
+	 *
+	 * @param codec codec to register, replacing any codec of the same name.
+	 */
+	static void register(SnapshotCodec codec) {
+		CompressedSnapshot.register(codec);
+	}
+
+	/**
+	 * Finds a registered codec.
+	 *
+	 * @param name name of the codec.
+	 * @return the codec, or null if no codec of that name is registered.
+	 */
+	static SnapshotCodec forName(String name) {
+		return CompressedSnapshot.forName(name);
+	}
+
+}
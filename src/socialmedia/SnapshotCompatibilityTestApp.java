@@ -0,0 +1,71 @@
+package socialmedia;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A short program checking that a snapshot saved by the first release of SocialMedia still loads, and that
+ * what it loads can be saved and loaded again in every format. Run it with assertions enabled (java -ea),
+ * from the root of the repository or with the testdata directory as argument.
+ *
+ * testdata/baseline-platform.ser was saved by the first release. It has the accounts alice, bob and carol, the
+ * posts 1 and 2, the chain of comments 3, 4 and 5 on post 1, the endorsements 6 and 7 of post 1 and 8 of
+ * comment 3, and the comment 10 whose post 9 was deleted. testdata/baseline-platform.txt is what the first
+ * release showed of that platform, in the order of show below.
+ *
+ * @version 1.0
+ */
+public class SnapshotCompatibilityTestApp {
+
+	/**
+	 * Test method.
+	 *
+	 * @param args directory of the snapshot (default src/socialmedia/testdata)
+	 */
+	public static void main(String[] args) throws Exception {
+		Path directory = Path.of((args.length > 0) ? args[0] : "src/socialmedia/testdata");
+		String expected = Files.readString(directory.resolve("baseline-platform.txt"), StandardCharsets.UTF_8);
+
+		SocialMedia platform = new SocialMedia();
+		platform.loadPlatform(directory.resolve("baseline-platform.ser").toString());
+		assert show(platform).equals(expected) : "baseline snapshot does not load as it was saved";
+
+		File file = File.createTempFile("snapshot-compatibility", ".snapshot");
+		file.deleteOnExit();
+		for (SnapshotFormat format : SnapshotFormat.values()) {
+			platform.savePlatform(file.getPath(), format);
+			SocialMedia loaded = new SocialMedia();
+			loaded.loadPlatform(file.getPath());
+			assert show(loaded).equals(expected) : "baseline platform does not round-trip in " + format;
+		}
+
+		//endorsement messages are made from the endorsed post, so they follow its handle
+		platform.changeAccountHandle("alice", "alicia");
+		assert platform.showIndividualPost(6).contains("EP@alicia: hello world")
+				: "loaded endorsement does not follow the handle of the endorsed post";
+		System.out.println("baseline snapshot loads and round-trips");
+	}
+
+	/**
+	 * Shows the platform the way testdata/baseline-platform.txt was written.
+	 */
+	private static String show(SocialMedia platform) throws Exception {
+		StringBuilder sb = new StringBuilder();
+		sb.append("accounts=").append(platform.getNumberOfAccounts()).append('\n');
+		sb.append("original=").append(platform.getTotalOriginalPosts()).append('\n');
+		sb.append("endorsements=").append(platform.getTotalEndorsmentPosts()).append('\n');
+		sb.append("comments=").append(platform.getTotalCommentPosts()).append('\n');
+		sb.append("mostEndorsedPost=").append(platform.getMostEndorsedPost()).append('\n');
+		sb.append("mostEndorsedAccount=").append(platform.getMostEndorsedAccount()).append('\n');
+		for (String handle : new String[] {"alice", "bob", "carol"}) {
+			sb.append(platform.showAccount(handle)).append('\n');
+		}
+		for (int id : new int[] {1, 2, 3, 4, 5, 10, 6, 7, 8}) {
+			sb.append(platform.showIndividualPost(id)).append('\n');
+		}
+		sb.append(platform.showPostChildrenDetails(1)).append('\n');
+		return sb.toString();
+	}
+}
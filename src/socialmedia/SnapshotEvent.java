@@ -0,0 +1,57 @@
+package socialmedia;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Java Flight Recorder events of savePlatform and loadPlatform calls of a SocialMedia: the file, its
+ * format and size, and the size of the platform written or read.
+ *
+ * @version 1.0
+ *
+ */
+abstract class SnapshotEvent extends jdk.jfr.Event {
+  @Label("File")
+  String file;
+
+  @Label("Format")
+  String format;
+
+  @Label("Codec")
+  @Description("Codec the snapshot was compressed with, if any (savePlatform only)")
+  String codec;
+
+  @Label("Size")
+  @DataAmount(DataAmount.BYTES)
+  long bytes;
+
+  @Label("Accounts")
+  int accounts;
+
+  @Label("Posts")
+  @Description("Original posts, comments and endorsements")
+  int posts;
+
+  /**
+   * The event of a savePlatform call
+   */
+  @Name("socialmedia.SavePlatform")
+  @Label("Save Platform")
+  @Category("Social Media")
+  @Description("A platform written to a snapshot file")
+  static final class Save extends SnapshotEvent {
+  }
+
+  /**
+   * The event of a loadPlatform call
+   */
+  @Name("socialmedia.LoadPlatform")
+  @Label("Load Platform")
+  @Category("Social Media")
+  @Description("A platform read from a snapshot file")
+  static final class Load extends SnapshotEvent {
+  }
+}
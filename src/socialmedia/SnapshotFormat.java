@@ -0,0 +1,32 @@
+package socialmedia;
+
+/**
+ * The file formats a SocialMedia platform can be saved in. loadPlatform
+ * recognises the format of a file by itself.
+ * 
+ * @version 1.0
+ *
+ */
+public enum SnapshotFormat {
+
+	/**
+	 * Java serialization of the lists of accounts and posts, as written by
+	 * savePlatform(String).
+	 */
+	SERIALIZED,
+
+	/**
+	 * Compact, versioned binary format streamed through an NIO channel: varint
+	 * ids, a type tag per post, UTF-8 strings and the id of the source post of
+	 * each comment and endorsement.
+	 */
+	BINARY,
+
+	/**
+	 * Binary format with fixed-width fields, the ids of the comments and
+	 * endorsements of each post, and an index of post offsets by post id, so
+	 * that {@link SnapshotView} can map the file and read posts on demand.
+	 */
+	MAPPED
+
+}
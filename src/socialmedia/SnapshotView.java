@@ -0,0 +1,222 @@
+package socialmedia;
+
+import socialmedia.internal.*;
+import socialmedia.internal.MappedSnapshotReader.PostRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * A read-only view of a platform saved with {@link SnapshotFormat#MAPPED}.
+ *
+ * Opening a view maps the file and reads its header, whatever the size of the platform, so it can answer
+ * straight away. Posts are only read from the file when they are shown: the Post, Comment and Endorsement
+ * objects of a post and of its comments and endorsements are made the first time they are needed and
+ * kept for the next calls. The answers are the same as those of the SocialMedia the snapshot was saved from.
+ *
+ * @version 1.0
+ *
+ */
+public class SnapshotView implements Closeable {
+  private final MappedSnapshotReader reader;
+
+  //posts and accounts read so far
+  private final HashMap<Integer, AbstractPost> posts = new HashMap<>();
+  private final HashMap<Integer, Account> accounts = new HashMap<>();
+  //posts whose lists of comments and endorsements have been read
+  private final HashSet<Integer> expanded = new HashSet<>();
+
+  /**
+   * The constructor; SnapshotView(filename) opens a snapshot saved with SnapshotFormat.MAPPED
+   *
+   * @param filename location of the snapshot
+   * @throws IOException if the file cannot be read or was saved in another format
+   */
+  public SnapshotView(String filename) throws IOException {
+    reader = new MappedSnapshotReader(Path.of(filename));
+  }
+
+  /**
+   * This method returns the number of accounts of the saved platform
+   * @return number of accounts
+   */
+  public int getNumberOfAccounts() {
+    return reader.getAccountCount();
+  }
+
+  /**
+   * This method returns the totals of the saved platform
+   * @return number of accounts and posts of each type
+   */
+  public PlatformStats getPlatformStats() {
+    return new PlatformStats(reader.getAccountCount(), reader.getOriginalPosts(), reader.getEndorsementPosts(),
+        reader.getCommentPosts());
+  }
+
+  /**
+   * This method returns the most endorsed post of the saved platform
+   * @return ID of the most endorsed post (0 if there are no posts)
+   */
+  public int getMostEndorsedPost() {
+    return reader.getMostEndorsedPost();
+  }
+
+  /**
+   * This method returns the most endorsed account of the saved platform
+   * @return ID of the most endorsed account (0 if no account was endorsed)
+   */
+  public int getMostEndorsedAccount() {
+    return reader.getMostEndorsedAccount();
+  }
+
+  /**
+   * This method shows a post as SocialMediaPlatform.showIndividualPost does
+   *
+   * @param id ID of the post to be shown
+   * @return a formatted string containing post's details
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the snapshot
+   */
+  public synchronized String showIndividualPost(int id) throws PostIDNotRecognisedException {
+    AbstractPost post = expand(id);
+    return post.showPostDetails(new StringBuilder(), false).toString();
+  }
+
+  /**
+   * This method shows a post and all its comment chains as SocialMediaPlatform.showPostChildrenDetails does
+   *
+   * @param id ID of the post to be shown
+   * @return a formatted StringBuilder containing the details of the post and its children
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the snapshot
+   */
+  public synchronized StringBuilder showPostChildrenDetails(int id) throws PostIDNotRecognisedException {
+    AbstractPost post = expand(id);
+    //every comment of the chains must have its own comments and endorsements read before it is shown
+    ArrayDeque<AbstractPost> pending = new ArrayDeque<>();
+    pending.push(post);
+    while (!pending.isEmpty()) {
+      List<Comment> comments = pending.pop().getComments();
+      if (comments != null) {
+        for (Comment comment : comments) {
+          pending.push(expand(comment.getId()));
+        }
+      }
+    }
+    return post.showPostDetails(new StringBuilder(), true);
+  }
+
+  /**
+   * This method unmaps the snapshot; the view cannot be used afterwards
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * This method returns the post with its lists of comments and endorsements read from the snapshot
+   *
+   * @param id post ID
+   * @return the post
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the snapshot
+   */
+  private AbstractPost expand(int id) throws PostIDNotRecognisedException {
+    AbstractPost post = posts.get(id);
+    if ((post != null) && expanded.contains(id)) {
+      return post;
+    }
+    PostRecord record = readPost(id);
+    if (record == null) {
+      throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+    }
+    if (post == null) {
+      post = materialize(record);
+    }
+
+    List<Comment> comments = new ArrayList<>(record.commentIds().length);
+    for (int commentId : record.commentIds()) {
+      comments.add((Comment) child(commentId, post));
+    }
+    List<Endorsement> endorsements = new ArrayList<>(record.endorsementIds().length);
+    for (int endorsementId : record.endorsementIds()) {
+      endorsements.add((Endorsement) child(endorsementId, post));
+    }
+    //posts loaded by SocialMedia have no list when they were never commented or endorsed
+    post.setComments(comments.isEmpty() ? null : comments);
+    post.setEndorsements(endorsements.isEmpty() ? null : endorsements);
+    expanded.add(id);
+    return post;
+  }
+
+  /**
+   * This method returns a comment or endorsement of a post that is already made
+   */
+  private AbstractPost child(int id, AbstractPost source) {
+    AbstractPost post = posts.get(id);
+    if (post == null) {
+      post = create(readPost(id), source);
+    }
+    return post;
+  }
+
+  /**
+   * This method makes the object of a post, and of the posts it replies to that are not made yet
+   * (without their lists of comments and endorsements)
+   */
+  private AbstractPost materialize(PostRecord record) {
+    //walk up the chain to the first source that is made already
+    ArrayDeque<PostRecord> chain = new ArrayDeque<>();
+    AbstractPost source = null;
+    for (PostRecord r = record; r != null; ) {
+      chain.push(r);
+      if (r.sourcePostId() == 0) {
+        break;
+      }
+      source = posts.get(r.sourcePostId());
+      r = (source == null) ? readPost(r.sourcePostId()) : null;
+    }
+    AbstractPost post = null;
+    while (!chain.isEmpty()) {
+      post = create(chain.pop(), source);
+      source = post;
+    }
+    return post;
+  }
+
+  private AbstractPost create(PostRecord record, AbstractPost source) {
+    Account account = account(record.accountId());
+    AbstractPost post;
+    if (record.type() == SnapshotWriter.COMMENT) {
+      post = new Comment(record.id(), account, source, record.message());
+    } else if (record.type() == SnapshotWriter.ENDORSEMENT) {
+      post = new Endorsement(record.id(), account, source);
+    } else {
+      post = new Post(record.id(), account, record.message());
+    }
+    posts.put(record.id(), post);
+    return post;
+  }
+
+  private Account account(int id) {
+    if (id == 0) {
+      return null;
+    }
+    return accounts.computeIfAbsent(id, accountId -> {
+      try {
+        return reader.readAccount(accountId);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  private PostRecord readPost(int id) {
+    try {
+      return reader.readPost(id);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
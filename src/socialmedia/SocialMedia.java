@@ -3,7 +3,12 @@ package socialmedia;
 import socialmedia.internal.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /** 
  * This class implements functionalities provided in the SocialMediaPlatform that extends MiniSocialMediaPlatform.
@@ -16,12 +21,60 @@ import java.util.*;
  */
 public class SocialMedia implements SocialMediaPlatform { 
   private int lastAccountId = 0; //initialize account id -> all accounts are unique
-  private int lastPostId = 0; //initialize posts id -> all posts are unique
+  private int lastPostId; //initialize posts id -> all posts are unique
 
-  //Where we store all accounts and posts information
-  private static HashMap<String, Account> accountsByHandle = new HashMap<String, Account>();
-  private static HashMap<Integer, Account> accountsById = new HashMap<Integer, Account>();
-  private static HashMap<Integer, AbstractPost> postsById = new HashMap<>();
+  //post ids are postIdOffset + k * postIdStride, so shards of a ShardedSocialMedia never share an id
+  private final int postIdOffset;
+  private final int postIdStride;
+
+  //Where we store all accounts and posts information (one set per platform instance)
+  private HashMap<String, Account> accountsByHandle = new HashMap<String, Account>();
+  //ids are handed out one after the other, so accounts and posts are kept in arrays indexed by id
+  private DenseIdMap<Account> accountsById = new DenseIdMap<>();
+  private DenseIdMap<AbstractPost> postsById;
+
+  //Endorsement rankings kept up to date by endorsePost and deletePostInternal
+  private final EndorsementRanking postRanking = new EndorsementRanking();
+  private final EndorsementRanking accountRanking = new EndorsementRanking();
+  //ranking of the accounts of every shard, kept up to date along with accountRanking (ShardedSocialMedia only)
+  private transient ConcurrentEndorsementRanking sharedAccountRanking;
+
+  //Live number of posts of each type
+  private int totalOriginalPosts = 0;
+  private int totalEndorsementPosts = 0;
+  private int totalCommentPosts = 0;
+
+  //Largest preset dictionary of a compressed snapshot (Deflater only uses the last 32KB)
+  private static final int DICTIONARY_SIZE = 1 << 15;
+
+  //Text of the posts shown lately, dropped when the posts change
+  private static final long RENDER_CACHE_CHARS = 1 << 22;
+  private transient RenderCache renderCache = new RenderCache(RENDER_CACHE_CHARS);
+
+  //Write-ahead log of the calls made since the last snapshot (null when the platform is not durable)
+  private transient WriteAheadLog writeAheadLog;
+  private transient Path snapshotPath;
+
+  /**
+   * The constructor; SocialMedia() creates an empty platform
+   */
+  public SocialMedia() {
+    this(0, 1);
+  }
+
+  /**
+   * The constructor; SocialMedia(postIdOffset, postIdStride) creates an empty platform whose post ids
+   * are postIdOffset + postIdStride, postIdOffset + 2 * postIdStride, ...
+   *
+   * @param postIdOffset remainder of every post id divided by postIdStride
+   * @param postIdStride gap between two consecutive post ids
+   */
+  SocialMedia(int postIdOffset, int postIdStride) {
+    this.postIdOffset = postIdOffset;
+    this.postIdStride = postIdStride;
+    this.lastPostId = postIdOffset;
+    this.postsById = new DenseIdMap<>(postIdOffset, postIdStride);
+  }
 
   /**
    * The method checks handle for InvalidHandleException
@@ -38,11 +91,43 @@ public class SocialMedia implements SocialMediaPlatform {
     if (handle.length() > 30) { //if handle is more than 30 characters
         throw new InvalidHandleException("handle has more than 30 characters");
     }
-    if (handle.matches(".*\\s.*")) { //If handle has white spaces
+    if (hasWhiteSpace(handle)) { //If handle has white spaces
         throw new InvalidHandleException("handle has white spaces");
     }
   }
 
+  /**
+   * This method tells whether a handle has white spaces, in one pass and without making any object.
+   * It gives the same answer as handle.matches(".*\\s.*"): "\\s" is one of ' ', '\t', '\n', '\u000B', '\f'
+   * and '\r', and "." is any character but a line terminator ('\n', '\r', '\u0085', '\u2028', '\u2029').
+   * So the handle matches when it has no line terminator and a white space, or when its only line terminator
+   * is '\n' or '\r'.
+   * 
+   * @param handle account's handle (not null)
+   * @return true if the handle has white spaces
+   */
+  static boolean hasWhiteSpace(String handle) {
+    boolean space = false;
+    boolean spaceTerminator = false; //the line terminator found is '\n' or '\r'
+    int terminators = 0;
+    for (int i = 0; i < handle.length(); i++) {
+      switch (handle.charAt(i)) {
+        case ' ', '\t', '\u000B', '\f' -> space = true;
+        case '\n', '\r' -> {
+          terminators++;
+          spaceTerminator = true;
+        }
+        case '\u0085', '\u2028', '\u2029' -> terminators++;
+        default -> {
+        }
+      }
+      if (terminators > 1) {
+        return false; //"." cannot go past the second line terminator
+      }
+    }
+    return (terminators == 0) ? space : spaceTerminator;
+  }
+
   @Override
   public int createAccount(String handle, String description) throws IllegalHandleException, InvalidHandleException {
       checkHandle(handle);//for InvalidHandleException
@@ -54,6 +139,7 @@ public class SocialMedia implements SocialMediaPlatform {
       Account account = new Account(lastAccountId, handle, description); 
       accountsByHandle.put(handle, account); //put into the list of handle, account
       accountsById.put(account.getId(), account); //put into the list of id and account
+      log(WriteAheadLog.CREATE_ACCOUNT, handle, description, 0);
       return account.getId(); //the id of created account
   }
 
@@ -67,9 +153,81 @@ public class SocialMedia implements SocialMediaPlatform {
       Account account = new Account(lastAccountId, handle); 
       accountsByHandle.put(handle, account); //put into the list of handle, account
       accountsById.put(account.getId(), account); //put into the list of id and account
+      log(WriteAheadLog.CREATE_ACCOUNT, handle, null, 0);
       return account.getId(); //the id of created account
   }
 
+  /**
+   * This method creates a batch of accounts at once, for example when importing them from another system.
+   * The whole batch is checked first: if any row has an invalid handle, a handle already in the platform or
+   * a handle repeated in the batch, nothing is created and every failing row is reported. Otherwise the
+   * accounts get contiguous ids, in the order of the batch.
+   *
+   * @param handles handles of the new accounts
+   * @param descriptions descriptions of the new accounts (same size as handles), or null for no descriptions
+   * @return the id of the first account; the i-th account of the batch has id first + i
+   * @throws AccountImportException if some rows cannot be imported (nothing is created)
+   */
+  public int createAccounts(List<String> handles, List<String> descriptions) throws AccountImportException {
+      int count = handles.size();
+      if ((descriptions != null) && (descriptions.size() != count)) {
+          throw new IllegalArgumentException("there must be one description per handle");
+      }
+
+      //make room for the whole batch once, instead of growing the maps while inserting
+      if (count > accountsByHandle.size()) {
+          HashMap<String, Account> resized = new HashMap<>(capacity(accountsByHandle.size() + count));
+          resized.putAll(accountsByHandle);
+          accountsByHandle = resized;
+      }
+
+      //insert every row, then take them all out again if any row failed
+      int first = lastAccountId + 1;
+      Account[] accounts = new Account[count];
+      SortedMap<Integer, Exception> errors = null;
+      for (int i = 0; i < count; i++) {
+          String handle = handles.get(i);
+          try {
+              checkHandle(handle);
+              Account account = new Account(first + i, handle, (descriptions == null) ? null : descriptions.get(i));
+              Account previous = accountsByHandle.putIfAbsent(handle, account);
+              if (previous == null) {
+                  accounts[i] = account;
+              } else if (previous.getId() >= first) {
+                  throw new IllegalHandleException("the handle appears more than once in the batch");
+              } else {
+                  throw new IllegalHandleException("the handle already exists in the platform");
+              }
+          } catch (InvalidHandleException | IllegalHandleException e) {
+              if (errors == null) {
+                  errors = new TreeMap<>();
+              }
+              errors.put(i, e);
+          }
+      }
+      if (errors != null) {
+          for (Account account : accounts) {
+              if (account != null) {
+                  accountsByHandle.remove(account.getHandle());
+              }
+          }
+          throw new AccountImportException(errors);
+      }
+
+      accountsById.ensureCapacity(first + count - 1);
+      for (Account account : accounts) {
+          accountsById.put(account.getId(), account);
+          log(WriteAheadLog.CREATE_ACCOUNT, account.getHandle(), account.getDescription(), 0); //replayed one by one
+      }
+      lastAccountId += count; //the ids first .. first + count - 1 belong to the batch
+      return first;
+  }
+
+  //initial capacity of a HashMap or HashSet that holds size entries without resizing
+  private static int capacity(int size) {
+      return (int) Math.min((long) (size / 0.75f) + 1, 1 << 30);
+  }
+
   /** 
    * This method will delete all post relating to the account being deleted. It will also delete that particular account.
    * This method will be used in removeAccount function overriden from the SocialMediaPlatform interface.
@@ -78,15 +236,37 @@ public class SocialMedia implements SocialMediaPlatform {
    * 
    */
   private void removeAccountInternal(Account account) {
-      //the method getPosts below returns list of posts relating to that account handle
-      List<AbstractPost> posts = getPosts(account.getHandle());
+      RemoveAccountEvent event = new RemoveAccountEvent();
+      event.begin();
+      int originalPosts = totalOriginalPosts;
+      int commentPosts = totalCommentPosts;
+      int endorsementPosts = totalEndorsementPosts;
+      int detached = 0;
+
+      //copy the posts made by that account because deleting them updates the account's index
+      List<AbstractPost> posts = new ArrayList<>(account.getPosts());
       for (AbstractPost post : posts) {
-        deletePostInternal(post); //delete all post made by that handle
+        //an endorsement of the account's own post may already be gone with that post
+        if (postsById.get(post.getId()) == post) {
+          detached += post.getCommentsCount(); //moved under an empty post
+          deletePostInternal(post); //delete all post made by that handle
+        }
       }
 
       //remove the account from the system
       accountsByHandle.remove(account.getHandle());
       accountsById.remove(account.getId());
+
+      if (event.shouldCommit()) {
+        event.accountId = account.getId();
+        event.handle = account.getHandle();
+        event.postsMade = posts.size();
+        event.originalPostsDeleted = originalPosts - totalOriginalPosts;
+        event.commentsDeleted = commentPosts - totalCommentPosts;
+        event.endorsementsDeleted = endorsementPosts - totalEndorsementPosts;
+        event.commentsDetached = detached;
+        event.commit();
+      }
   }
 
   @Override
@@ -100,6 +280,7 @@ public class SocialMedia implements SocialMediaPlatform {
 
       //method made above that deletes all post relating to that account as well as that account itself
       removeAccountInternal(account);
+      log(WriteAheadLog.REMOVE_ACCOUNT, handle, null, 0);
   }
 
   @Override
@@ -113,6 +294,7 @@ public class SocialMedia implements SocialMediaPlatform {
 
       //method made above that deletes all post relating to that account as well as that account itself
       removeAccountInternal(account);
+      log(WriteAheadLog.REMOVE_ACCOUNT_ID, null, null, id);
   }
 
   @Override
@@ -125,6 +307,7 @@ public class SocialMedia implements SocialMediaPlatform {
 
       //setter method from Accopunt class -> it will update straight away
       account.setDescription(description);
+      log(WriteAheadLog.UPDATE_DESCRIPTION, handle, description, 0);
 
   }
 
@@ -144,6 +327,7 @@ public class SocialMedia implements SocialMediaPlatform {
       
       //setter method to update the handler
       account.setHandle(newHandle);
+      invalidateHandle(account);
 
       //remove the old handle from the system and put in the new handle name
       accountsByHandle.remove(oldHandle);
@@ -152,7 +336,7 @@ public class SocialMedia implements SocialMediaPlatform {
       //repeat with id becuase the account have changed
       accountsById.remove(account.getId());
       accountsById.put(account.getId(), account);
-
+      log(WriteAheadLog.CHANGE_HANDLE, oldHandle, newHandle, 0);
   }
 
   @Override
@@ -176,14 +360,12 @@ public class SocialMedia implements SocialMediaPlatform {
           throw new HandleNotRecognisedException("Handle does not match to any account in the system");
       }
       
-      //getPosts contains list of posts that is being posted by that handle
-      List<AbstractPost> posts = getPosts(handle);
-      int postCount= posts.size(); 
-      //size is the sum of the list so basically sum of posts made by that handle
+      //the account keeps the posts that are being posted by that handle
+      int postCount= account.getPostsCount(); 
 
 
       int endorseCount=0;
-      for (AbstractPost a: posts){
+      for (AbstractPost a: account.getPosts()){
           //calculating the sum of endorsed receive by that handle
           endorseCount += a.getEndorsementsCount();
       }
@@ -213,23 +395,6 @@ public class SocialMedia implements SocialMediaPlatform {
       return postsById.get(id);
   }
 
-  /**
-   * This method returns list of posts made by that particular handle
-   * 
-   * @param handle account's handle
-   * @return list of posts made by that handle
-   */
-  private List<AbstractPost> getPosts(String handle){
-      List<AbstractPost> list = new ArrayList<>();
-      if (handle == null) return list;
-      for (var post : postsById.values()) {
-          if(handle.equals(post.getHandle())){
-              list.add(post); //add all the post if the handle is the one mentioned
-          }
-      }
-      return list;
-  }
-
   /**
    * This method check the message for InvalidPostException. 
    * It will be used in createPost() and commentPost() funtions that are overriden from SocialMediaPlatform interface
@@ -245,6 +410,15 @@ public class SocialMedia implements SocialMediaPlatform {
       }
   }
 
+  /**
+   * This method moves lastPostId to the next post id of this platform
+   * @return the new post id
+   */
+  private int nextPostId() {
+      lastPostId += postIdStride;
+      return lastPostId;
+  }
+
   @Override
   public int createPost(String handle, String message) throws HandleNotRecognisedException, InvalidPostException {
       Account account = accountsByHandle.get(handle);
@@ -254,11 +428,14 @@ public class SocialMedia implements SocialMediaPlatform {
 
       checkMessage(message); //InvalidPostException
 
-      lastPostId += 1;
+      nextPostId();
       //Creating an object from Post class (and extention from and abstract class called AbstractPost)
       //Original Post
       Post post = new Post(lastPostId, account, message);
-      postsById.put(post.getId(), post); //postsById is a hashmap of (post id, post information)
+      postsById.put(post.getId(), post); //postsById maps post id -> post information
+      account.addPost(post); //index the post under the account that made it
+      countPost(post, 1);
+      log(WriteAheadLog.CREATE_POST, handle, message, 0);
       return lastPostId;
   }
 
@@ -280,15 +457,19 @@ public class SocialMedia implements SocialMediaPlatform {
       }
 
       
-      lastPostId += 1; //all original, comments and endorse are considerred as posts and they all have unique numerical identifier
-      //creating the message to be printed under endosement post
-      //"EP@" + [endorsed account handle] + ": " + [endorsed message]
-      String message = "EP@"+ post.getHandle() + ": " + post.getMessage();
+      nextPostId(); //all original, comments and endorse are considerred as posts and they all have unique numerical identifier
       //Creating an object from Endorsement class (and extention from and abstract class called AbstractPost)
-      //Endorsement Post
-      Endorsement endorsement = new Endorsement(lastPostId, account, post, message);
+      //Endorsement Post; its message "EP@" + [endorsed account handle] + ": " + [endorsed message] is made from the endorsed post
+      Endorsement endorsement = new Endorsement(lastPostId, account, post);
       post.addEndorsement(endorsement);
+      invalidate(post); //one more endorsement
       postsById.put(lastPostId, endorsement);
+      account.addPost(endorsement);
+      countPost(endorsement, 1);
+      //the endorsed post and the account that made it both receive one more endorsement
+      postRanking.adjust(post.getId(), 1);
+      adjustAccountRanking(post, 1);
+      log(WriteAheadLog.ENDORSE_POST, handle, null, id);
       return lastPostId;
   }
 
@@ -310,16 +491,151 @@ public class SocialMedia implements SocialMediaPlatform {
 
       checkMessage(message); //InvalidPostException
 
-      lastPostId += 1;
+      nextPostId();
       //Creating an object from Comment class (and extention from and abstract class called AbstractPost)
       //Comment Post
       Comment comment = new Comment(lastPostId, account, post, message);
       post.addComment(comment);
+      invalidate(post); //one more comment
       postsById.put(lastPostId, comment);
+      account.addPost(comment);
+      countPost(comment, 1);
 
+      log(WriteAheadLog.COMMENT_POST, handle, message, id);
       return lastPostId;
   }
 
+  /**
+   * This method applies a batch of posts, comments and endorsements, for example when replaying activity
+   * from another system. Each event does what createPost, commentPost or endorsePost would do, in the order
+   * of the batch, and gets the same post id. An event that cannot be applied is skipped and reported with the
+   * exception the single call would have thrown; the other events are still applied.
+   * <p>
+   * Handles, source posts and messages are checked for the whole batch before anything is applied, the id
+   * map makes room for the batch once, and the endorsement rankings and the render cache are updated once
+   * per endorsed or commented post instead of once per event.
+   *
+   * @param events events to apply, in order
+   * @return the post id of each event and the errors of the events not applied
+   */
+  public IngestionResult ingest(List<PostEvent> events) {
+      int count = events.size();
+      int[] ids = new int[count];
+      SortedMap<Integer, Exception> errors = new TreeMap<>();
+
+      //resolve every handle and source post before applying anything
+      Account[] accounts = new Account[count];
+      AbstractPost[] sources = new AbstractPost[count];
+      for (int i = 0; i < count; i++) {
+          PostEvent event = events.get(i);
+          try {
+              accounts[i] = accountsByHandle.get(event.getHandle());
+              if (accounts[i] == null) {
+                  throw new HandleNotRecognisedException("Handle does not match to any account in the system");
+              }
+              if (event.getType() != PostEvent.Type.POST) {
+                  if (event.getSourceEvent() >= i) {
+                      throw new PostIDNotRecognisedException("event " + i + " refers to a later event");
+                  }
+                  //ids past lastPostId can only be made by this batch, so they are looked up when applied
+                  if ((event.getSourceEvent() < 0) && (event.getSourceId() <= lastPostId)) {
+                      sources[i] = postsById.get(event.getSourceId());
+                      if (sources[i] == null) {
+                          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+                      }
+                      if (sources[i] instanceof Endorsement) {
+                          throw new NotActionablePostException("Not an actionable post");
+                      }
+                  }
+              }
+              //as in commentPost, the message of a comment is only checked once its source is found
+              if ((event.getType() == PostEvent.Type.POST) || ((event.getType() == PostEvent.Type.COMMENT)
+                      && (sources[i] != null))) {
+                  checkMessage(event.getMessage());
+              }
+          } catch (HandleNotRecognisedException | PostIDNotRecognisedException | NotActionablePostException
+                  | InvalidPostException e) {
+              errors.put(i, e);
+          }
+      }
+
+      if ((long) lastPostId + (long) count * postIdStride <= Integer.MAX_VALUE) {
+          postsById.ensureCapacity(lastPostId + count * postIdStride);
+      }
+      //endorsements received by each post, and the posts whose cached text changed, applied after the batch
+      HashMap<AbstractPost, Integer> endorsed = new HashMap<>();
+      HashSet<AbstractPost> changed = new HashSet<>();
+
+      for (int i = 0; i < count; i++) {
+          if (errors.containsKey(i)) {
+              continue;
+          }
+          PostEvent event = events.get(i);
+          Account account = accounts[i];
+          AbstractPost source = sources[i];
+          try {
+              if (event.getSourceEvent() >= 0) {
+                  source = postsById.get(ids[event.getSourceEvent()]);
+                  if (source == null) {
+                      throw new PostIDNotRecognisedException("event " + event.getSourceEvent() + " was not applied");
+                  }
+              } else if ((source == null) && (event.getType() != PostEvent.Type.POST)) {
+                  source = postsById.get(event.getSourceId());
+                  if (source == null) {
+                      throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+                  }
+              }
+              if (source instanceof Endorsement) {
+                  throw new NotActionablePostException("Not an actionable post");
+              }
+              if ((sources[i] == null) && (event.getType() == PostEvent.Type.COMMENT)) {
+                  checkMessage(event.getMessage());
+              }
+          } catch (PostIDNotRecognisedException | NotActionablePostException | InvalidPostException e) {
+              errors.put(i, e);
+              continue;
+          }
+
+          AbstractPost post;
+          switch (event.getType()) {
+              case POST -> {
+                  post = new Post(nextPostId(), account, event.getMessage());
+                  log(WriteAheadLog.CREATE_POST, event.getHandle(), event.getMessage(), 0);
+              }
+              case COMMENT -> {
+                  Comment comment = new Comment(nextPostId(), account, source, event.getMessage());
+                  source.addComment(comment);
+                  changed.add(source);
+                  post = comment;
+                  log(WriteAheadLog.COMMENT_POST, event.getHandle(), event.getMessage(), source.getId());
+              }
+              default -> {
+                  Endorsement endorsement = new Endorsement(nextPostId(), account, source);
+                  source.addEndorsement(endorsement);
+                  changed.add(source);
+                  endorsed.merge(source, 1, Integer::sum);
+                  post = endorsement;
+                  log(WriteAheadLog.ENDORSE_POST, event.getHandle(), null, source.getId());
+              }
+          }
+          postsById.put(post.getId(), post);
+          account.addPost(post);
+          countPost(post, 1);
+          ids[i] = post.getId();
+      }
+
+      for (Map.Entry<AbstractPost, Integer> entry : endorsed.entrySet()) {
+          postRanking.adjust(entry.getKey().getId(), entry.getValue());
+          adjustAccountRanking(entry.getKey(), entry.getValue());
+      }
+      if (!renderCache.isEmpty()) {
+          for (AbstractPost post : changed) {
+              invalidate(post);
+          }
+      }
+      return new IngestionResult(ids, errors);
+  }
+
   /**
    * This method delete the post from the platform. When a post is deleted (original or comment), all it's
    * endorsements will be deleted as well. If the post has comments, the comment will still remain but the deleted post will be replaced
@@ -340,6 +656,10 @@ public class SocialMedia implements SocialMediaPlatform {
       List<Endorsement> endorsements = post.getEndorsements();
       for (Endorsement endorsement : endorsements) {
         postsById.remove(endorsement.getId()); //remove all endorsements (!!Endorsement cannot be acted on so you can just remove straight away)
+        renderCache.invalidate(endorsement.getId());
+        removeFromAccount(endorsement); //and from the account that endorsed it
+        postRanking.remove(endorsement.getId());
+        countPost(endorsement, -1);
       }
     }
 
@@ -347,23 +667,14 @@ public class SocialMedia implements SocialMediaPlatform {
     if(post instanceof Post){
       if (post.getCommentsCount() > 0) {
           Post emptyPost = new Post(-1, null, "The original content was removed from the system and is no longer available.");
-          //getComments() is a method from AbstractPost that returns list of comments from that particular post
-          List<Comment> comments = post.getComments();
-          for (Comment comment : comments) {
-              //basically changing the post to empty post
-              comment.setSourcePost(emptyPost);
-          }
+          moveComments(post, emptyPost);
       }
     }
 
     if(post instanceof Comment){
       if (post.getCommentsCount() > 0) {
         Comment emptyPost = new Comment(-1, null, post, "The original content was removed from the system and is no longer available.");
-        List<Comment> comments = post.getComments();
-        for (Comment comment : comments) {
-            //basically changing the post to empty post
-            comment.setSourcePost(emptyPost);
-        }
+        moveComments(post, emptyPost);
       }
 
     }
@@ -373,19 +684,134 @@ public class SocialMedia implements SocialMediaPlatform {
         AbstractRepost repost = (AbstractRepost) post;
         //get the id of the post
         Integer sourcePostId = repost.getSourcePostId();
-        AbstractPost sourcePost = getPost(sourcePostId); //get the reference post from that id
+        //the source id is lost (null) for a comment whose source was deleted before the platform was saved
+        AbstractPost sourcePost = (sourcePostId == null) ? null : getPost(sourcePostId); //get the reference post from that id
 
         if (repost instanceof Endorsement) {
             if(sourcePost == null);
-            else sourcePost.removeEndorsement((Endorsement) repost); //remove the endorsement from the list in AbstractPost class
+            else {
+              sourcePost.removeEndorsement((Endorsement) repost); //remove the endorsement from the list in AbstractPost class
+              invalidate(sourcePost);
+              postRanking.adjust(sourcePost.getId(), -1);
+              adjustAccountRanking(sourcePost, -1);
+            }
         }
         if (repost instanceof Comment) {
           if(sourcePost == null); //needed when removing account after deleting post to handle NullPointerException (if post is deleted, it will be null. So avoid repetition when deleting)
-          else sourcePost.removeComment((Comment) repost); //remove comment from the list in AbstractPost Class
+          else {
+            sourcePost.removeComment((Comment) repost); //remove comment from the list in AbstractPost Class
+            invalidate(sourcePost);
+          }
         }
     }
 
     postsById.remove(post.getId()); //remove the post from the system
+    renderCache.invalidate(post.getId());
+    removeFromAccount(post);
+    countPost(post, -1);
+    //the account that made the post loses the endorsements the post received
+    adjustAccountRanking(post, -postRanking.remove(post.getId()));
+  }
+
+  /**
+   * This method updates the live number of posts of the same type as the post
+   * 
+   * @param post post i.e Post, Endorsement or Comment being added or deleted
+   * @param delta 1 when the post is added, -1 when it is deleted
+   */
+  private void countPost(AbstractPost post, int delta) {
+    if (post instanceof Post) {
+      totalOriginalPosts += delta;
+    } else if (post instanceof Endorsement) {
+      totalEndorsementPosts += delta;
+    } else if (post instanceof Comment) {
+      totalCommentPosts += delta;
+    }
+  }
+
+  /**
+   * This method updates the endorsements received by the account that made the post
+   * 
+   * @param post post that received (or lost) endorsements
+   * @param delta number of endorsements added (positive) or removed (negative)
+   */
+  private void adjustAccountRanking(AbstractPost post, int delta) {
+    Integer accountId = post.getAccountId();
+    if (accountId != null) {
+      accountRanking.adjust(accountId, delta);
+      if (sharedAccountRanking != null) {
+        sharedAccountRanking.adjust(accountId, delta);
+      }
+    }
+  }
+
+  /**
+   * This method drops the cached text of a post that changed, and of the threads it is shown in:
+   * the comment chains it belongs to, up to their original post
+   * 
+   * @param post post whose handle, counts or comments changed
+   */
+  private void invalidate(AbstractPost post) {
+      renderCache.invalidate(post.getId());
+      if (!renderCache.hasThreads()) {
+          return;
+      }
+      //a deleted source is replaced by an empty post with the id -1
+      for (AbstractPost source = sourceOf(post); (source != null) && (source.getId() > 0); source = sourceOf(source)) {
+          renderCache.invalidateThread(source.getId());
+      }
+  }
+
+  private static AbstractPost sourceOf(AbstractPost post) {
+      return (post instanceof Comment comment) ? comment.getSourcePost() : null;
+  }
+
+  /**
+   * This method drops the cached text of the posts that show the handle of an account: its posts, the threads
+   * they are shown in, and the endorsements of its posts ("EP@" + handle + ...)
+   * 
+   * @param account account whose handle changed
+   */
+  private void invalidateHandle(Account account) {
+      if (renderCache.isEmpty()) {
+          return;
+      }
+      for (AbstractPost post : account.getPosts()) {
+          invalidate(post);
+          List<Endorsement> endorsements = post.getEndorsements();
+          if (endorsements != null) {
+              for (Endorsement endorsement : endorsements) {
+                  renderCache.invalidate(endorsement.getId());
+              }
+          }
+      }
+  }
+
+  /**
+   * This method moves the comments of a post being deleted under the empty post that replaces it.
+   * Only the comments of the post itself move; the chains below them stay as they are.
+   * 
+   * @param post post being deleted
+   * @param emptyPost post shown as the source of its comments
+   */
+  private static void moveComments(AbstractPost post, AbstractPost emptyPost) {
+      new CommentTreeWalker(1, CommentTreeWalker.UNLIMITED).walk(post, (comment, depth) -> {
+          if (depth == 1) {
+              ((Comment) comment).setSourcePost(emptyPost); //basically changing the post to empty post
+          }
+      });
+  }
+
+  /**
+   * This method removes the post from the posts index of the account that made it
+   * 
+   * @param post post i.e Post, Endorsement or Comment being deleted
+   */
+  private static void removeFromAccount(AbstractPost post) {
+    Account account = post.getAccount();
+    if (account != null) {
+      account.removePost(post);
+    }
   }
 
   @Override
@@ -397,6 +823,7 @@ public class SocialMedia implements SocialMediaPlatform {
 
       //method made above that delete the post 
       deletePostInternal(post);
+      log(WriteAheadLog.DELETE_POST, null, null, id);
   }
 
   @Override
@@ -406,8 +833,13 @@ public class SocialMedia implements SocialMediaPlatform {
           throw new PostIDNotRecognisedException("Post ID does not exist in the system");
       }
 
-      //creted in AbstractPost class. Basically if withChildren: false means that just return the individual post with no chains
-      return post.showPostDetails(new StringBuilder(), false).toString();
+      String text = renderCache.get(id, false);
+      if (text == null) {
+          //creted in AbstractPost class. Basically if withChildren: false means that just return the individual post with no chains
+          text = post.showPostDetails(new StringBuilder(), false).toString();
+          renderCache.put(id, false, text);
+      }
+      return text;
   }
 
   @Override
@@ -417,72 +849,289 @@ public class SocialMedia implements SocialMediaPlatform {
           throw new PostIDNotRecognisedException("Post ID does not exist in the system");
       }
 
-      //since withChildren : true, it means that it will return the post id with chains if being commented on
-      return post.showPostDetails(new StringBuilder(), true);
+      String text = renderCache.get(id, true);
+      if (text == null) {
+          //since withChildren : true, it means that it will return the post id with chains if being commented on
+          text = post.showPostDetails(new StringBuilder(), true).toString();
+          renderCache.put(id, true, text);
+      }
+      return new StringBuilder(text);
+  }
+
+  /**
+   * This method writes a post and all its comment chains in the same format as showPostChildrenDetails(id),
+   * without holding the whole text in memory
+   * 
+   * @param id ID of the post to be shown
+   * @param out where the text goes (e.g. a Writer or a StringBuilder)
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the system
+   * @throws IOException if out cannot be written
+   */
+  public void showPostChildrenDetails(int id, Appendable out) throws PostIDNotRecognisedException, IOException {
+      AbstractPost post = postsById.get(id);
+      if (post == null) {
+          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+      }
+      post.showPostDetails(out, true);
+  }
+
+  /**
+   * This method writes a post and all its comment chains in the same format as showPostChildrenDetails(id),
+   * encoded in UTF-8; the channel is left open
+   * 
+   * @param id ID of the post to be shown
+   * @param channel where the text goes (e.g. a socket or a file)
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the system
+   * @throws IOException if the channel cannot be written
+   */
+  public void showPostChildrenDetails(int id, WritableByteChannel channel) throws PostIDNotRecognisedException, IOException {
+      Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+      showPostChildrenDetails(id, writer);
+      writer.flush();
+  }
+
+  /**
+   * This method shows one page of a thread: at most pageSize posts of the post and its comment chains, in the
+   * format of showPostChildrenDetails(id), and a cursor for the next page. The work done depends on the size
+   * of the page, not on the size of the thread.
+   * 
+   * @param id ID of the post the thread starts from
+   * @param cursor null for the first page || the cursor of the last page
+   * @param pageSize most posts shown on the page (at least 1)
+   * @return the page and the cursor of the next one
+   * @throws PostIDNotRecognisedException if the ID does not match to any post in the system
+   * @throws IllegalArgumentException if the cursor was not made for this post
+   */
+  public ThreadPage showPostChildrenDetails(int id, String cursor, int pageSize) throws PostIDNotRecognisedException {
+      AbstractPost post = postsById.get(id);
+      if (post == null) {
+          throw new PostIDNotRecognisedException("Post ID does not exist in the system");
+      }
+      return showPage(post, cursor, pageSize);
+  }
+
+  /**
+   * This method shows one page of the thread of a post
+   * 
+   * @param post post the thread starts from
+   * @param cursor null for the first page || the cursor of the last page
+   * @param pageSize most posts shown on the page
+   * @return the page and the cursor of the next one
+   */
+  static ThreadPage showPage(AbstractPost post, String cursor, int pageSize) {
+      int[] continuation = ThreadPage.continuation(post.getId(), cursor);
+      StringBuilder sb = new StringBuilder();
+      try {
+          continuation = post.showPostDetails(sb, CommentTreeWalker.UNLIMITED, pageSize, continuation);
+      } catch (IOException e) {
+          throw new UncheckedIOException(e); //a StringBuilder does not throw IOException
+      }
+      return new ThreadPage(post.getId(), sb.toString(), ThreadPage.cursor(post.getId(), continuation));
   }
 
   @Override
   public int getMostEndorsedPost() {
-      int mostPost = 0;
-      int maxEndr = -1; 
+      //ranking only keeps posts that received endorsements; ties go to the lowest post id
+      int id = postRanking.first();
+      if (id != 0) {
+          return id;
+      }
+      //no post has endorsements: the lowest post id wins
+      return postsById.firstKey();
+  }
 
+  /**
+   * This method returns the IDs of the most endorsed posts, ordered like getMostEndorsedPost()
+   * 
+   * @param n maximum number of posts to return
+   * @return up to n post IDs, most endorsed first
+   */
+  public int[] getMostEndorsedPosts(int n) {
+      int[] top = postRanking.top(n);
+      if ((top.length >= n) || (top.length == postsById.size())) {
+          return top;
+      }
+      //the posts without endorsements come after, lowest post id first
+      int[] ids = Arrays.copyOf(top, Math.min(n, postsById.size()));
+      int i = top.length;
       for (AbstractPost post : postsById.values()) {
-          if (post.getEndorsementsCount() > maxEndr) {
-              //if the total endorsement for that post is greter than the max,
-              mostPost = post.getId(); //returns the id of the post
-              maxEndr = post.getEndorsementsCount(); //set the maxEndr as the new maximum
+          if (i == ids.length) {
+              break;
+          }
+          if (postRanking.getCount(post.getId()) == 0) {
+              ids[i++] = post.getId();
           }
       }
-
-      return mostPost; 
+      return ids;
   }
 
   @Override
   public int getMostEndorsedAccount() {
-      Map<Integer, Integer> endrCount = new HashMap<Integer, Integer>();
-      int mostAccount = 0;
-      int maxEndr = -1;
-      for (AbstractPost post : postsById.values()) {
-          if (post.getEndorsementsCount() > 0) {
-              //get the id of the account
-              Integer accountId = post.getAccountId();
-
-              Integer total = endrCount.get(accountId);
-              if (total == null) {
-                  total = 0;
-              }
-              //total of endorsement for that account id
-              total += post.getEndorsementsCount();
-              endrCount.put(accountId, total);
-              if (total > maxEndr) {
-                  mostAccount = accountId;
-                  maxEndr = total;
-              }
-          }
-      }
+      //ranking only keeps accounts that received endorsements; ties go to the lowest account id
+      return accountRanking.first(); //account id of the most endorsed account
+  }
 
-      return mostAccount; //account id of the most endorsed account
+  /**
+   * This method returns the IDs of the most endorsed accounts, ordered like getMostEndorsedAccount()
+   * 
+   * @param n maximum number of accounts to return
+   * @return up to n account IDs, most endorsed first
+   */
+  public int[] getMostEndorsedAccounts(int n) {
+      return accountRanking.top(n);
   }
 
   @Override
   public void erasePlatform() {
+      eraseInternal();
+      log(WriteAheadLog.ERASE_PLATFORM, null, null, 0);
+  }
+
+  private void eraseInternal() {
       //reset account Id count
       lastAccountId = 0;
       //new hashmap
       accountsByHandle = new HashMap<String, Account>();
-      accountsById = new HashMap<Integer, Account>();
+      accountsById = new DenseIdMap<>();
 
       //reset post Id count
-      lastPostId = 0;
+      lastPostId = postIdOffset;
       //new hashmap
-      postsById = new HashMap<>();
+      postsById = new DenseIdMap<>(postIdOffset, postIdStride);
+
+      postRanking.clear();
+      accountRanking.clear();
+      renderCache.clear();
+
+      //reset post counters
+      totalOriginalPosts = 0;
+      totalEndorsementPosts = 0;
+      totalCommentPosts = 0;
   }
 
-  //serialization
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The platform is saved with Java serialization, see {@link #savePlatform(String, SnapshotFormat)}.
+   */
   @Override
   public void savePlatform(String filename) throws IOException {
+      savePlatform(filename, SnapshotFormat.SERIALIZED);
+  }
+
+  /**
+   * This method saves the platform in the given format. loadPlatform recognises the format by itself.
+   * 
+   * @param filename location of the file to be saved
+   * @param format format of the file
+   * @throws IOException if there is a problem experienced when trying to save the file
+   */
+  public void savePlatform(String filename, SnapshotFormat format) throws IOException {
+      savePlatform(filename, format, null);
+  }
+
+  /**
+   * This method saves the platform in the given format, compressed by the codec. loadPlatform recognises
+   * the format and the codec by itself.
+   * <p>
+   * The snapshot is cut into blocks that are compressed one by one, with the handles of the accounts as a
+   * preset dictionary (most active accounts last, where a codec with a sliding window looks first).
+   * A MAPPED snapshot cannot be compressed, since SnapshotView reads it in place.
+   * <p>
+   * When the platform was opened with recoverPlatform and filename is its snapshot, this is a checkpoint:
+   * the snapshot is written under a temporary name, forced to disk and renamed into place, and the
+   * write-ahead log starts again, empty, on top of it.
+   * 
+   * @param filename location of the file to be saved
+   * @param format format of the file
+   * @param codec codec the file is compressed with (null -> not compressed)
+   * @throws IOException if there is a problem experienced when trying to save the file
+   */
+  public void savePlatform(String filename, SnapshotFormat format, SnapshotCodec codec) throws IOException {
+      if ((format == SnapshotFormat.MAPPED) && (codec != null)) {
+          throw new IllegalArgumentException("a mapped snapshot cannot be compressed");
+      }
+      SnapshotEvent.Save event = new SnapshotEvent.Save();
+      event.begin();
+      if ((writeAheadLog != null) && Path.of(filename).toAbsolutePath().equals(snapshotPath)) {
+          Path newSnapshot = WriteAheadLog.pendingSnapshot(snapshotPath);
+          writeSnapshot(newSnapshot.toString(), format, codec);
+          try (FileChannel channel = FileChannel.open(newSnapshot, StandardOpenOption.WRITE)) {
+              channel.force(true);
+          }
+          writeAheadLog.checkpoint(newSnapshot, snapshotPath);
+      } else {
+          writeSnapshot(filename, format, codec);
+      }
+      if (event.shouldCommit()) {
+          event.codec = (codec == null) ? null : codec.getName();
+          commit(event, filename, format);
+      }
+  }
+
+  /**
+   * This method fills in and commits the flight recorder event of a snapshot written or read
+   * 
+   * @param event event of the call
+   * @param filename location of the snapshot
+   * @param format format of the snapshot
+   */
+  private void commit(SnapshotEvent event, String filename, SnapshotFormat format) throws IOException {
+      event.file = filename;
+      event.format = format.name();
+      event.bytes = Files.size(Path.of(filename));
+      event.accounts = accountsById.size();
+      event.posts = postsById.size();
+      event.commit();
+  }
+
+  private void writeSnapshot(String filename, SnapshotFormat format, SnapshotCodec codec) throws IOException {
+      if (format == SnapshotFormat.MAPPED) {
+          writeMappedSnapshot(filename);
+          return;
+      }
+      WritableByteChannel channel = FileChannel.open(Path.of(filename),
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      if (codec != null) {
+          channel = new CompressedSnapshot.Writer(channel, codec, handleDictionary());
+      }
+      switch (format) {
+          case SERIALIZED -> writeSerializedSnapshot(channel);
+          case BINARY -> writeBinarySnapshot(channel);
+          default -> throw new AssertionError(format);
+      }
+  }
+
+  /**
+   * This method returns the preset dictionary of a compressed snapshot: the handles of the accounts, as
+   * they appear in the messages of endorsements, the most active accounts last
+   * 
+   * @return at most DICTIONARY_SIZE bytes
+   */
+  private byte[] handleDictionary() {
+      List<Account> accounts = new ArrayList<>(accountsById.values());
+      accounts.sort(Comparator.comparingInt(Account::getPostsCount).reversed().thenComparingInt(Account::getId));
+      List<byte[]> entries = new ArrayList<>();
+      int size = 0;
+      for (Account account : accounts) {
+          byte[] entry = ("EP@" + account.getHandle() + ": ").getBytes(StandardCharsets.UTF_8);
+          if (size + entry.length > DICTIONARY_SIZE) {
+              break;
+          }
+          entries.add(entry);
+          size += entry.length;
+      }
+      ByteArrayOutputStream dictionary = new ByteArrayOutputStream(size);
+      for (int i = entries.size() - 1; i >= 0; i--) {
+          dictionary.writeBytes(entries.get(i));
+      }
+      return dictionary.toByteArray();
+  }
+
+  //serialization
+  private void writeSerializedSnapshot(WritableByteChannel channel) throws IOException {
       //use try to close it automatically
-      try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename))) {
+      try (ObjectOutputStream out = new ObjectOutputStream(Channels.newOutputStream(channel))) {
         ArrayList<Account> accountList = new ArrayList<>(accountsById.values());
         ArrayList<AbstractPost> postList = new ArrayList<>(postsById.values());
 
@@ -493,20 +1142,140 @@ public class SocialMedia implements SocialMediaPlatform {
       }
   }
 
-  //deserialization
-  @SuppressWarnings("unchecked")
+  //binary format, streamed through a channel
+  private void writeBinarySnapshot(WritableByteChannel channel) throws IOException {
+      try (SnapshotWriter writer = new SnapshotWriter(channel)) {
+        writer.writeHeader(lastAccountId, lastPostId, accountsById.size());
+        for (Account account : accountsById.values()) {
+            writer.writeAccount(account);
+        }
+
+        //posts go in id order so that every source post is read before its comments and endorsements
+        writer.writePostCount(postsById.size());
+        for (AbstractPost post : postsById.values()) {
+            writer.writePost(post);
+        }
+      }
+  }
+
+  //mapped format, with the children of each post and an index, for SnapshotView
+  private void writeMappedSnapshot(String filename) throws IOException {
+      try (MappedSnapshotWriter writer = new MappedSnapshotWriter(FileChannel.open(Path.of(filename),
+              StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE))) {
+        //both maps iterate in id order, as the writer wants
+        for (Account account : accountsById.values()) {
+            writer.writeAccount(account);
+        }
+        for (AbstractPost post : postsById.values()) {
+            writer.writePost(post);
+        }
+        writer.finish(lastAccountId, lastPostId, totalOriginalPosts, totalEndorsementPosts, totalCommentPosts,
+            getMostEndorsedPost(), getMostEndorsedAccount());
+      }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Files written in any SnapshotFormat can be loaded.
+   * When the platform was opened with recoverPlatform, the loaded platform is saved as its snapshot straight
+   * away, because the write-ahead log cannot describe it.
+   */
   @Override
   public void loadPlatform(String filename) throws IOException, ClassNotFoundException {
+      loadPlatform(filename, false);
+  }
+
+  /**
+   * This method loads a platform like loadPlatform(filename), optionally linking the posts on all the cores.
+   * <p>
+   * In parallel mode, the comments and endorsements of a serialized snapshot are grouped by source post and
+   * linked to their accounts and sources by parallel streams. The loaded platform is identical to the one
+   * loaded sequentially: every list keeps the order of the snapshot. Binary and mapped snapshots are linked
+   * while they are read, so the mode makes no difference to them.
+   * 
+   * @param filename location of the file to be loaded
+   * @param parallel true -> link the posts in parallel || false -> link them on the calling thread
+   * @throws IOException if there is a problem experienced when trying to load the file
+   * @throws ClassNotFoundException if required class files cannot be found when loading
+   */
+  public void loadPlatform(String filename, boolean parallel) throws IOException, ClassNotFoundException {
+      SnapshotEvent.Load event = new SnapshotEvent.Load();
+      event.begin();
+      SnapshotFormat format = readSnapshot(filename, parallel);
+      if (event.shouldCommit()) {
+          commit(event, filename, format);
+      }
+      if (writeAheadLog != null) {
+          savePlatform(snapshotPath.toString());
+      }
+  }
+
+  private void readSnapshot(String filename) throws IOException, ClassNotFoundException {
+      readSnapshot(filename, false);
+  }
+
+  /**
+   * This method replaces the platform with the one saved in a snapshot, whatever its format
+   * 
+   * @return the format of the snapshot
+   */
+  private SnapshotFormat readSnapshot(String filename, boolean parallel) throws IOException, ClassNotFoundException {
+      renderCache.clear(); //loaded comments and endorsements change the posts already in the platform
+      byte[] magic = new byte[SnapshotWriter.MAGIC.length];
+      int n;
+      try (InputStream in = Channels.newInputStream(openSnapshot(filename))) {
+          n = in.readNBytes(magic, 0, magic.length);
+      }
+      if ((n == magic.length) && Arrays.equals(magic, SnapshotWriter.MAGIC)) {
+          readBinarySnapshot(filename);
+          return SnapshotFormat.BINARY;
+      } else if ((n == magic.length) && Arrays.equals(magic, MappedSnapshotWriter.MAGIC)) {
+          readMappedSnapshot(filename);
+          return SnapshotFormat.MAPPED;
+      }
+      readSerializedSnapshot(filename, parallel);
+      return SnapshotFormat.SERIALIZED;
+  }
+
+  /**
+   * This method opens a snapshot for reading, decompressing it if it was saved with a codec
+   * 
+   * @param filename location of the snapshot
+   * @return channel giving the bytes of the snapshot as its format wrote them
+   */
+  static ReadableByteChannel openSnapshot(String filename) throws IOException {
+      FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+      ByteBuffer magic = ByteBuffer.allocate(CompressedSnapshot.MAGIC.length);
+      while (magic.hasRemaining()) {
+          if (channel.read(magic) < 0) {
+              break;
+          }
+      }
+      channel.position(0);
+      if (!magic.hasRemaining() && Arrays.equals(magic.array(), CompressedSnapshot.MAGIC)) {
+          return new CompressedSnapshot.Reader(channel);
+      }
+      return channel;
+  }
+
+  //deserialization
+  @SuppressWarnings("unchecked")
+  private void readSerializedSnapshot(String filename, boolean parallel) throws IOException, ClassNotFoundException {
       //use try to close it automatically
-      try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(filename))) {
+      try (ObjectInputStream in = new ObjectInputStream(Channels.newInputStream(openSnapshot(filename)))) {
         int lastAccId = in.readInt();
         Object obj = in.readObject();
         List<Account> accountList = (List<Account>) obj;
         int lastPId = in.readInt();
         obj = in.readObject();
         List<AbstractPost> postList = (List<AbstractPost>) obj;
+        checkPostIds(lastPId);
+        //snapshots of the first release list the posts in hash order: sorted, the comments and endorsements of
+        //each post are linked in the order they were made, which CommentTreeWalker relies on
+        postList.sort(Comparator.comparingInt(AbstractPost::getId));
 
-        erasePlatform();
+        eraseInternal();
         lastAccountId = lastAccId;
         lastPostId = lastPId;
 
@@ -515,84 +1284,516 @@ public class SocialMedia implements SocialMediaPlatform {
             accountsByHandle.put(account.getHandle(), account);
         }
 
-        Map<Integer, List<Comment>> commentMap = new HashMap<>();
-        Map<Integer, List<Endorsement>> endorsementMap = new HashMap<>();
         for (AbstractPost post : postList) {
             postsById.put(post.getId(), post);
+        }
+        if (parallel) {
+            linkPostsInParallel(postList);
+        } else {
+            linkPosts(postList);
+        }
 
-            if (post instanceof Comment comment) {
-                Integer sourcePostId = comment.getSourcePostId();
-                List<Comment> commentList = commentMap.get(sourcePostId);
-                if (commentList == null) {
-                    commentList = new ArrayList<>();
-                    commentMap.put(sourcePostId, commentList);
-                }
-                commentList.add(comment);
-            }
+        rebuildRankings(postList);
+      }
+  }
 
-            if (post instanceof Endorsement endorsement) {
-                Integer sourcePostId = endorsement.getSourcePostId();
-                List<Endorsement> endorsementList = endorsementMap.get(sourcePostId);
-                if (endorsementList == null) {
-                    endorsementList = new ArrayList<>();
-                    endorsementMap.put(sourcePostId, endorsementList);
-                }
-                endorsementList.add(endorsement);
-            }
-        }
+  /**
+   * This method links every loaded post to its account, its source and its comments and endorsements
+   * 
+   * @param postList every post of the snapshot, already in postsById, in id order
+   */
+  private void linkPosts(List<AbstractPost> postList) {
+      Map<Integer, List<Comment>> commentMap = new HashMap<>();
+      Map<Integer, List<Endorsement>> endorsementMap = new HashMap<>();
+      for (AbstractPost post : postList) {
+          if (post instanceof Comment comment) {
+              Integer sourcePostId = comment.getSourcePostId();
+              List<Comment> commentList = commentMap.get(sourcePostId);
+              if (commentList == null) {
+                  commentList = new ArrayList<>();
+                  commentMap.put(sourcePostId, commentList);
+              }
+              commentList.add(comment);
+          }
 
-        for (AbstractPost post : postList) {
-            Integer accountId = post.getAccountId();
-            Account account = accountsById.get(accountId);
-            post.setAccount(account);
+          if (post instanceof Endorsement endorsement) {
+              Integer sourcePostId = endorsement.getSourcePostId();
+              List<Endorsement> endorsementList = endorsementMap.get(sourcePostId);
+              if (endorsementList == null) {
+                  endorsementList = new ArrayList<>();
+                  endorsementMap.put(sourcePostId, endorsementList);
+              }
+              endorsementList.add(endorsement);
+          }
+      }
 
-            post.setComments(commentMap.get(post.getId()));
-            post.setEndorsements(endorsementMap.get(post.getId()));
+      for (AbstractPost post : postList) {
+          Integer accountId = post.getAccountId();
+          Account account = (accountId == null) ? null : accountsById.get(accountId);
+          post.setAccount(account);
+          if (account != null) {
+              account.addPost(post); //rebuild the posts index of the account
+          }
 
-            if (post instanceof AbstractRepost repost) {
-                repost.setSourcePost(postsById.get(repost.getSourcePostId()));
-            }
-        }
+          post.setComments(commentMap.get(post.getId()));
+          post.setEndorsements(endorsementMap.get(post.getId()));
+
+          if (post instanceof AbstractRepost repost) {
+              repost.setSourcePost(findSourcePost(repost));
+          }
       }
   }
 
-  @Override
-  public int getTotalOriginalPosts() {
-      int total = 0;
-      for (AbstractPost post : postsById.values()) {
-          //if the post is original post
-          if (post instanceof Post) {
-              total += 1; 
+  /**
+   * This method returns the post a comment or endorsement replies to
+   * @param repost comment or endorsement read from a snapshot
+   * @return the source post, or null if it was deleted
+   */
+  private AbstractPost findSourcePost(AbstractRepost repost) {
+      Integer sourcePostId = repost.getSourcePostId();
+      return (sourcePostId == null) ? null : postsById.get(sourcePostId);
+  }
+
+  /**
+   * This method does the same as linkPosts on all the cores.
+   * The groupings are made by ordered collectors, so each list keeps the order of postList and the result is
+   * the same as linkPosts'.
+   * 
+   * @param postList every post of the snapshot, already in postsById
+   */
+  private void linkPostsInParallel(List<AbstractPost> postList) {
+      //the source of a comment whose source was deleted before the snapshot is null, no post has it
+      Map<Integer, List<Comment>> commentMap = postList.parallelStream()
+          .filter(post -> (post instanceof Comment) && (((Comment) post).getSourcePostId() != null))
+          .map(post -> (Comment) post)
+          .collect(Collectors.groupingBy(Comment::getSourcePostId));
+      Map<Integer, List<Endorsement>> endorsementMap = postList.parallelStream()
+          .filter(post -> (post instanceof Endorsement) && (((Endorsement) post).getSourcePostId() != null))
+          .map(post -> (Endorsement) post)
+          .collect(Collectors.groupingBy(Endorsement::getSourcePostId));
+      //grouped before setAccount, which forgets the account id of a post whose account is gone
+      Map<Integer, List<AbstractPost>> accountPosts = postList.parallelStream()
+          .filter(post -> post.getAccountId() != null)
+          .collect(Collectors.groupingBy(AbstractPost::getAccountId));
+
+      //each post is changed by one thread only; postsById and accountsById are only read
+      postList.parallelStream().forEach(post -> {
+          Integer accountId = post.getAccountId();
+          post.setAccount((accountId == null) ? null : accountsById.get(accountId));
+          post.setComments(commentMap.get(post.getId()));
+          post.setEndorsements(endorsementMap.get(post.getId()));
+          if (post instanceof AbstractRepost repost) {
+              repost.setSourcePost(findSourcePost(repost));
+          }
+      });
+
+      //the posts index of an account is rebuilt by one thread, in the order of the snapshot
+      accountPosts.entrySet().parallelStream().forEach(entry -> {
+          Account account = accountsById.get(entry.getKey());
+          if (account != null) {
+              for (AbstractPost post : entry.getValue()) {
+                  account.addPost(post);
+              }
           }
+      });
+  }
+
+  //binary format: posts come in id order, so each one is linked to its source as soon as it is read
+  private void readBinarySnapshot(String filename) throws IOException {
+      Loader loader = new Loader();
+      try (SnapshotReader reader = new SnapshotReader(openSnapshot(filename))) {
+        reader.read(loader);
       }
+      loader.install();
+  }
 
-      return total;
+  //mapped format, read the same way as the binary format
+  private void readMappedSnapshot(String filename) throws IOException {
+      Loader loader = new Loader();
+      try (MappedSnapshotReader reader = new MappedSnapshotReader(Path.of(filename))) {
+        reader.read(loader);
+      }
+      loader.install();
   }
 
-  @Override
-  public int getTotalEndorsmentPosts() {
-      int total = 0;
-      for (AbstractPost post : postsById.values()) {
-          //if the post is endorsement post
-          if (post instanceof Endorsement) {
-              total += 1;
+  /**
+   * A handler that reads a snapshot into maps of its own. The platform only gets them from install(), once
+   * the whole file was read, so a snapshot that is cut short or corrupt leaves the platform as it was.
+   */
+  private class Loader implements SnapshotReader.Handler {
+      private int lastAccId;
+      private int lastPId;
+      private final HashMap<String, Account> handles = new HashMap<String, Account>();
+      private final DenseIdMap<Account> accounts = new DenseIdMap<>();
+      private final DenseIdMap<AbstractPost> posts = new DenseIdMap<>(postIdOffset, postIdStride);
+
+      @Override
+      public void header(int lastAccId, int lastPId) throws IOException {
+          checkPostIds(lastPId);
+          this.lastAccId = lastAccId;
+          this.lastPId = lastPId;
+      }
+
+      @Override
+      public void account(int id, String handle, String description) {
+          Account account = new Account(id, handle, description);
+          accounts.put(id, account);
+          handles.put(handle, account);
+      }
+
+      @Override
+      public void post(byte type, int id, int accountId, int sourcePostId, String message) {
+          Account account = accounts.get(accountId);
+          AbstractPost source = posts.get(sourcePostId);
+          AbstractPost post;
+          if (type == SnapshotWriter.COMMENT) {
+              Comment comment = new Comment(id, account, source, message);
+              if (source != null) {
+                  source.addComment(comment);
+              }
+              post = comment;
+          } else if (type == SnapshotWriter.ENDORSEMENT) {
+              Endorsement endorsement = new Endorsement(id, account, source);
+              if (source != null) {
+                  source.addEndorsement(endorsement);
+              }
+              post = endorsement;
+          } else {
+              post = new Post(id, account, message);
+          }
+          posts.put(id, post);
+          if (account != null) {
+              account.addPost(post);
           }
       }
 
-      return total;
+      /**
+       * This method replaces the content of the platform with the snapshot that was read
+       */
+      void install() {
+          eraseInternal();
+          lastAccountId = lastAccId;
+          lastPostId = lastPId;
+          accountsByHandle = handles;
+          accountsById = accounts;
+          postsById = posts;
+          rebuildRankings(postsById.values());
+      }
+  }
+
+  /**
+   * This method checks that a loaded platform gave the same kind of post ids as this platform does
+   * 
+   * @param lastPId last post id of the loaded platform
+   * @throws IOException if the ids do not match
+   */
+  private void checkPostIds(int lastPId) throws IOException {
+      if (Math.floorMod(lastPId - postIdOffset, postIdStride) != 0) {
+          throw new IOException("platform was saved with different post ids");
+      }
   }
 
-  @Override
-  public int getTotalCommentPosts() {
-      int total = 0;
-      for (AbstractPost post : postsById.values()) {
-          //if the post is Comment post
-          if (post instanceof Comment) {
-              total += 1;
+  /**
+   * This method rebuilds the rankings and post counters once every loaded post has its endorsements back
+   * 
+   * @param posts every post of the platform
+   */
+  private void rebuildRankings(Collection<AbstractPost> posts) {
+      for (AbstractPost post : posts) {
+          postRanking.adjust(post.getId(), post.getEndorsementsCount());
+          adjustAccountRanking(post, post.getEndorsementsCount());
+          countPost(post, 1);
+      }
+  }
+
+  /**
+   * This method records a successful mutating call in the write-ahead log, if the platform has one
+   * 
+   * @param op operation code from WriteAheadLog
+   * @param first first string argument of the call
+   * @param second second string argument of the call
+   * @param id post or account ID argument of the call
+   */
+  private void log(byte op, String first, String second, int id) {
+      if (writeAheadLog != null) {
+          writeAheadLog.append(new WriteAheadLog.Record(op, first, second, id));
+      }
+  }
+
+  /**
+   * This method opens a durable platform: it loads the last snapshot written by savePlatform (or starts empty
+   * if there is none), replays the write-ahead log on top of it, and keeps logging every mutating call
+   * (createAccount, removeAccount, changeAccountHandle, updateAccountDescription, createPost, endorsePost,
+   * commentPost, deletePost and erasePlatform) to that log.
+   * <p>
+   * Calling savePlatform(snapshotFile) afterwards writes a new snapshot and empties the log.
+   * <p>
+   * Same as recoverPlatform(snapshotFile, logFile, waitForDisk, 0): every call is forced to disk as soon as the
+   * disk is free.
+   * 
+   * @param snapshotFile snapshot of the platform (need not exist yet)
+   * @param logFile write-ahead log (need not exist yet)
+   * @param waitForDisk true -> each call returns once it is on disk || false -> calls are forced to disk in the background
+   * @throws IOException if the files cannot be read, or the log belongs to another snapshot
+   * @throws ClassNotFoundException if required class files cannot be found when loading
+   */
+  public void recoverPlatform(String snapshotFile, String logFile, boolean waitForDisk) throws IOException, ClassNotFoundException {
+      recoverPlatform(snapshotFile, logFile, waitForDisk, 0);
+  }
+
+  /**
+   * This method opens a durable platform like recoverPlatform(snapshotFile, logFile, waitForDisk), and chooses
+   * how often the log is forced to disk.
+   * <p>
+   * The platform makes one call at a time, so with waitForDisk each call waits for its own fsync. Without it,
+   * calls return straight away and every call made while the disk is busy joins the next fsync. A commit
+   * interval makes the log wait that long before each fsync so that more calls join it: fewer fsyncs, but up to
+   * that much more work lost in a crash (and, with waitForDisk, that much longer calls).
+   * 
+   * @param snapshotFile snapshot of the platform (need not exist yet)
+   * @param logFile write-ahead log (need not exist yet)
+   * @param waitForDisk true -> each call returns once it is on disk || false -> calls are forced to disk in the background
+   * @param commitIntervalMillis time the log gathers calls before each fsync (0 -> no wait)
+   * @throws IOException if the files cannot be read, or the log belongs to another snapshot
+   * @throws ClassNotFoundException if required class files cannot be found when loading
+   */
+  public void recoverPlatform(String snapshotFile, String logFile, boolean waitForDisk, long commitIntervalMillis)
+          throws IOException, ClassNotFoundException {
+      if (commitIntervalMillis < 0) {
+          throw new IllegalArgumentException("commitIntervalMillis must not be negative");
+      }
+      closeWriteAheadLog();
+      Path snapshot = Path.of(snapshotFile).toAbsolutePath();
+      Path logPath = Path.of(logFile).toAbsolutePath();
+      Path newLog = WriteAheadLog.pendingLog(logPath);
+
+      //a checkpoint whose snapshot rename did not reach the disk leaves the new snapshot under its temporary
+      //name: once a log was written for it, it was complete, so the rename is made again
+      Path newSnapshot = WriteAheadLog.pendingSnapshot(snapshot);
+      if (Files.exists(newSnapshot)) {
+          WriteAheadLog.Base newBase = WriteAheadLog.Base.of(newSnapshot);
+          if (logBelongs(newLog, newBase) || logBelongs(logPath, newBase)) {
+              Files.move(newSnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+              WriteAheadLog.forceDirectory(snapshot);
+          } else {
+              Files.delete(newSnapshot);
+          }
+      }
+      WriteAheadLog.Base base = Files.exists(snapshot) ? WriteAheadLog.Base.of(snapshot) : WriteAheadLog.Base.NONE;
+
+      //a checkpoint that stopped after renaming the snapshot leaves the new, empty log next to the old one
+      if (Files.exists(newLog)) {
+          if (logBelongs(newLog, base)) {
+              Files.move(newLog, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+              WriteAheadLog.forceDirectory(logPath);
+          } else {
+              Files.delete(newLog);
+          }
+      }
+
+      if (base == WriteAheadLog.Base.NONE) {
+          eraseInternal();
+      } else {
+          readSnapshot(snapshot.toString());
+      }
+
+      if (Files.exists(logPath)) {
+          long validEnd;
+          try (WriteAheadLog.Reader reader = new WriteAheadLog.Reader(logPath)) {
+              if (!reader.getBase().equals(base)) {
+                  throw new IOException(logPath + " does not belong to " + snapshot);
+              }
+              WriteAheadLog.Record record;
+              while ((record = reader.next()) != null) {
+                  replay(record);
+              }
+              validEnd = reader.getValidEnd();
+          }
+          writeAheadLog = WriteAheadLog.reopen(logPath, validEnd, waitForDisk, commitIntervalMillis);
+      } else {
+          writeAheadLog = new WriteAheadLog(logPath, base, waitForDisk, commitIntervalMillis);
+      }
+      snapshotPath = snapshot;
+  }
+
+  /**
+   * This method tells whether a write-ahead log was started on top of a snapshot
+   * 
+   * @param log log file (need not exist)
+   * @param base snapshot the log should apply to
+   * @return true if the header of the log names that snapshot
+   */
+  private static boolean logBelongs(Path log, WriteAheadLog.Base base) {
+      if (!Files.exists(log)) {
+          return false;
+      }
+      try (WriteAheadLog.Reader reader = new WriteAheadLog.Reader(log)) {
+          return reader.getBase().equals(base);
+      } catch (IOException e) {
+          return false; //not even its header made it to disk
+      }
+  }
+
+  /**
+   * This method applies a call read from the write-ahead log (the log is not attached while replaying)
+   * 
+   * @param record call to apply
+   * @throws IOException if the call does not apply to the platform
+   */
+  private void replay(WriteAheadLog.Record record) throws IOException {
+      try {
+          switch (record.getOp()) {
+              case WriteAheadLog.CREATE_ACCOUNT -> createAccount(record.getFirst(), record.getSecond());
+              case WriteAheadLog.REMOVE_ACCOUNT -> removeAccount(record.getFirst());
+              case WriteAheadLog.REMOVE_ACCOUNT_ID -> removeAccount(record.getId());
+              case WriteAheadLog.CHANGE_HANDLE -> changeAccountHandle(record.getFirst(), record.getSecond());
+              case WriteAheadLog.UPDATE_DESCRIPTION -> updateAccountDescription(record.getFirst(), record.getSecond());
+              case WriteAheadLog.CREATE_POST -> createPost(record.getFirst(), record.getSecond());
+              case WriteAheadLog.ENDORSE_POST -> endorsePost(record.getFirst(), record.getId());
+              case WriteAheadLog.COMMENT_POST -> commentPost(record.getFirst(), record.getId(), record.getSecond());
+              case WriteAheadLog.DELETE_POST -> deletePost(record.getId());
+              case WriteAheadLog.ERASE_PLATFORM -> eraseInternal();
+              default -> throw new IOException("unknown write-ahead log record " + record.getOp());
           }
+      } catch (IOException e) {
+          throw e;
+      } catch (Exception e) {
+          throw new IOException("write-ahead log record does not apply to the platform", e);
+      }
+  }
+
+  /**
+   * This method writes the remaining calls of the write-ahead log to disk and stops logging
+   * 
+   * @throws IOException if the log could not be written
+   */
+  public void closeWriteAheadLog() throws IOException {
+      if (writeAheadLog != null) {
+          WriteAheadLog log = writeAheadLog;
+          writeAheadLog = null;
+          snapshotPath = null;
+          log.close();
       }
+  }
+
+  @Override
+  public int getTotalOriginalPosts() {
+      return totalOriginalPosts;
+  }
+
+  @Override
+  public int getTotalEndorsmentPosts() {
+      return totalEndorsementPosts;
+  }
+
+  @Override
+  public int getTotalCommentPosts() {
+      return totalCommentPosts;
+  }
+
+  /**
+   * This method returns the number of accounts and of each type of post in one snapshot
+   * 
+   * @return accounts, original posts, endorsements and comments present in the platform
+   */
+  public PlatformStats getPlatformStats() {
+      return new PlatformStats(accountsByHandle.size(), totalOriginalPosts, totalEndorsementPosts, totalCommentPosts);
+  }
+
+  /**
+   * This method changes the size of the cache of the text shown by showIndividualPost and
+   * showPostChildrenDetails(id). The cache drops the least recently shown posts first, and drops the text of
+   * a post as soon as it changes, so the text shown is always the same as without the cache.
+   * 
+   * @param capacity most characters held by the cache (0 -> nothing is cached)
+   */
+  public void setRenderCacheCapacity(long capacity) {
+      renderCache.setCapacity(capacity);
+  }
+
+  /**
+   * This method returns the counters of the cache of the text shown by showIndividualPost and
+   * showPostChildrenDetails(id)
+   * 
+   * @return hits, misses, evictions, invalidations and size of the cache
+   */
+  public RenderCacheStats getRenderCacheStats() {
+      return renderCache.getStats();
+  }
+
+  //package-private accessors used by ShardedSocialMedia to merge its shards
+
+  /**
+   * This method returns the account with that handle
+   * @param handle account's handle
+   * @return the account, or null if the handle is not in the system
+   */
+  Account findAccount(String handle) {
+      return accountsByHandle.get(handle);
+  }
+
+  /**
+   * This method returns the account with that ID
+   * @param id account ID
+   * @return the account, or null if the ID is not in the system
+   */
+  Account findAccount(int id) {
+      return accountsById.get(id);
+  }
+
+  /**
+   * This method returns every account of the platform
+   * @return accounts of the platform
+   */
+  Collection<Account> getAccounts() {
+      return accountsById.values();
+  }
+
+  /**
+   * This method adds an account whose ID was given by ShardedSocialMedia. The handle must not be in the system.
+   * @param id account ID, unique over the shards
+   * @param handle account's handle
+   * @param description account's description
+   */
+  void addAccount(int id, String handle, String description) {
+      Account account = new Account(id, handle, description);
+      accountsByHandle.put(handle, account);
+      accountsById.put(id, account);
+      lastAccountId = Math.max(lastAccountId, id);
+  }
+
+  /**
+   * This method returns the highest account ID the platform gave or was given
+   * @return last account ID
+   */
+  int getLastAccountId() {
+      return lastAccountId;
+  }
+
+  /**
+   * This method makes the platform pass every later change of the endorsements received by an account on to
+   * a ranking shared with other platforms
+   * @param ranking ranking of the accounts of every shard
+   */
+  void shareAccountRanking(ConcurrentEndorsementRanking ranking) {
+      sharedAccountRanking = ranking;
+  }
+
+  /**
+   * This method returns the number of endorsements received by a post
+   * @param id post ID
+   * @return endorsements received by the post (0 if it is not in the system)
+   */
+  int getPostEndorsements(int id) {
+      return postRanking.getCount(id);
+  }
 
-      return total;
+  /**
+   * This method returns the endorsements received by every account that received at least one
+   * @return map of (account id, endorsements received)
+   */
+  Map<Integer, Integer> getAccountEndorsements() {
+      return accountRanking.getCounts();
   }
 
   public static void main (String[]args) throws IllegalHandleException, InvalidHandleException, HandleNotRecognisedException, InvalidPostException, AccountIDNotRecognisedException, NotActionablePostException, PostIDNotRecognisedException{
@@ -707,13 +1908,13 @@ public class SocialMedia implements SocialMediaPlatform {
       System.out.println();
 
       System.out.println("---------ACCOUNT INFORMATION-----------");
-      for (Account account : accountsById.values()) {
+      for (Account account : a.accountsById.values()) {
         System.out.println(a.showAccount(account.getHandle()));
       }
       System.out.println();
 
       System.out.println("-----------POST INFORMATION-------------");
-      for (AbstractPost post : postsById.values()) {
+      for (AbstractPost post : a.postsById.values()) {
         System.out.println(post.showPostDetails(new StringBuilder(), true).toString());
       }
       System.out.println();
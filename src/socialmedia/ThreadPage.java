@@ -0,0 +1,111 @@
+package socialmedia;
+
+/**
+ * One page of a thread shown by {@code showPostChildrenDetails(id, cursor, pageSize)}: at most pageSize posts
+ * of the post and its comment chains, in the format of
+ * {@link SocialMediaPlatform#showPostChildrenDetails(int)}, and the cursor of the next page.
+ *
+ * Putting the text of every page one after the other gives the text of the whole thread.
+ *
+ * @version 1.0
+ *
+ */
+public final class ThreadPage {
+
+	private final int postId;
+	private final String text;
+	private final String nextCursor;
+
+	/**
+	 * Constructs a page.
+	 *
+	 * @param postId     ID of the post the thread starts from.
+	 * @param text       the posts of the page.
+	 * @param nextCursor cursor of the next page, or null if this is the last page.
+	 */
+	ThreadPage(int postId, String text, String nextCursor) {
+		this.postId = postId;
+		this.text = text;
+		this.nextCursor = nextCursor;
+	}
+
+	/**
+	 * @return the ID of the post the thread starts from.
+	 */
+	public int getPostId() {
+		return postId;
+	}
+
+	/**
+	 * @return the posts of the page, formatted as in showPostChildrenDetails.
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * @return the cursor to give back for the next page, or null if this is the last page.
+	 */
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	/**
+	 * @return true if the thread has more pages.
+	 */
+	public boolean hasNextPage() {
+		return nextCursor != null;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+
+	/**
+	 * Makes the cursor of a page: the post ID followed by the IDs of the comments from the post down to the
+	 * next comment to show ("12.40.57"). Clients must not rely on the format.
+	 *
+	 * @param postId       ID of the post the thread starts from.
+	 * @param continuation continuation of the walk, or null at the end of the thread.
+	 * @return the cursor, or null at the end of the thread.
+	 */
+	static String cursor(int postId, int[] continuation) {
+		if (continuation == null) {
+			return null;
+		}
+		StringBuilder cursor = new StringBuilder().append(postId);
+		for (int id : continuation) {
+			cursor.append('.').append(id);
+		}
+		return cursor.toString();
+	}
+
+	/**
+	 * Reads a cursor made by {@link #cursor(int, int[])}.
+	 *
+	 * @param postId ID of the post the thread starts from.
+	 * @param cursor cursor of the page, or null for the first page.
+	 * @return the continuation of the walk, or null for the first page.
+	 * @throws IllegalArgumentException if the cursor is malformed or belongs to another post.
+	 */
+	static int[] continuation(int postId, String cursor) {
+		if (cursor == null) {
+			return null;
+		}
+		String[] parts = cursor.split("\\.", -1);
+		try {
+			if ((parts.length < 2) || (Integer.parseInt(parts[0]) != postId)) {
+				throw new IllegalArgumentException("cursor does not belong to post " + postId);
+			}
+			int[] continuation = new int[parts.length - 1];
+			for (int i = 0; i < continuation.length; i++) {
+				continuation[i] = Integer.parseInt(parts[i + 1]);
+			}
+			return continuation;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("malformed cursor " + cursor, e);
+		}
+	}
+
+}
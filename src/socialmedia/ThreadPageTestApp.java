@@ -0,0 +1,118 @@
+package socialmedia;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A short program checking that showing a thread page by page gives the same text as showing it whole, on random
+ * threads, on a long chain of comments, on a post with many comments and on a snapshot whose comments are not
+ * listed in the order they were made. Run it with assertions enabled (java -ea), from the root of the
+ * repository or with the testdata directory as argument.
+ *
+ * testdata/baseline-unordered.ser was saved by the first release, which listed the posts in hash order: the
+ * comments 2, 17 and 19 of post 1 come as 17, 2, 19. testdata/baseline-unordered.txt is what the first release
+ * showed of post 1.
+ *
+ * @version 1.0
+ */
+public class ThreadPageTestApp {
+	private static final int[] PAGE_SIZES = {1, 2, 3, 7, 50, 1000};
+
+	/**
+	 * Test method.
+	 *
+	 * @param args directory of the snapshot (default src/socialmedia/testdata)
+	 */
+	public static void main(String[] args) throws Exception {
+		SocialMedia platform = new SocialMedia();
+		Random random = new Random(16);
+		for (int i = 0; i < 10; i++) {
+			platform.createAccount("user" + i);
+		}
+
+		//random threads, with comments deleted here and there
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(platform.createPost("user" + i, "root " + i));
+		}
+		for (int i = 0; i < 3000; i++) {
+			try {
+				int source = ids.get(random.nextInt(ids.size()));
+				if (random.nextInt(10) < 8) {
+					ids.add(platform.commentPost("user" + random.nextInt(10), source, "comment " + i));
+				} else if (random.nextBoolean()) {
+					ids.add(platform.endorsePost("user" + random.nextInt(10), source));
+				} else {
+					platform.deletePost(ids.get(5 + random.nextInt(ids.size() - 5)));
+				}
+			} catch (NotActionablePostException | PostIDNotRecognisedException e) {
+				//an endorsement, or a post already deleted
+			}
+		}
+		for (int root = 1; root <= 5; root++) {
+			checkPages(platform, root);
+		}
+		for (int i = 5; i < ids.size(); i++) { //a thread that starts from the first comment left
+			try {
+				checkPages(platform, ids.get(i));
+				break;
+			} catch (PostIDNotRecognisedException e) {
+				//deleted
+			}
+		}
+
+		//a chain of comments, each on the last one (its text grows with the square of its depth)
+		int deep = platform.createPost("user0", "deep");
+		int last = deep;
+		for (int i = 0; i < 3000; i++) {
+			last = platform.commentPost("user" + (i % 10), last, "reply " + i);
+		}
+		checkPages(platform, deep);
+
+		//many comments on the same post
+		int wide = platform.createPost("user0", "wide");
+		for (int i = 0; i < 20000; i++) {
+			platform.commentPost("user" + (i % 10), wide, "comment " + i);
+		}
+		checkPages(platform, wide);
+
+		//comments saved out of order, loaded by each loader of a serialized snapshot
+		Path directory = Path.of((args.length > 0) ? args[0] : "src/socialmedia/testdata");
+		String snapshot = directory.resolve("baseline-unordered.ser").toString();
+		String expected = Files.readString(directory.resolve("baseline-unordered.txt"), StandardCharsets.UTF_8);
+		SocialMedia loaded = new SocialMedia();
+		loaded.loadPlatform(snapshot);
+		SocialMedia loadedInParallel = new SocialMedia();
+		loadedInParallel.loadPlatform(snapshot, true);
+		for (SocialMedia unordered : new SocialMedia[] {loaded, loadedInParallel}) {
+			assert (unordered.showPostChildrenDetails(1) + "\n").equals(expected) : "comments not in the order made";
+			checkPages(unordered, 1);
+		}
+		ConcurrentSocialMedia concurrent = new ConcurrentSocialMedia();
+		concurrent.loadPlatform(snapshot);
+		assert (concurrent.showPostChildrenDetails(1) + "\n").equals(expected) : "comments not in the order made";
+		System.out.println("paged threads match the whole threads");
+	}
+
+	/**
+	 * Shows a thread with every page size and checks the pages add up to the whole thread.
+	 */
+	private static void checkPages(SocialMedia platform, int id) throws Exception {
+		String whole = platform.showPostChildrenDetails(id).toString();
+		for (int pageSize : PAGE_SIZES) {
+			StringBuilder pages = new StringBuilder();
+			String cursor = null;
+			do {
+				ThreadPage page = platform.showPostChildrenDetails(id, cursor, pageSize);
+				assert page.getPostId() == id : "page of another post";
+				pages.append(page.getText());
+				cursor = page.getNextCursor();
+			} while (cursor != null);
+			assert pages.toString().equals(whole) : "pages of " + pageSize + " posts of " + id + " do not match";
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package socialmedia;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A short program checking that recoverPlatform brings back the platform after a crash in the middle of a
+ * checkpoint (savePlatform on the snapshot of a durable platform), whichever of its renames reached the disk.
+ * Each crash is made by putting the files back the way the disk could have kept them. Run it with assertions
+ * enabled (java -ea).
+ *
+ * @version 1.0
+ */
+public class WriteAheadLogTestApp {
+
+	/**
+	 * Test method.
+	 *
+	 * @param args not used
+	 */
+	public static void main(String[] args) throws Exception {
+		Path directory = Files.createTempDirectory("write-ahead-log");
+		Path snapshot = directory.resolve("platform.ser");
+		Path log = directory.resolve("platform.log");
+		Path newSnapshot = directory.resolve("platform.ser.tmp");
+		Path newLog = directory.resolve("platform.log.new");
+		Path oldSnapshot = directory.resolve("old.ser");
+		Path oldLog = directory.resolve("old.log");
+		Path emptyLog = directory.resolve("empty.log");
+
+		//a first checkpoint, some calls in its log, then a second checkpoint and calls in the new log
+		SocialMedia platform = new SocialMedia();
+		platform.recoverPlatform(snapshot.toString(), log.toString(), true);
+		makeCalls(platform, 0);
+		platform.savePlatform(snapshot.toString());
+		makeCalls(platform, 1);
+		String beforeCheckpoint = show(platform);
+		Files.copy(snapshot, oldSnapshot);
+		Files.copy(log, oldLog);
+		platform.savePlatform(snapshot.toString());
+		String afterCheckpoint = show(platform);
+		Files.copy(log, emptyLog);
+		makeCalls(platform, 2);
+		String afterCalls = show(platform);
+		platform.closeWriteAheadLog();
+
+		//nothing lost
+		assert recover(snapshot, log).equals(afterCalls) : "platform not recovered";
+
+		//the rename of the log reached the disk, but not the rename of the snapshot
+		Files.move(snapshot, newSnapshot);
+		Files.copy(oldSnapshot, snapshot);
+		assert recover(snapshot, log).equals(afterCalls) : "platform not recovered after losing the snapshot rename";
+		assert !Files.exists(newSnapshot) : "temporary snapshot left behind";
+
+		//the rename of the snapshot reached the disk, but not the rename of the (still empty) log
+		Files.copy(emptyLog, newLog);
+		Files.copy(oldLog, log, StandardCopyOption.REPLACE_EXISTING);
+		assert recover(snapshot, log).equals(afterCheckpoint) : "platform not recovered after losing the log rename";
+		assert !Files.exists(newLog) : "temporary log left behind";
+
+		//neither rename reached the disk: the checkpoint never happened
+		Files.move(snapshot, newSnapshot);
+		Files.copy(oldSnapshot, snapshot);
+		Files.copy(emptyLog, newLog);
+		Files.copy(oldLog, log, StandardCopyOption.REPLACE_EXISTING);
+		assert recover(snapshot, log).equals(beforeCheckpoint) : "platform not recovered after losing both renames";
+		assert !Files.exists(newSnapshot) && !Files.exists(newLog) : "temporary files left behind";
+
+		for (Path file : new Path[] {snapshot, log, oldSnapshot, oldLog, emptyLog}) {
+			Files.deleteIfExists(file);
+		}
+		Files.delete(directory);
+		System.out.println("platform recovered after every crash of a checkpoint");
+	}
+
+	/**
+	 * Makes some calls of every kind the log records.
+	 */
+	private static void makeCalls(SocialMedia platform, int round) throws Exception {
+		String handle = "user" + round;
+		platform.createAccount(handle, "description " + round);
+		int post = platform.createPost(handle, "post " + round);
+		int comment = platform.commentPost(handle, post, "comment " + round);
+		platform.endorsePost(handle, comment);
+		platform.deletePost(platform.createPost(handle, "deleted " + round));
+		platform.updateAccountDescription(handle, "changed " + round);
+		if (round > 0) {
+			platform.changeAccountHandle("user" + (round - 1), "renamed" + round);
+		}
+	}
+
+	/**
+	 * Recovers a platform from the files and returns what it shows.
+	 */
+	private static String recover(Path snapshot, Path log) throws Exception {
+		SocialMedia platform = new SocialMedia();
+		platform.recoverPlatform(snapshot.toString(), log.toString(), true);
+		String shown = show(platform);
+		platform.closeWriteAheadLog();
+		return shown;
+	}
+
+	/**
+	 * Shows every account and every post of the platform.
+	 */
+	private static String show(SocialMedia platform) throws Exception {
+		StringBuilder sb = new StringBuilder(platform.getPlatformStats().toString()).append('\n');
+		for (String handle : new String[] {"user0", "user1", "user2", "renamed1", "renamed2"}) {
+			try {
+				sb.append(platform.showAccount(handle)).append('\n');
+			} catch (HandleNotRecognisedException e) {
+				sb.append(handle).append(" not in the system\n");
+			}
+		}
+		for (int id = 1; id <= 20; id++) {
+			try {
+				sb.append(platform.showPostChildrenDetails(id)).append('\n');
+			} catch (PostIDNotRecognisedException e) {
+				sb.append(id).append(" not in the system\n");
+			}
+		}
+		return sb.toString();
+	}
+}
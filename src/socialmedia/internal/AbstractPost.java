@@ -1,8 +1,11 @@
 package socialmedia.internal;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * A parent class for post information. 
@@ -11,8 +14,16 @@ import java.util.List;
  * 
  * The subclasses inherit the characteristics of a superclass
  * 
+ * The lists of comments and endorsements are guarded by the post's own lock, so different posts
+ * can be commented, endorsed and shown from different threads at the same time.
+ * Comments and endorsements are added to and removed from ChildLists, so removing one does not go through
+ * the whole list, however popular the post is.
+ * 
  */
 abstract public class AbstractPost implements Serializable {
+    //pinned so that snapshots stay loadable when methods are added
+    private static final long serialVersionUID = -4359509930829427452L;
+
     //transient = to mark member variable not to be serialized 
     //creating instance
     private int id;
@@ -22,6 +33,19 @@ abstract public class AbstractPost implements Serializable {
     private transient List<Comment> comments;
     private transient List<Endorsement> endorsements;
 
+    //slot of this comment or endorsement in the ChildList of its source post
+    transient int childSlot = -1;
+
+    //message shown by the endorsements of this post, with the handle it was made with
+    private transient EndorsementMessage endorsementMessage;
+
+    private record EndorsementMessage(String handle, String message) {
+    }
+
+    //each level of a comment chain is shown MARGIN_WIDTH spaces further right
+    private static final int MARGIN_WIDTH = 4;
+    private static final String SPACES = " ".repeat(64);
+
     /**
      * The constructor; AbstractPost(id, account)
      * (Note: account gives information about account's id, account's handler and account's description)
@@ -86,6 +110,22 @@ abstract public class AbstractPost implements Serializable {
      */
     public abstract String getMessage();
 
+    /**
+     * This method returns the message of an endorsement of this post: "EP@" + [handle] + ": " + [message].
+     * The message is made once and made again only when the handle of the account changes.
+     * 
+     * @return message of the endorsements of this post
+     */
+    public String getEndorsementMessage() {
+        String handle = getHandle();
+        EndorsementMessage cached = endorsementMessage; //one read, so handle and message always match
+        if ((cached == null) || !Objects.equals(cached.handle(), handle)) {
+            cached = new EndorsementMessage(handle, "EP@" + handle + ": " + getMessage());
+            endorsementMessage = cached;
+        }
+        return cached.message();
+    }
+
     /**
      * This method returns list of comments received by that post
      * @return list of comments
@@ -106,9 +146,11 @@ abstract public class AbstractPost implements Serializable {
      * This method will add comment post object into the list of comments received by that post
      * @param comment comment post ; Comment(post id, account, reference post, message)
      */
-    public void addComment(Comment comment) {
+    public synchronized void addComment(Comment comment) {
         if (comments == null) {
-            comments = new ArrayList<>();
+            comments = new ChildList<>();
+        } else if (!(comments instanceof ChildList)) {
+            comments = new ChildList<>(comments); //a list set by setComments or setEndorsements
         }
         comments.add(comment);
     }
@@ -117,8 +159,11 @@ abstract public class AbstractPost implements Serializable {
      * This method will remove comment post object from the list of comments received by that post
      * @param comment comment post; Comment(post id, account, reference post, message)
      */
-    public void removeComment(Comment comment) {
+    public synchronized void removeComment(Comment comment) {
         if (comments != null) {
+            if (!(comments instanceof ChildList)) {
+                comments = new ChildList<>(comments);
+            }
             comments.remove(comment);
         }
     }
@@ -127,7 +172,7 @@ abstract public class AbstractPost implements Serializable {
      * This method returns the total number of comments received by that post
      * @return total number of comments received
      */
-    public int getCommentsCount() {
+    public synchronized int getCommentsCount() {
         return (comments == null) ? 0 : comments.size();
     }
 
@@ -151,9 +196,11 @@ abstract public class AbstractPost implements Serializable {
      * This method will add endorsement post object into the list of endorsements received by that post
      * @param comment endorsement post ; Endorsement(post id, account, reference post, message)
      */
-    public void addEndorsement(Endorsement endorsement) {
+    public synchronized void addEndorsement(Endorsement endorsement) {
         if (endorsements == null) {
-            endorsements = new ArrayList<>();
+            endorsements = new ChildList<>();
+        } else if (!(endorsements instanceof ChildList)) {
+            endorsements = new ChildList<>(endorsements); //a list set by setComments or setEndorsements
         }
         endorsements.add(endorsement);
     }
@@ -162,8 +209,11 @@ abstract public class AbstractPost implements Serializable {
      * This method will remove endorsement post object from the list of endorsements received by that post
      * @param comment endorsement post; Endorsement(post id, account, reference post, message)
      */
-    public void removeEndorsement(Endorsement endorsement) {
+    public synchronized void removeEndorsement(Endorsement endorsement) {
         if (endorsements != null) {
+            if (!(endorsements instanceof ChildList)) {
+                endorsements = new ChildList<>(endorsements);
+            }
             endorsements.remove(endorsement);
         }
     }
@@ -172,7 +222,7 @@ abstract public class AbstractPost implements Serializable {
      * This method returns the total number of endorsements received by that post
      * @return total number of endorsements received
      */
-    public int getEndorsementsCount() {
+    public synchronized int getEndorsementsCount() {
         return (endorsements == null) ? 0 : endorsements.size();
     }
 
@@ -202,43 +252,91 @@ abstract public class AbstractPost implements Serializable {
      * @return post information 
      */
     public StringBuilder showPostDetails(StringBuilder sb, boolean withChildren) {
-        return showPostInternal(sb, "", withChildren);
-    }
-
-    protected StringBuilder showPostInternal(StringBuilder sb, String margin, boolean withChildren) {
-        StringBuilder res = showPostHeader(sb, margin); 
-        //if the children is true and the post has more than 0 comments,
-        if (withChildren && (getCommentsCount() > 0)) {
-            res = showTreeRootLine(res, margin); //|
-            String new_margin = getTreeMargin(margin); // |>
-            if (comments != null) {  //if the post has comments basically
-                for (Comment comment : comments) {
-                    res = showTreeArrow(res, margin); //|>
-                    res = comment.showPostInternal(res, new_margin, withChildren); //show all the comments on that post
+        try {
+            showPostDetails((Appendable) sb, withChildren);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); //a StringBuilder does not throw IOException
+        }
+        return sb;
+    }
+
+    /**
+     * This method writes the post in the same format as showPostDetails(sb, withChildren), a piece at a time,
+     * so a long comment chain can go straight to a Writer without being held in memory.
+     * No margin string is made: margins are written from one shared string of spaces.
+     *
+     * @param out where the post information goes (e.g. a Writer or a StringBuilder)
+     * @param withChildren true -> show all the comment chains || false -> show the individual post only
+     * @throws IOException if out cannot be written
+     */
+    public void showPostDetails(Appendable out, boolean withChildren) throws IOException {
+        int maxDepth = withChildren ? CommentTreeWalker.UNLIMITED : 0;
+        showPostDetails(out, maxDepth, CommentTreeWalker.UNLIMITED, null);
+    }
+
+    /**
+     * This method writes part of the post and its comment chains in the format of showPostDetails.
+     * The chains are walked without recursion, so a chain of any depth can be shown.
+     *
+     * @param out where the post information goes
+     * @param maxDepth deepest comments shown (0 -> the individual post only), or CommentTreeWalker.UNLIMITED
+     * @param maxNodes most posts shown, or CommentTreeWalker.UNLIMITED
+     * @param continuation null to start from this post || the continuation returned by the last call
+     * @return the continuation to show the next posts, or null if every post was shown
+     * @throws IOException if out cannot be written
+     */
+    public int[] showPostDetails(Appendable out, int maxDepth, int maxNodes, int[] continuation) throws IOException {
+        CommentTreeWalker walker = new CommentTreeWalker(maxDepth, maxNodes);
+        return walker.walk(this, continuation, new CommentTreeWalker.Visitor<IOException>() {
+            @Override
+            public void visit(AbstractPost post, int depth) throws IOException {
+                if (depth > 0) {
+                    post.showTreeArrow(out, (depth - 1) * MARGIN_WIDTH); //|>
                 }
+                post.showPostHeader(out, depth * MARGIN_WIDTH);
             }
-        }
 
-        return res;
+            @Override
+            public void enterComments(AbstractPost post, int depth) throws IOException {
+                post.showTreeRootLine(out, depth * MARGIN_WIDTH); //|
+            }
+        });
     }
 
-    protected StringBuilder showTreeRootLine(StringBuilder sb, String margin) {
-        return sb.append(margin).append("|\n");
+    protected void showTreeRootLine(Appendable out, int margin) throws IOException {
+        showMargin(out, margin);
+        out.append("|\n");
     }
 
-    protected StringBuilder showTreeArrow(StringBuilder sb, String margin) {
-        return sb.append(margin).append("| > ");
+    protected void showTreeArrow(Appendable out, int margin) throws IOException {
+        showMargin(out, margin);
+        out.append("| > ");
     }
 
-    protected String getTreeMargin(String margin) {
-        return margin + "    ";
+    protected void showPostHeader(Appendable out, int margin) throws IOException {
+        out.append("ID: ").append(Integer.toString(id)).append('\n');
+        showMargin(out, margin);
+        out.append("Account: ").append(getHandle()).append('\n');
+        showMargin(out, margin);
+        out.append("No. endorsements: ").append(Integer.toString(getEndorsementsCount()))
+                .append(" | No. comments: ").append(Integer.toString(getCommentsCount())).append('\n');
     }
 
-    protected StringBuilder showPostHeader(StringBuilder sb, String margin) {
-        return sb.append("ID: ").append(id).append("\n")
-                .append(margin).append("Account: ").append(getHandle()).append("\n")
-                .append(margin).append("No. endorsements: ").append(getEndorsementsCount())
-                .append(" | No. comments: ").append(getCommentsCount()).append("\n");
+    /**
+     * This method writes a margin of spaces
+     * @param out where the margin goes
+     * @param margin number of spaces
+     */
+    protected static void showMargin(Appendable out, int margin) throws IOException {
+        while (margin > 0) {
+            int n = Math.min(margin, SPACES.length());
+            if (out instanceof Writer writer) {
+                writer.write(SPACES, 0, n); //Writer.append would copy the spaces into a new string
+            } else {
+                out.append(SPACES, 0, n);
+            }
+            margin -= n;
+        }
     }
 
 }
\ No newline at end of file
@@ -1,16 +1,26 @@
 package socialmedia.internal;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /** 
  * A class that contain information about the account.
  */
 public class Account implements Serializable{
+    //pinned so that snapshots stay loadable when methods are added
+    private static final long serialVersionUID = 6146797891068068047L;
+
     //create instance
     private int id;
     private String handle;
     private String description;
 
+    //transient = rebuilt by the platform when it is loaded
+    private transient Set<AbstractPost> posts;
+
     /**
      * The constructor; Account(id, handle, description)
      * 
@@ -79,6 +89,48 @@ public class Account implements Serializable{
         this.description = description;
     }
 
+    /**
+     * This method returns the posts (original, comments and endorsements) made by this account
+     * in the order they were added
+     * 
+     * @return posts made by this account
+     */
+    public Collection<AbstractPost> getPosts() {
+        return (posts == null) ? Collections.emptySet() : posts;
+    }
+
+    /**
+     * This method will add a post object into the posts made by this account
+     * 
+     * @param post post made by this account ; Post, Comment or Endorsement
+     */
+    public void addPost(AbstractPost post) {
+        if (posts == null) {
+            posts = new LinkedHashSet<>();
+        }
+        posts.add(post);
+    }
+
+    /**
+     * This method will remove a post object from the posts made by this account
+     * 
+     * @param post post made by this account ; Post, Comment or Endorsement
+     */
+    public void removePost(AbstractPost post) {
+        if (posts != null) {
+            posts.remove(post);
+        }
+    }
+
+    /**
+     * This method returns the total number of posts made by this account
+     * 
+     * @return total number of posts (including endorsements and comments)
+     */
+    public int getPostsCount() {
+        return (posts == null) ? 0 : posts.size();
+    }
+
     /**
      * This method will show account in this format:
      * ID:[account ID]
@@ -0,0 +1,194 @@
+package socialmedia.internal;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A list of the comments or endorsements of a post, in the order they were made, that can remove any of them
+ * in constant time.
+ *
+ * Each child remembers its slot in the list of its source post (a comment or endorsement replies to one post
+ * only, so it is in one list only). Removing a child empties its slot instead of shifting the ones after it;
+ * the empty slots are squeezed out once they outnumber the children. get(index) leaves the slots where they are
+ * (an iterator may be walking them): it looks the child up in an index of the used slots, built by the first
+ * get after a change and dropped by the next change.
+ *
+ * @param <T> Comment or Endorsement
+ */
+public class ChildList<T extends AbstractPost> extends AbstractList<T> {
+    private static final int MIN_CAPACITY = 4;
+
+    //creating instance
+    private AbstractPost[] slots;
+    private int end; //slots used so far, empty ones included
+    private int size;
+    private int[] liveSlots; //slot of each child, in order (null -> to be built by get)
+
+    /**
+     * The constructor; ChildList() creates an empty list
+     */
+    public ChildList() {
+        slots = new AbstractPost[MIN_CAPACITY];
+    }
+
+    /**
+     * The constructor; ChildList(children) creates a list with the children in the same order
+     *
+     * @param children comments or endorsements of a post
+     */
+    public ChildList(Collection<? extends T> children) {
+        slots = new AbstractPost[Math.max(MIN_CAPACITY, children.size())];
+        for (T child : children) {
+            add(child);
+        }
+    }
+
+    @Override
+    public boolean add(T child) {
+        if (end == slots.length) {
+            if (end - size >= size) {
+                compact();
+            } else {
+                slots = Arrays.copyOf(slots, end * 2);
+            }
+        }
+        child.childSlot = end;
+        slots[end++] = child;
+        size++;
+        liveSlots = null;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof AbstractPost child)) {
+            return false;
+        }
+        int slot = child.childSlot;
+        if ((slot < 0) || (slot >= end) || (slots[slot] != child)) {
+            return false;
+        }
+        slots[slot] = null;
+        child.childSlot = -1;
+        size--;
+        liveSlots = null;
+        modCount++;
+        if ((end - size > size) && (end > MIN_CAPACITY)) {
+            compact();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof AbstractPost child)) {
+            return false;
+        }
+        int slot = child.childSlot;
+        return (slot >= 0) && (slot < end) && (slots[slot] == child);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        if (end == size) { //no empty slot
+            return (T) slots[index];
+        }
+        if (liveSlots == null) {
+            int[] built = new int[size];
+            int i = 0;
+            for (int slot = 0; slot < end; slot++) {
+                if (slots[slot] != null) {
+                    built[i++] = slot;
+                }
+            }
+            liveSlots = built;
+        }
+        return (T) slots[liveSlots[index]];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < end; slot++) {
+            if (slots[slot] != null) {
+                slots[slot].childSlot = -1;
+                slots[slot] = null;
+            }
+        }
+        end = 0;
+        size = 0;
+        liveSlots = null;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private final int expectedModCount = modCount;
+            private int slot = nextSlot(0);
+
+            @Override
+            public boolean hasNext() {
+                return slot < end;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (slot >= end) {
+                    throw new NoSuchElementException();
+                }
+                T child = (T) slots[slot];
+                slot = nextSlot(slot + 1);
+                return child;
+            }
+        };
+    }
+
+    /**
+     * This method returns the first slot from a given one that holds a child
+     */
+    private int nextSlot(int slot) {
+        while ((slot < end) && (slots[slot] == null)) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /**
+     * This method moves the children to the start of the list, in the same order, and gives back the empty slots
+     */
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < end; from++) {
+            AbstractPost child = slots[from];
+            if (child != null) {
+                child.childSlot = to;
+                slots[to++] = child;
+            }
+        }
+        Arrays.fill(slots, to, end, null);
+        end = to;
+        liveSlots = null;
+        modCount++;
+        if (slots.length > Math.max(MIN_CAPACITY, 2 * size)) {
+            slots = Arrays.copyOf(slots, Math.max(MIN_CAPACITY, 2 * size));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package socialmedia.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A short program checking that a ChildList keeps its children in the order they were added while any of them
+ * is removed, compared with an ArrayList doing the same. Run it with assertions enabled (java -ea).
+ */
+public class ChildListTestApp {
+    private static final int STEPS = 200000;
+
+    /**
+     * Test method.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        Random random = new Random(14);
+        Account account = new Account(1, "user");
+        Post post = new Post(1, account, "post");
+        ChildList<Comment> list = new ChildList<>();
+        List<Comment> expected = new ArrayList<>();
+        int nextId = 2;
+        for (int step = 0; step < STEPS; step++) {
+            int kind = random.nextInt(100);
+            if ((kind < 55) || expected.isEmpty()) {
+                Comment comment = new Comment(nextId++, account, post, "comment");
+                list.add(comment);
+                expected.add(comment);
+            } else if (kind < 98) {
+                //removes from anywhere, the front of the list as often as the back
+                Comment comment = expected.remove(random.nextInt(expected.size()));
+                assert list.remove(comment) : "child not removed";
+                assert !list.contains(comment) : "removed child still in the list";
+                assert !list.remove(comment) : "child removed twice";
+            } else {
+                checkSame(list, expected);
+            }
+        }
+        checkSame(list, expected);
+
+        //get(index) indexes the used slots: the order must not change, nor the removals after it
+        for (int i = expected.size() - 1; i >= 0; i -= 2) {
+            assert list.get(i) == expected.get(i) : "get(" + i + ") out of order";
+            assert list.remove(expected.remove(i)) : "child not removed after get";
+        }
+        checkSame(list, expected);
+
+        //get(index) is a read: it must not disturb an iterator open on the list, even with empty slots in it
+        assert list.remove(expected.remove(expected.size() / 2)) : "child not removed before iterating";
+        int visited = 0;
+        for (Comment comment : list) {
+            assert comment == expected.get(visited) : "iterator out of order after get";
+            assert list.get(0) == expected.get(0) && list.get(visited) == comment : "get out of order while iterating";
+            visited++;
+        }
+        assert visited == expected.size() : "iterator stopped early";
+
+        //a child is in the list of its own source post only
+        Post other = new Post(2, account, "other");
+        ChildList<Comment> otherList = new ChildList<>();
+        Comment stranger = new Comment(nextId++, account, other, "elsewhere");
+        otherList.add(stranger);
+        assert !list.contains(stranger) : "child of another post found";
+        assert !list.remove(stranger) && otherList.contains(stranger) : "child of another post removed";
+
+        list.clear();
+        expected.clear();
+        checkSame(list, expected);
+
+        //the lists a post keeps: a list set from a snapshot is turned into a ChildList on the first change
+        Post source = new Post(3, account, "source");
+        List<Comment> loaded = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            loaded.add(new Comment(nextId++, account, source, "loaded " + i));
+        }
+        source.setComments(new ArrayList<>(loaded));
+        source.removeComment(loaded.remove(3));
+        Comment added = new Comment(nextId++, account, source, "added");
+        source.addComment(added);
+        loaded.add(added);
+        source.removeComment(loaded.remove(0));
+        checkSame(source.getComments(), loaded);
+        assert source.getCommentsCount() == loaded.size() : "comment count of the post does not match";
+        System.out.println("ChildList keeps the order of its children");
+    }
+
+    private static void checkSame(List<Comment> list, List<Comment> expected) {
+        assert list.size() == expected.size() : "size " + list.size() + " instead of " + expected.size();
+        Iterator<Comment> iterator = list.iterator();
+        for (Comment comment : expected) {
+            assert iterator.hasNext() && (iterator.next() == comment) : "children out of order";
+            assert list.contains(comment) : "child missing";
+        }
+        assert !iterator.hasNext() : "more children than added";
+    }
+}
@@ -1,10 +1,15 @@
 package socialmedia.internal;
 
+import java.io.IOException;
+
 /**
  * A class that contain information about the comment post.
  * It extends an abstract class called AbstractRepost. 
  */
 public class Comment extends AbstractRepost {
+    //pinned so that snapshots stay loadable when methods are added
+    private static final long serialVersionUID = -5379283744512988090L;
+
     //creating an instance
     private String message;
 
@@ -27,8 +32,9 @@ public class Comment extends AbstractRepost {
     }
 
     @Override
-    protected StringBuilder showPostHeader(StringBuilder sb, String margin) {
-        return super.showPostHeader(sb, margin)
-                .append(margin).append(getMessage()).append("\n");
+    protected void showPostHeader(Appendable out, int margin) throws IOException {
+        super.showPostHeader(out, margin);
+        showMargin(out, margin);
+        out.append(getMessage()).append('\n');
     }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package socialmedia.internal;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * A class that goes through a post and its comment chains in the order showPostChildrenDetails shows them
+ * (a comment, then all the comments below it, then the next comment), without recursion.
+ *
+ * The chains are kept on an explicit stack, so a chain of replies thousands deep cannot overflow the call stack.
+ * A walk can stop at a maximum depth (the comments below it are not visited) and after a maximum number of posts.
+ * When it stops early it returns a continuation: the ids of the comments from the root down to the next comment
+ * to visit. Giving that continuation back to walk carries on from where the last walk stopped.
+ *
+ * The comments of a post are copied under the post's lock before they are visited, so a walk does not
+ * hold any lock while the visitor runs. Only the window of comments the walk can still visit is copied: the
+ * comments of a post are in the order they were made, so their ids increase, and the first comment of a
+ * window is found by binary search on its id. When a window runs out, the next one starts after the id of its
+ * last comment, so comments deleted in the meantime are skipped and comments made since are visited.
+ */
+public class CommentTreeWalker {
+    //no limit on the depth or on the number of posts
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final Comment[] NO_COMMENTS = new Comment[0];
+
+    //creating instance
+    private final int maxDepth;
+    private final int maxNodes;
+
+    /**
+     * What a walk does with the posts it goes through
+     *
+     * @param <E> exception the visitor can throw
+     */
+    public interface Visitor<E extends Exception> {
+        /**
+         * This method is called for every post of the walk
+         * @param post the root post or one of the comments of its chains
+         * @param depth 0 for the root, 1 for its comments, ...
+         */
+        void visit(AbstractPost post, int depth) throws E;
+
+        /**
+         * This method is called after visit when the comments of the post are visited next
+         * @param post post with comments
+         * @param depth depth of the post
+         */
+        default void enterComments(AbstractPost post, int depth) throws E {
+        }
+    }
+
+    /**
+     * The constructor; CommentTreeWalker(maxDepth, maxNodes)
+     *
+     * @param maxDepth deepest comments visited (0 -> the root only), or UNLIMITED
+     * @param maxNodes most posts visited by one walk (at least 1), or UNLIMITED
+     */
+    public CommentTreeWalker(int maxDepth, int maxNodes) {
+        if ((maxDepth < 0) || (maxNodes < 1)) {
+            throw new IllegalArgumentException("maxDepth must be at least 0 and maxNodes at least 1");
+        }
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * This method walks the post and its comment chains from the start
+     *
+     * @param root post to walk from
+     * @param visitor what is done with each post
+     * @return the continuation, or null if every post within maxDepth was visited
+     */
+    public <E extends Exception> int[] walk(AbstractPost root, Visitor<E> visitor) throws E {
+        return walk(root, null, visitor);
+    }
+
+    /**
+     * This method walks the post and its comment chains, carrying on from a continuation.
+     * The root is only visited when there is no continuation. If a comment of the continuation was deleted
+     * in the meantime, the walk carries on from the next comment of its source post.
+     *
+     * @param root post to walk from
+     * @param continuation continuation returned by the last walk of this root, or null to start from the root
+     * @param visitor what is done with each post
+     * @return the continuation, or null if every post within maxDepth was visited
+     */
+    public <E extends Exception> int[] walk(AbstractPost root, int[] continuation, Visitor<E> visitor) throws E {
+        ArrayDeque<Frame> stack = new ArrayDeque<>();
+        int visited = 0;
+        if (continuation == null) {
+            visitor.visit(root, 0);
+            visited++;
+            expand(root, 0, maxNodes - visited, stack, visitor);
+        } else {
+            resume(root, continuation, stack);
+        }
+
+        while (true) {
+            Frame frame = stack.peek();
+            while ((frame != null) && !frame.hasNext(maxNodes - visited)) {
+                stack.pop(); //every comment of the post was visited
+                frame = stack.peek();
+            }
+            if (frame == null) {
+                return null;
+            }
+            if (visited == maxNodes) {
+                return continuation(stack);
+            }
+            Comment comment = frame.comments[frame.next++];
+            int depth = frame.depth + 1;
+            visitor.visit(comment, depth);
+            visited++;
+            expand(comment, depth, maxNodes - visited, stack, visitor);
+        }
+    }
+
+    /**
+     * A post whose comments are being visited
+     */
+    private static final class Frame {
+        private final AbstractPost post;
+        private final int depth;
+        private Comment[] comments; //window of the comments of the post
+        private boolean more; //the post had comments after the window when it was copied
+        private int next; //index in the window of the next comment to visit
+
+        private Frame(AbstractPost post, int depth, int fromId, int budget) {
+            this.post = post;
+            this.depth = depth;
+            copy(fromId, budget);
+        }
+
+        /**
+         * This method returns whether a comment of the post is left to visit, copying the next window if needed
+         * @param budget number of posts the walk can still visit
+         */
+        private boolean hasNext(int budget) {
+            if ((next == comments.length) && more) {
+                copy(comments[comments.length - 1].getId() + 1, budget);
+            }
+            return next < comments.length;
+        }
+
+        /**
+         * This method copies the comments of the post from the first one whose id is at least fromId
+         * @param budget number of posts the walk can still visit; at least one comment is copied
+         */
+        private void copy(int fromId, int budget) {
+            synchronized (post) {
+                List<Comment> all = post.getComments();
+                int from = (all == null) ? 0 : seek(all, fromId);
+                int to = (all == null) ? 0 : from + Math.min(all.size() - from, Math.max(1, budget));
+                comments = (from == to) ? NO_COMMENTS : all.subList(from, to).toArray(NO_COMMENTS);
+                more = (all != null) && (to < all.size());
+                next = 0;
+            }
+        }
+    }
+
+    private <E extends Exception> void expand(AbstractPost post, int depth, int budget, ArrayDeque<Frame> stack,
+            Visitor<E> visitor) throws E {
+        if (depth >= maxDepth) {
+            return;
+        }
+        Frame frame = new Frame(post, depth, 0, budget);
+        if (frame.comments.length > 0) {
+            visitor.enterComments(post, depth);
+            stack.push(frame);
+        }
+    }
+
+    /**
+     * This method puts back on the stack the posts from the root down to the next comment to visit
+     */
+    private void resume(AbstractPost root, int[] continuation, ArrayDeque<Frame> stack) {
+        AbstractPost post = root;
+        for (int depth = 0; (depth < continuation.length) && (depth < maxDepth); depth++) {
+            int id = continuation[depth];
+            //the window starts at the comment, or at the first comment made after it if it was deleted
+            Frame frame = new Frame(post, depth, id, maxNodes);
+            stack.push(frame);
+            if ((frame.comments.length == 0) || (frame.comments[0].getId() != id)) {
+                return; //the comment was deleted: carry on from the first comment made after it
+            }
+            if (depth < continuation.length - 1) {
+                frame.next = 1; //the comment whose chain is being visited
+                post = frame.comments[0];
+            }
+        }
+    }
+
+    /**
+     * This method returns the ids of the comments from the root down to the next comment to visit
+     */
+    private static int[] continuation(ArrayDeque<Frame> stack) {
+        int[] ids = new int[stack.size()];
+        int depth = ids.length - 1;
+        boolean top = true;
+        for (Frame frame : stack) { //from the top of the stack down to the root
+            ids[depth--] = frame.comments[top ? frame.next : frame.next - 1].getId();
+            top = false;
+        }
+        return ids;
+    }
+
+    /**
+     * This method returns the index of the first comment whose id is at least a given id, by binary search
+     * (the get of a ChildList indexes its used slots once, then takes constant time)
+     */
+    private static int seek(List<Comment> comments, int id) {
+        int low = 0;
+        int high = comments.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comments.get(middle).getId() < id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
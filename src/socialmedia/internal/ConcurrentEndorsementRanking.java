@@ -0,0 +1,118 @@
+package socialmedia.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * A class that keeps posts or accounts ranked by the number of endorsements they received, like
+ * EndorsementRanking, but that many threads can update at the same time without a shared lock.
+ *
+ * The count of each id is changed atomically in a concurrent map, so two threads only wait for each other
+ * when they change the same id. The ranking is a concurrent skip list of the same keys as EndorsementRanking.
+ * While the count of an id changes, its new key is added before its old key is removed, so a reader never
+ * misses a ranked id; it can see the id once with its old count and once with its new count, and top()
+ * only returns it once.
+ *
+ * Only ids with at least one endorsement are ranked. Ties are broken by the lowest id.
+ */
+public class ConcurrentEndorsementRanking {
+    //creating instance
+    private final ConcurrentHashMap<Integer, Integer> counts = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Long> ranking = new ConcurrentSkipListSet<>();
+
+    /**
+     * This method changes the number of endorsements of an id, adding it to the ranking if needed
+     * @param id post's or account's id
+     * @param delta number of endorsements added (positive) or removed (negative)
+     */
+    public void adjust(int id, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        counts.compute(id, (key, old) -> {
+            int count = ((old == null) ? 0 : old) + delta;
+            if (count > 0) {
+                ranking.add(EndorsementRanking.key(count, id));
+            }
+            if (old != null) {
+                ranking.remove(EndorsementRanking.key(old, id));
+            }
+            return (count > 0) ? count : null;
+        });
+    }
+
+    /**
+     * This method removes an id from the ranking
+     * @param id post's or account's id
+     * @return the number of endorsements the id had (0 if it was not ranked)
+     */
+    public int remove(int id) {
+        int[] removed = new int[1];
+        counts.computeIfPresent(id, (key, old) -> {
+            ranking.remove(EndorsementRanking.key(old, id));
+            removed[0] = old;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * This method returns the number of endorsements of an id
+     * @param id post's or account's id
+     * @return number of endorsements (0 if it is not ranked)
+     */
+    public int getCount(int id) {
+        Integer count = counts.get(id);
+        return (count == null) ? 0 : count;
+    }
+
+    /**
+     * This method returns the number of endorsements of every ranked id
+     * @return read-only map of (id, endorsements), which changes with the ranking
+     */
+    public Map<Integer, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * This method returns the id with the most endorsements
+     * @return the id with the most endorsements, or 0 if no id has any endorsement
+     */
+    public int first() {
+        Long first = ranking.ceiling(Long.MIN_VALUE); //null when empty, where first() would throw
+        return (first == null) ? 0 : (int) (long) first;
+    }
+
+    /**
+     * This method returns the ids with the most endorsements, most endorsed first
+     * @param n maximum number of ids to return
+     * @return up to n endorsed ids ordered by endorsements (highest first) then by id (lowest first)
+     */
+    public int[] top(int n) {
+        int[] ids = new int[Math.max(0, n)];
+        Set<Integer> seen = new HashSet<>();
+        int i = 0;
+        Iterator<Long> it = ranking.iterator();
+        while ((i < ids.length) && it.hasNext()) {
+            int id = (int) (long) it.next();
+            if (seen.add(id)) { //an id whose count is changing can be met twice
+                ids[i++] = id;
+            }
+        }
+        return (i == ids.length) ? ids : Arrays.copyOf(ids, i);
+    }
+
+    /**
+     * This method removes every id from the ranking. It must not run at the same time as adjust() or remove().
+     */
+    public void clear() {
+        counts.clear();
+        ranking.clear();
+    }
+}
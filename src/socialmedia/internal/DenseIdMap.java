@@ -0,0 +1,300 @@
+package socialmedia.internal;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A map from ids to accounts or posts that keeps its values in arrays indexed by the id, instead of boxing
+ * every id into an Integer key like a HashMap does.
+ *
+ * The ids of the platform are handed out one after the other (offset + stride, offset + 2 * stride, ...),
+ * so the slot of an id is (id - offset) / stride and the arrays have no gaps apart from the removed ids.
+ * A removed id leaves a tombstone (a null slot). The slots are cut into pages, and a page whose ids were
+ * all removed is given back, so a platform that deleted most of its old posts does not keep their slots.
+ * Values are iterated in id order.
+ *
+ * @param <V> type of the values
+ */
+public class DenseIdMap<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    //creating instance
+    private final int offset;
+    private final int stride;
+    private Object[][] pages = new Object[0][];
+    private int[] pageCounts = new int[0]; //live values of each page
+    private int size;
+
+    /**
+     * The constructor; DenseIdMap() maps the ids 1, 2, 3, ...
+     */
+    public DenseIdMap() {
+        this(0, 1);
+    }
+
+    /**
+     * The constructor; DenseIdMap(offset, stride) maps the ids offset + stride, offset + 2 * stride, ...
+     *
+     * @param offset remainder of every id divided by stride
+     * @param stride gap between two consecutive ids
+     */
+    public DenseIdMap(int offset, int stride) {
+        if (stride <= 0) {
+            throw new IllegalArgumentException("stride must be positive");
+        }
+        this.offset = offset;
+        this.stride = stride;
+    }
+
+    /**
+     * This method returns the value of an id
+     * @param id account's or post's id
+     * @return the value, or null if the id is not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int id) {
+        long slot = slot(id);
+        if (slot < 0) {
+            return null;
+        }
+        int page = (int) (slot >>> PAGE_BITS);
+        if ((page >= pages.length) || (pages[page] == null)) {
+            return null;
+        }
+        return (V) pages[page][(int) slot & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * This method returns whether an id is in the map
+     * @param id account's or post's id
+     * @return true if the id has a value
+     */
+    public boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * This method sets the value of an id
+     * @param id account's or post's id (offset + k * stride with k at least 1)
+     * @param value the value (not null)
+     * @return the previous value, or null if the id was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int id, V value) {
+        if (value == null) {
+            throw new NullPointerException("value is null");
+        }
+        long slot = slot(id);
+        if (slot < 0) {
+            throw new IllegalArgumentException("id " + id + " is not offset + k * stride");
+        }
+        int page = (int) (slot >>> PAGE_BITS);
+        if (page >= pages.length) {
+            int length = Math.max(page + 1, pages.length * 2);
+            pages = Arrays.copyOf(pages, length);
+            pageCounts = Arrays.copyOf(pageCounts, length);
+        }
+        if (pages[page] == null) {
+            pages[page] = new Object[PAGE_SIZE];
+        }
+        int index = (int) slot & (PAGE_SIZE - 1);
+        V previous = (V) pages[page][index];
+        pages[page][index] = value;
+        if (previous == null) {
+            pageCounts[page]++;
+            size++;
+        }
+        return previous;
+    }
+
+    /**
+     * This method makes room for the ids up to a given one, so that putting them does not grow the directory
+     * of pages again and again
+     * @param id largest id that will be put
+     */
+    public void ensureCapacity(int id) {
+        long slot = slot(id);
+        if (slot < 0) {
+            return;
+        }
+        int page = (int) (slot >>> PAGE_BITS);
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, page + 1);
+            pageCounts = Arrays.copyOf(pageCounts, page + 1);
+        }
+    }
+
+    /**
+     * This method removes an id from the map, leaving a tombstone in its slot
+     * @param id account's or post's id
+     * @return the removed value, or null if the id was not in the map
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int id) {
+        long slot = slot(id);
+        if (slot < 0) {
+            return null;
+        }
+        int page = (int) (slot >>> PAGE_BITS);
+        if ((page >= pages.length) || (pages[page] == null)) {
+            return null;
+        }
+        int index = (int) slot & (PAGE_SIZE - 1);
+        V previous = (V) pages[page][index];
+        if (previous != null) {
+            pages[page][index] = null;
+            size--;
+            if (--pageCounts[page] == 0) {
+                pages[page] = null; //every id of the page was removed
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * This method returns the number of ids in the map
+     * @return number of values
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * This method returns whether the map is empty
+     * @return true if there are no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * This method removes every id from the map
+     */
+    public void clear() {
+        pages = new Object[0][];
+        pageCounts = new int[0];
+        size = 0;
+    }
+
+    /**
+     * This method returns the ids of the map
+     * @return ids in increasing order
+     */
+    public int[] keys() {
+        int[] keys = new int[size];
+        int i = 0;
+        for (int page = 0; page < pages.length; page++) {
+            Object[] values = pages[page];
+            if (values == null) {
+                continue;
+            }
+            for (int index = 0; index < PAGE_SIZE; index++) {
+                if (values[index] != null) {
+                    keys[i++] = id(((long) page << PAGE_BITS) | index);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * This method returns the lowest id of the map. The pages given back are skipped whole, so the ids
+     * removed before the lowest one cost little.
+     * @return the lowest id, or 0 if the map is empty
+     */
+    public int firstKey() {
+        for (int page = 0; page < pages.length; page++) {
+            Object[] values = pages[page];
+            if (values == null) {
+                continue;
+            }
+            for (int index = 0; index < PAGE_SIZE; index++) {
+                if (values[index] != null) {
+                    return id(((long) page << PAGE_BITS) | index);
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * This method returns a view of the values of the map; it changes with the map
+     * @return values in increasing order of id
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private long slot(int id) {
+        long distance = (long) id - offset;
+        if ((distance <= 0) || (distance % stride != 0)) {
+            return -1;
+        }
+        return distance / stride - 1;
+    }
+
+    private int id(long slot) {
+        return (int) (offset + (slot + 1) * stride);
+    }
+
+    /**
+     * An iterator over the values, skipping the tombstones and the pages that were given back
+     */
+    private class ValueIterator implements Iterator<V> {
+        private int page;
+        private int index = -1;
+
+        ValueIterator() {
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return page < pages.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) pages[page][index];
+            advance();
+            return value;
+        }
+
+        private void advance() {
+            index++;
+            while (page < pages.length) {
+                Object[] values = pages[page];
+                if (values != null) {
+                    while ((index < PAGE_SIZE) && (values[index] == null)) {
+                        index++;
+                    }
+                    if (index < PAGE_SIZE) {
+                        return;
+                    }
+                }
+                page++;
+                index = 0;
+            }
+        }
+    }
+}
@@ -1,35 +1,44 @@
 package socialmedia.internal;
 
+import java.io.IOException;
+
 /**
  * A class that contain information about the endorsement post.
  * It extends an abstract class called AbstractRepost. 
+ * 
+ * An endorsement does not keep a copy of its message: the message is made from the endorsed post whenever
+ * it is asked for, so it always shows the current handle of the endorsed account.
  */
 public class Endorsement extends AbstractRepost {
-    
-    //creating an instance
-    private String message;
+    //same as before the message stopped being stored, so older snapshots can still be loaded
+    private static final long serialVersionUID = 2550177445219704541L;
 
     /**
-     * The constructor; Endorsement(id, account, sourcePost, message)
+     * The constructor; Endorsement(id, account, sourcePost)
      * 
      * @param id post's id
      * @param account account that post this endorsement
      * @param sourcePost the reference post that is being endorsed
-     * @param message the message generated when endorsing a post: "EP@" + [endorsed account handle] + ": " + [endorsed message]
      */
-    public Endorsement(int id, Account account, AbstractPost sourcePost, String message) {
+    public Endorsement(int id, Account account, AbstractPost sourcePost) {
         super(id, account, sourcePost);
-        this.message = message;
     }
 
+    /**
+     * This method returns the message of the endorsement: "EP@" + [endorsed account handle] + ": " + [endorsed message]
+     * (the text is cached by the endorsed post, so a post endorsed many times builds it once per handle)
+     * 
+     * @return endorsement's message, or null if the endorsed post is not known
+     */
     @Override
     public String getMessage(){
-        return message;
-
+        AbstractPost sourcePost = getSourcePost();
+        return (sourcePost == null) ? null : sourcePost.getEndorsementMessage();
     }
 
     @Override
-    protected StringBuilder showPostHeader(StringBuilder sb, String margin){
-        return super.showPostHeader(sb, margin).append(getMessage()).append("\n");
+    protected void showPostHeader(Appendable out, int margin) throws IOException {
+        super.showPostHeader(out, margin);
+        out.append(getMessage()).append('\n');
     }
 }
@@ -0,0 +1,113 @@
+package socialmedia.internal;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A class that keeps posts or accounts ranked by the number of endorsements they received.
+ * The ranking is updated every time an endorsement is added or removed, so the most endorsed
+ * id can be read without going through all the posts of the platform.
+ *
+ * Only ids with at least one endorsement are ranked: an id enters the ranking with its first
+ * endorsement and leaves it with its last one, so creating a post costs nothing here.
+ * Ties are broken by the lowest id, so the result is the same on every run.
+ */
+public class EndorsementRanking {
+    //creating instance
+    private final Map<Integer, Integer> counts = new HashMap<>();
+    //each entry is (Integer.MAX_VALUE - count) in the high 32 bits and the id in the low 32 bits,
+    //so the first entry is the highest count with the lowest id
+    private final TreeSet<Long> ranking = new TreeSet<>();
+
+    /**
+     * This method changes the number of endorsements of an id, adding it to the ranking if needed
+     * @param id post's or account's id
+     * @param delta number of endorsements added (positive) or removed (negative)
+     */
+    public void adjust(int id, int delta) {
+        if (delta == 0) {
+            return;
+        }
+        Integer old = counts.get(id);
+        int count = (old == null) ? 0 : old;
+        if (old != null) {
+            ranking.remove(key(count, id));
+        }
+        count += delta;
+        if (count > 0) {
+            counts.put(id, count);
+            ranking.add(key(count, id));
+        } else {
+            counts.remove(id);
+        }
+    }
+
+    /**
+     * This method removes an id from the ranking
+     * @param id post's or account's id
+     * @return the number of endorsements the id had (0 if it was not ranked)
+     */
+    public int remove(int id) {
+        Integer count = counts.remove(id);
+        if (count == null) {
+            return 0;
+        }
+        ranking.remove(key(count, id));
+        return count;
+    }
+
+    /**
+     * This method returns the number of endorsements of an id
+     * @param id post's or account's id
+     * @return number of endorsements (0 if it is not ranked)
+     */
+    public int getCount(int id) {
+        Integer count = counts.get(id);
+        return (count == null) ? 0 : count;
+    }
+
+    /**
+     * This method returns the number of endorsements of every ranked id
+     * @return read-only map of (id, endorsements)
+     */
+    public Map<Integer, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * This method returns the id with the most endorsements
+     * @return the id with the most endorsements, or 0 if no id has any endorsement
+     */
+    public int first() {
+        return ranking.isEmpty() ? 0 : (int) (long) ranking.first();
+    }
+
+    /**
+     * This method returns the ids with the most endorsements, most endorsed first
+     * @param n maximum number of ids to return
+     * @return up to n endorsed ids ordered by endorsements (highest first) then by id (lowest first)
+     */
+    public int[] top(int n) {
+        int[] ids = new int[Math.max(0, Math.min(n, ranking.size()))];
+        Iterator<Long> it = ranking.iterator();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) (long) it.next();
+        }
+        return ids;
+    }
+
+    /**
+     * This method removes every id from the ranking
+     */
+    public void clear() {
+        counts.clear();
+        ranking.clear();
+    }
+
+    static long key(int count, int id) {
+        return ((long) (Integer.MAX_VALUE - count) << 32) | (id & 0xFFFFFFFFL);
+    }
+}
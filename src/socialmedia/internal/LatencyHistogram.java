@@ -0,0 +1,160 @@
+package socialmedia.internal;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds, with buckets laid out like an HDR histogram: every power of two
+ * is cut into 32 buckets of the same width, so a value is known within about 3% whatever its size, from one
+ * nanosecond to hundreds of years, in a fixed array of counters.
+ *
+ * Values can be recorded from many threads at once without locking; recording one costs two atomic additions.
+ * A percentile is reported as the highest value of the bucket it falls in (never above the largest value
+ * recorded).
+ */
+public class LatencyHistogram implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    //values below SUB_BUCKETS have a bucket each, then SUB_BUCKETS buckets per power of two up to 2^62
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * SUB_BUCKETS;
+
+    //creating instance
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * This method records one latency
+     * @param nanos latency in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(value));
+        sum.addAndGet(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * This method returns the number of latencies recorded
+     * @return number of latencies
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * This method returns the sum of the latencies recorded
+     * @return sum in nanoseconds
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * This method returns the largest latency recorded
+     * @return largest latency in nanoseconds, 0 if none was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * This method returns the mean of the latencies recorded
+     * @return mean in nanoseconds, 0 if none was recorded
+     */
+    public double getMean() {
+        long n = getCount();
+        return (n == 0) ? 0 : (double) sum.get() / n;
+    }
+
+    /**
+     * This method returns the latency below which a given share of the latencies fall
+     * @param percentile share of the latencies, from 0 to 100
+     * @return latency in nanoseconds, 0 if none was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if ((percentile < 0) || (percentile > 100)) {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * This method returns a copy of the histogram
+     * @return a histogram with the same counts, which later records do not change
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            copy.counts.set(i, counts.get(i));
+        }
+        copy.sum.set(sum.get());
+        copy.max.set(max.get());
+        return copy;
+    }
+
+    /**
+     * This method empties the histogram and returns what it held.
+     * Every latency recorded at the same time ends up in exactly one of the two histograms.
+     * @return a histogram with the counts taken out
+     */
+    public LatencyHistogram copyAndReset() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKETS; i++) {
+            copy.counts.set(i, counts.getAndSet(i, 0));
+        }
+        copy.sum.set(sum.getAndSet(0));
+        copy.max.set(max.getAndSet(0));
+        return copy;
+    }
+
+    /**
+     * This method empties the histogram
+     */
+    public void reset() {
+        copyAndReset();
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int top = 63 - Long.numberOfLeadingZeros(value); //position of the highest bit, at least SUB_BITS
+        int shift = top - SUB_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,270 @@
+package socialmedia.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reader for the mapped snapshot format written by MappedSnapshotWriter.
+ * The file is mapped into memory and nothing is read until it is asked for: opening a snapshot only reads its
+ * header, and a post is found through the post index by binary search.
+ *
+ * The file is mapped in segments of up to 1GB (a single mapping cannot be larger than 2GB); a record that
+ * crosses the end of its segment gets a mapping of its own.
+ */
+public class MappedSnapshotReader implements Closeable {
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final int SEGMENT_OVERLAP = 1 << 16;
+
+    /**
+     * A post as it is stored in the snapshot
+     *
+     * @param type SnapshotWriter.POST, COMMENT or ENDORSEMENT
+     * @param id post's id
+     * @param accountId id of the account that made the post (0 if none)
+     * @param sourcePostId id of the post commented or endorsed (0 if none)
+     * @param commentIds ids of the comments received, in the order they were made
+     * @param endorsementIds ids of the endorsements received, in the order they were made
+     * @param message post's message (null for endorsements since version 2)
+     */
+    public record PostRecord(byte type, int id, int accountId, int sourcePostId, int[] commentIds,
+            int[] endorsementIds, String message) {
+    }
+
+    private final FileChannel channel;
+    private final long size;
+    private final ByteBuffer[] segments;
+
+    private final int lastAccountId;
+    private final int lastPostId;
+    private final int accountCount;
+    private final int postCount;
+    private final int originalPosts;
+    private final int endorsementPosts;
+    private final int commentPosts;
+    private final int mostEndorsedPost;
+    private final int mostEndorsedAccount;
+    private final long accountIndex;
+    private final long postIndex;
+
+    /**
+     * The constructor; MappedSnapshotReader(path) opens a mapped snapshot and reads its header
+     *
+     * @param path location of the snapshot
+     * @throws IOException if the file cannot be read or is not a mapped snapshot
+     */
+    public MappedSnapshotReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            size = channel.size();
+            segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+            if (size < MappedSnapshotWriter.HEADER_SIZE) {
+                throw new StreamCorruptedException("not a mapped snapshot");
+            }
+            ByteBuffer header = at(0, MappedSnapshotWriter.HEADER_SIZE);
+            for (byte b : MappedSnapshotWriter.MAGIC) {
+                if (header.get() != b) {
+                    throw new StreamCorruptedException("not a mapped snapshot");
+                }
+            }
+            byte version = header.get();
+            if ((version < 1) || (version > MappedSnapshotWriter.VERSION)) {
+                throw new StreamCorruptedException("unsupported snapshot version " + version);
+            }
+            header.position(8);
+            lastAccountId = header.getInt();
+            lastPostId = header.getInt();
+            accountCount = header.getInt();
+            postCount = header.getInt();
+            originalPosts = header.getInt();
+            endorsementPosts = header.getInt();
+            commentPosts = header.getInt();
+            mostEndorsedPost = header.getInt();
+            mostEndorsedAccount = header.getInt();
+            accountIndex = header.getLong();
+            postIndex = header.getLong();
+            if ((accountIndex + (long) accountCount * MappedSnapshotWriter.INDEX_ENTRY_SIZE != postIndex)
+                    || (postIndex + (long) postCount * MappedSnapshotWriter.INDEX_ENTRY_SIZE != size)) {
+                throw new StreamCorruptedException("snapshot is truncated");
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    //content of the header
+
+    public int getLastAccountId() {
+        return lastAccountId;
+    }
+
+    public int getLastPostId() {
+        return lastPostId;
+    }
+
+    public int getAccountCount() {
+        return accountCount;
+    }
+
+    public int getPostCount() {
+        return postCount;
+    }
+
+    public int getOriginalPosts() {
+        return originalPosts;
+    }
+
+    public int getEndorsementPosts() {
+        return endorsementPosts;
+    }
+
+    public int getCommentPosts() {
+        return commentPosts;
+    }
+
+    public int getMostEndorsedPost() {
+        return mostEndorsedPost;
+    }
+
+    public int getMostEndorsedAccount() {
+        return mostEndorsedAccount;
+    }
+
+    /**
+     * This method reads the account with that id
+     * @param id account's id
+     * @return the account, or null if it is not in the snapshot
+     */
+    public Account readAccount(int id) throws IOException {
+        long offset = find(accountIndex, accountCount, id);
+        return (offset < 0) ? null : readAccountAt(offset);
+    }
+
+    /**
+     * This method reads the post with that id
+     * @param id post's id
+     * @return the post, or null if it is not in the snapshot
+     */
+    public PostRecord readPost(int id) throws IOException {
+        long offset = find(postIndex, postCount, id);
+        return (offset < 0) ? null : readPostAt(offset);
+    }
+
+    /**
+     * This method reads the whole snapshot in the order of the binary snapshot, accounts first and then
+     * posts in id order
+     *
+     * @param handler receives the accounts and posts
+     */
+    public void read(SnapshotReader.Handler handler) throws IOException {
+        handler.header(lastAccountId, lastPostId);
+        for (int i = 0; i < accountCount; i++) {
+            Account account = readAccountAt(indexOffset(accountIndex, i));
+            handler.account(account.getId(), account.getHandle(), account.getDescription());
+        }
+        for (int i = 0; i < postCount; i++) {
+            PostRecord post = readPostAt(indexOffset(postIndex, i));
+            handler.post(post.type(), post.id(), post.accountId(), post.sourcePostId(), post.message());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * This method looks an id up in an index by binary search
+     * @return offset of the record, or -1 if the id is not in the index
+     */
+    private long find(long index, int count, int id) throws IOException {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            ByteBuffer entry = at(index + (long) middle * MappedSnapshotWriter.INDEX_ENTRY_SIZE,
+                    MappedSnapshotWriter.INDEX_ENTRY_SIZE);
+            int entryId = entry.getInt();
+            if (entryId < id) {
+                low = middle + 1;
+            } else if (entryId > id) {
+                high = middle - 1;
+            } else {
+                return entry.getLong();
+            }
+        }
+        return -1;
+    }
+
+    private long indexOffset(long index, int i) throws IOException {
+        return at(index + (long) i * MappedSnapshotWriter.INDEX_ENTRY_SIZE + 4, 8).getLong();
+    }
+
+    private Account readAccountAt(long offset) throws IOException {
+        ByteBuffer record = record(offset);
+        int id = record.getInt();
+        String handle = getString(record);
+        return new Account(id, handle, getString(record));
+    }
+
+    private PostRecord readPostAt(long offset) throws IOException {
+        ByteBuffer record = record(offset);
+        byte type = record.get();
+        int id = record.getInt();
+        int accountId = record.getInt();
+        int sourcePostId = record.getInt();
+        int[] commentIds = new int[record.getInt()];
+        int[] endorsementIds = new int[record.getInt()];
+        record.asIntBuffer().get(commentIds).get(endorsementIds);
+        record.position(record.position() + 4 * (commentIds.length + endorsementIds.length));
+        return new PostRecord(type, id, accountId, sourcePostId, commentIds, endorsementIds, getString(record));
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method returns the bytes of the record at that offset, without its length
+     */
+    private ByteBuffer record(long offset) throws IOException {
+        int length = at(offset, 4).getInt();
+        if ((length < 0) || (offset + 4 + length > size)) {
+            throw new StreamCorruptedException("bad record at offset " + offset);
+        }
+        return at(offset + 4, length);
+    }
+
+    /**
+     * This method returns a buffer over that many bytes of the file
+     */
+    private ByteBuffer at(long offset, int length) throws IOException {
+        int k = (int) (offset / SEGMENT_SIZE);
+        long start = k * SEGMENT_SIZE;
+        ByteBuffer segment;
+        synchronized (segments) {
+            segment = segments[k];
+            if (segment == null) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(size - start, SEGMENT_SIZE + SEGMENT_OVERLAP));
+                segments[k] = segment;
+            }
+        }
+        if (offset + length > start + segment.capacity()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+        return segment.slice((int) (offset - start), length);
+    }
+}
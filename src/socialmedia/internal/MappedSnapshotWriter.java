@@ -0,0 +1,233 @@
+package socialmedia.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A writer for the mapped snapshot format of the platform: a snapshot that can be opened with FileChannel.map
+ * and read one post at a time, without loading the rest of the file.
+ *
+ * Every number is a fixed-width big-endian int or long, so a record can be read where it lies:
+ * <pre>
+ * header (HEADER_SIZE bytes):
+ *     "SMPM" version 0 0 0
+ *     int lastAccountId, int lastPostId, int number of accounts, int number of posts,
+ *     int original posts, int endorsement posts, int comment posts,
+ *     int most endorsed post, int most endorsed account,
+ *     long offset of the account index, long offset of the post index
+ * account records: int length, int id, string handle, string description
+ * post records: int length, byte type, int id, int account id, int source post id,
+ *     int number of comments, int number of endorsements, comment ids, endorsement ids, string message
+ * account index, then post index: (int id, long offset of the record) for each record, in id order
+ * </pre>
+ * The length of a record counts the bytes that follow it. Strings are int length followed by UTF-8 bytes,
+ * -1 meaning null. An id of 0 means "none". Comment and endorsement ids are in the order they were made.
+ * Since version 2 the message of an endorsement is null: it is made from the endorsed post.
+ */
+public class MappedSnapshotWriter implements Closeable {
+    public static final byte[] MAGIC = { 'S', 'M', 'P', 'M' };
+    public static final byte VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+    public static final int INDEX_ENTRY_SIZE = 12;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long position;
+
+    //id and offset of every record written, for the indexes
+    private int[] accountIds = new int[16];
+    private long[] accountOffsets = new long[16];
+    private int accountCount;
+    private int[] postIds = new int[16];
+    private long[] postOffsets = new long[16];
+    private int postCount;
+
+    /**
+     * The constructor; MappedSnapshotWriter(channel) writes the snapshot from the start of the channel
+     *
+     * @param channel destination of the snapshot (closed with the writer)
+     */
+    public MappedSnapshotWriter(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(1 << 16);
+        channel.truncate(0);
+        buffer.put(new byte[HEADER_SIZE]); //written for real by finish, once the indexes are known
+    }
+
+    /**
+     * This method writes an account; accounts must be written in id order
+     * @param account account to write
+     */
+    public void writeAccount(Account account) throws IOException {
+        if ((accountCount > 0) && (account.getId() <= accountIds[accountCount - 1])) {
+            throw new IllegalArgumentException("accounts must be written in id order");
+        }
+        if (accountCount == accountIds.length) {
+            accountIds = Arrays.copyOf(accountIds, accountCount * 2);
+            accountOffsets = Arrays.copyOf(accountOffsets, accountCount * 2);
+        }
+        accountIds[accountCount] = account.getId();
+        accountOffsets[accountCount++] = position();
+
+        byte[] handle = bytes(account.getHandle());
+        byte[] description = bytes(account.getDescription());
+        int length = 4 + stringSize(handle) + stringSize(description);
+        ensure(8);
+        buffer.putInt(length).putInt(account.getId());
+        putString(handle);
+        putString(description);
+    }
+
+    /**
+     * This method writes a post with the ids of its comments and endorsements; posts must be written in id order
+     * @param post post i.e Post, Comment or Endorsement
+     */
+    public void writePost(AbstractPost post) throws IOException {
+        if ((postCount > 0) && (post.getId() <= postIds[postCount - 1])) {
+            throw new IllegalArgumentException("posts must be written in id order");
+        }
+        if (postCount == postIds.length) {
+            postIds = Arrays.copyOf(postIds, postCount * 2);
+            postOffsets = Arrays.copyOf(postOffsets, postCount * 2);
+        }
+        postIds[postCount] = post.getId();
+        postOffsets[postCount++] = position();
+
+        byte type = SnapshotWriter.POST;
+        int sourcePostId = 0;
+        if (post instanceof AbstractRepost repost) {
+            type = (post instanceof Comment) ? SnapshotWriter.COMMENT : SnapshotWriter.ENDORSEMENT;
+            sourcePostId = idOrNone(repost.getSourcePostId());
+        }
+        List<Comment> comments = post.getComments();
+        List<Endorsement> endorsements = post.getEndorsements();
+        int commentCount = (comments == null) ? 0 : comments.size();
+        int endorsementCount = (endorsements == null) ? 0 : endorsements.size();
+        byte[] message = (post instanceof Endorsement) ? null : bytes(post.getMessage());
+        int length = 1 + 4 * 5 + 4 * (commentCount + endorsementCount) + stringSize(message);
+
+        ensure(4 + 1 + 4 * 5);
+        buffer.putInt(length).put(type).putInt(post.getId()).putInt(idOrNone(post.getAccountId()))
+                .putInt(sourcePostId).putInt(commentCount).putInt(endorsementCount);
+        if (comments != null) {
+            for (Comment comment : comments) {
+                ensure(4);
+                buffer.putInt(comment.getId());
+            }
+        }
+        if (endorsements != null) {
+            for (Endorsement endorsement : endorsements) {
+                ensure(4);
+                buffer.putInt(endorsement.getId());
+            }
+        }
+        putString(message);
+    }
+
+    /**
+     * This method writes the indexes and the header; nothing can be written after it
+     *
+     * @param lastAccountId last account id given by the platform
+     * @param lastPostId last post id given by the platform
+     * @param originalPosts number of original posts
+     * @param endorsementPosts number of endorsements
+     * @param commentPosts number of comments
+     * @param mostEndorsedPost id of the most endorsed post (0 if none)
+     * @param mostEndorsedAccount id of the most endorsed account (0 if none)
+     */
+    public void finish(int lastAccountId, int lastPostId, int originalPosts, int endorsementPosts, int commentPosts,
+            int mostEndorsedPost, int mostEndorsedAccount) throws IOException {
+        long accountIndex = position();
+        writeIndex(accountIds, accountOffsets, accountCount);
+        long postIndex = position();
+        writeIndex(postIds, postOffsets, postCount);
+        flush();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put(VERSION).put(new byte[3])
+                .putInt(lastAccountId).putInt(lastPostId).putInt(accountCount).putInt(postCount)
+                .putInt(originalPosts).putInt(endorsementPosts).putInt(commentPosts)
+                .putInt(mostEndorsedPost).putInt(mostEndorsedAccount)
+                .putLong(accountIndex).putLong(postIndex);
+        header.clear();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * This method returns the number of bytes written so far
+     * @return bytes written to the channel (including the buffered ones)
+     */
+    public long getBytesWritten() {
+        return position();
+    }
+
+    /**
+     * This method closes the channel; call finish first or the snapshot is incomplete
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeIndex(int[] ids, long[] offsets, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            ensure(INDEX_ENTRY_SIZE);
+            buffer.putInt(ids[i]).putLong(offsets[i]);
+        }
+    }
+
+    private static int idOrNone(Integer id) {
+        return ((id == null) || (id < 0)) ? 0 : id;
+    }
+
+    private static byte[] bytes(String s) {
+        return (s == null) ? null : s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int stringSize(byte[] bytes) {
+        return 4 + ((bytes == null) ? 0 : bytes.length);
+    }
+
+    private void putString(byte[] bytes) throws IOException {
+        ensure(4);
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) { //long descriptions go through the buffer in pieces
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private long position() {
+        return position + buffer.position();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
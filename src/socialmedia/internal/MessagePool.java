@@ -0,0 +1,96 @@
+package socialmedia.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A class that stores messages as UTF-8 bytes in large pages instead of one String object per message.
+ *
+ * Each message gets an int handle. Messages start on a 4-byte boundary and the handle counts 4-byte units,
+ * so a pool can hold up to 16GB of messages. Removing a message only counts its bytes as garbage; the owner
+ * of the handles copies the live messages into a new pool when the garbage grows too large.
+ */
+public class MessagePool {
+    private static final int PAGE_BITS = 24;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_MESSAGE_BYTES = 0xFFFF;
+
+    private byte[][] pages = new byte[0][];
+    private long end; //where the next message goes
+    private long garbage; //bytes of removed messages
+
+    /**
+     * This method stores a message
+     * @param message message to store (at most 65535 UTF-8 bytes)
+     * @return handle of the message
+     */
+    public int add(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_MESSAGE_BYTES) {
+            throw new IllegalArgumentException("message is too long");
+        }
+        int size = 2 + bytes.length;
+        if ((end & (PAGE_SIZE - 1)) + size > PAGE_SIZE) { //a message never crosses two pages
+            end = (end + PAGE_SIZE) & ~(long) (PAGE_SIZE - 1);
+        }
+        int page = (int) (end >>> PAGE_BITS);
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, page + 1);
+        }
+        if (pages[page] == null) {
+            pages[page] = new byte[PAGE_SIZE];
+        }
+        int offset = (int) (end & (PAGE_SIZE - 1));
+        pages[page][offset] = (byte) (bytes.length >>> 8);
+        pages[page][offset + 1] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, pages[page], offset + 2, bytes.length);
+
+        int handle = (int) (end >>> 2);
+        end += align(size);
+        return handle;
+    }
+
+    /**
+     * This method returns a stored message
+     * @param handle handle returned by add
+     * @return the message
+     */
+    public String get(int handle) {
+        long position = (handle & 0xFFFFFFFFL) << 2;
+        byte[] page = pages[(int) (position >>> PAGE_BITS)];
+        int offset = (int) (position & (PAGE_SIZE - 1));
+        int length = ((page[offset] & 0xFF) << 8) | (page[offset + 1] & 0xFF);
+        return new String(page, offset + 2, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method marks a message as removed; its handle must not be used anymore
+     * @param handle handle returned by add
+     */
+    public void remove(int handle) {
+        long position = (handle & 0xFFFFFFFFL) << 2;
+        byte[] page = pages[(int) (position >>> PAGE_BITS)];
+        int offset = (int) (position & (PAGE_SIZE - 1));
+        garbage += align(2 + (((page[offset] & 0xFF) << 8) | (page[offset + 1] & 0xFF)));
+    }
+
+    /**
+     * This method returns the number of bytes used by the pool, removed messages included
+     * @return bytes used
+     */
+    public long getSize() {
+        return end;
+    }
+
+    /**
+     * This method returns the number of bytes used by removed messages
+     * @return bytes that a copy of the live messages would save
+     */
+    public long getGarbage() {
+        return garbage;
+    }
+
+    private static int align(int size) {
+        return (size + 3) & ~3;
+    }
+}
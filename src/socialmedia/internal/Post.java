@@ -1,10 +1,15 @@
 package socialmedia.internal;
 
+import java.io.IOException;
+
 /**
  * A class that contain information about the original post.
  * It extends an abstract class called AbstractPost. 
  */
 public class Post extends AbstractPost {
+    //pinned so that snapshots stay loadable when methods are added
+    private static final long serialVersionUID = -5940587092152511152L;
+
     //create intance
     private String message;
 
@@ -27,9 +32,10 @@ public class Post extends AbstractPost {
 
     //overriding 
     @Override
-    protected StringBuilder showPostHeader(StringBuilder sb, String margin) {
-        return super.showPostHeader(sb, margin)
-                .append(margin).append(getMessage()).append("\n");
+    protected void showPostHeader(Appendable out, int margin) throws IOException {
+        super.showPostHeader(out, margin);
+        showMargin(out, margin);
+        out.append(getMessage()).append('\n');
     }
 }
 
@@ -0,0 +1,172 @@
+package socialmedia.internal;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reader for the binary snapshot format written by SnapshotWriter.
+ * The snapshot is read as a stream and handed to a Handler record by record, so it is never held in memory twice.
+ */
+public class SnapshotReader implements Closeable {
+
+    /**
+     * Receives the content of a snapshot in the order it was written
+     */
+    public interface Handler {
+        /**
+         * Called once, before anything else
+         * @param lastAccountId last account id given by the platform
+         * @param lastPostId last post id given by the platform
+         */
+        void header(int lastAccountId, int lastPostId) throws IOException;
+
+        /**
+         * Called for each account
+         * @param id account's id
+         * @param handle account's handle
+         * @param description account's description (may be null)
+         */
+        void account(int id, String handle, String description) throws IOException;
+
+        /**
+         * Called for each post, in id order
+         * @param type SnapshotWriter.POST, COMMENT or ENDORSEMENT
+         * @param id post's id
+         * @param accountId id of the account that made the post (0 if none)
+         * @param sourcePostId id of the post commented or endorsed (0 if none)
+         * @param message post's message (null for endorsements, whose message is made from the endorsed post)
+         */
+        void post(byte type, int id, int accountId, int sourcePostId, String message) throws IOException;
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long bytesRead;
+
+    /**
+     * The constructor; SnapshotReader(channel) reads a snapshot from the channel
+     *
+     * @param channel source of the snapshot (closed with the reader)
+     */
+    public SnapshotReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(1 << 16);
+        buffer.flip(); //empty until the first read
+    }
+
+    /**
+     * This method reads the whole snapshot
+     *
+     * @param handler receives the accounts and posts
+     * @throws IOException if the snapshot cannot be read or is not a binary snapshot
+     */
+    public void read(Handler handler) throws IOException {
+        ensure(SnapshotWriter.MAGIC.length + 1);
+        for (byte b : SnapshotWriter.MAGIC) {
+            if (buffer.get() != b) {
+                throw new StreamCorruptedException("not a binary snapshot");
+            }
+        }
+        byte version = buffer.get();
+        if ((version < 1) || (version > SnapshotWriter.VERSION)) {
+            throw new StreamCorruptedException("unsupported snapshot version " + version);
+        }
+
+        handler.header(readVarint(), readVarint());
+        int accountCount = readVarint();
+        for (int i = 0; i < accountCount; i++) {
+            handler.account(readVarint(), readString(), readString());
+        }
+        int postCount = readVarint();
+        for (int i = 0; i < postCount; i++) {
+            ensure(1);
+            byte type = buffer.get();
+            int id = readVarint();
+            int accountId = readVarint();
+            int sourcePostId = 0;
+            if ((type == SnapshotWriter.COMMENT) || (type == SnapshotWriter.ENDORSEMENT)) {
+                sourcePostId = readVarint();
+            } else if (type != SnapshotWriter.POST) {
+                throw new StreamCorruptedException("unknown post type " + type);
+            }
+            String message = null;
+            if (type != SnapshotWriter.ENDORSEMENT) {
+                message = readString();
+            } else if (version == 1) {
+                readString(); //version 1 stored the message of endorsements too
+            }
+            handler.post(type, id, accountId, sourcePostId, message);
+        }
+    }
+
+    /**
+     * This method returns the number of bytes read so far
+     * @return bytes read from the channel
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            ensure(1);
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("malformed varint");
+    }
+
+    private String readString() throws IOException {
+        int length = readVarint() - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length <= buffer.capacity()) {
+            ensure(length);
+            String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return s;
+        }
+        byte[] bytes = new byte[length]; //longer than the buffer, read it in pieces
+        int offset = 0;
+        while (offset < length) {
+            ensure(1);
+            int n = Math.min(buffer.remaining(), length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * This method makes sure the buffer holds at least that many bytes
+     */
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            int n = channel.read(buffer);
+            if (n < 0) {
+                throw new EOFException("snapshot is truncated");
+            }
+            bytesRead += n;
+        }
+        buffer.flip();
+    }
+}
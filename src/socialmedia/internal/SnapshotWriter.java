@@ -0,0 +1,185 @@
+package socialmedia.internal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A writer for the binary snapshot format of the platform.
+ *
+ * The snapshot is written as a stream through a channel:
+ * <pre>
+ * "SMPB" version
+ * varint lastAccountId, varint lastPostId
+ * varint number of accounts, then for each account: varint id, string handle, string description
+ * varint number of posts, then for each post (in id order):
+ *     byte type, varint id, varint account id, [varint source post id for comments and endorsements],
+ *     [string message for posts and comments]
+ * </pre>
+ * Strings are varint (length + 1) followed by UTF-8 bytes, 0 meaning null. An id of 0 means "none".
+ * Because posts are in id order, a comment or endorsement always comes after the post it refers to.
+ * Version 1 also stored the message of endorsements, which is made from the endorsed post since version 2.
+ */
+public class SnapshotWriter implements Closeable {
+    public static final byte[] MAGIC = { 'S', 'M', 'P', 'B' };
+    public static final byte VERSION = 2;
+
+    //type tag of each post
+    public static final byte POST = 1;
+    public static final byte COMMENT = 2;
+    public static final byte ENDORSEMENT = 3;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long bytesWritten;
+
+    /**
+     * The constructor; SnapshotWriter(channel) writes the snapshot through the channel
+     *
+     * @param channel destination of the snapshot (closed with the writer)
+     */
+    public SnapshotWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(1 << 16);
+    }
+
+    /**
+     * This method writes the beginning of the snapshot
+     *
+     * @param lastAccountId last account id given by the platform
+     * @param lastPostId last post id given by the platform
+     * @param accountCount number of accounts that follow
+     */
+    public void writeHeader(int lastAccountId, int lastPostId, int accountCount) throws IOException {
+        ensure(MAGIC.length + 1 + 15);
+        buffer.put(MAGIC).put(VERSION);
+        putVarint(lastAccountId);
+        putVarint(lastPostId);
+        putVarint(accountCount);
+    }
+
+    /**
+     * This method writes an account
+     * @param account account to write
+     */
+    public void writeAccount(Account account) throws IOException {
+        ensure(5);
+        putVarint(account.getId());
+        putString(account.getHandle());
+        putString(account.getDescription());
+    }
+
+    /**
+     * This method writes the number of posts that follow the accounts
+     * @param postCount number of posts
+     */
+    public void writePostCount(int postCount) throws IOException {
+        ensure(5);
+        putVarint(postCount);
+    }
+
+    /**
+     * This method writes a post; posts must be written in id order
+     * @param post post i.e Post, Comment or Endorsement
+     */
+    public void writePost(AbstractPost post) throws IOException {
+        byte type = POST;
+        int sourcePostId = 0;
+        if (post instanceof AbstractRepost repost) {
+            type = (post instanceof Comment) ? COMMENT : ENDORSEMENT;
+            //the empty post that replaces a deleted source has id -1, which is written as "none"
+            sourcePostId = idOrNone(repost.getSourcePostId());
+        }
+        writePost(type, post.getId(), idOrNone(post.getAccountId()), sourcePostId,
+                (type == ENDORSEMENT) ? null : post.getMessage());
+    }
+
+    /**
+     * This method writes a post given by its fields; posts must be written in id order
+     * @param type POST, COMMENT or ENDORSEMENT
+     * @param id post's id
+     * @param accountId id of the account that made the post (0 if none)
+     * @param sourcePostId id of the post commented or endorsed (0 if none)
+     * @param message post's message (not written for endorsements)
+     */
+    public void writePost(byte type, int id, int accountId, int sourcePostId, String message) throws IOException {
+        ensure(1 + 15);
+        buffer.put(type);
+        putVarint(id);
+        putVarint(accountId);
+        if (type != POST) {
+            putVarint(sourcePostId);
+        }
+        if (type != ENDORSEMENT) {
+            putString(message);
+        }
+    }
+
+    /**
+     * This method returns the number of bytes written so far
+     * @return bytes written to the channel (including the buffered ones)
+     */
+    public long getBytesWritten() {
+        return bytesWritten + buffer.position();
+    }
+
+    /**
+     * This method writes what is left in the buffer and closes the channel
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static int idOrNone(Integer id) {
+        return ((id == null) || (id < 0)) ? 0 : id;
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private void putString(String s) throws IOException {
+        if (s == null) {
+            ensure(1);
+            putVarint(0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(5);
+        putVarint(bytes.length + 1);
+        int offset = 0;
+        while (offset < bytes.length) { //long descriptions go through the buffer in pieces
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
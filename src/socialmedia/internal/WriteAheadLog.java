@@ -0,0 +1,565 @@
+package socialmedia.internal;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of the calls that changed a platform since its last snapshot.
+ *
+ * The log starts with a header that identifies the snapshot it applies to (length and CRC32 of the snapshot file),
+ * followed by one record per call: [varint length][payload][CRC32 of payload]. A payload is the operation code,
+ * two nullable UTF-8 strings and a zig-zag varint id, which is enough for every mutating call of the platform.
+ *
+ * Records are buffered in memory and written by a background thread that forces the file to disk once per batch:
+ * every record appended while the previous batch is being forced goes into the next one, so those records share
+ * one fsync (group commit). A commit interval makes the thread wait before each batch so that more records join
+ * it. When the log waits for the disk, append returns only after its record has been forced; a single thread
+ * that appends then gets one fsync per record, and records only share an fsync when several threads append.
+ */
+public class WriteAheadLog implements Closeable {
+    //operation codes
+    public static final byte CREATE_ACCOUNT = 1;
+    public static final byte REMOVE_ACCOUNT = 2;
+    public static final byte REMOVE_ACCOUNT_ID = 3;
+    public static final byte CHANGE_HANDLE = 4;
+    public static final byte UPDATE_DESCRIPTION = 5;
+    public static final byte CREATE_POST = 6;
+    public static final byte ENDORSE_POST = 7;
+    public static final byte COMMENT_POST = 8;
+    public static final byte DELETE_POST = 9;
+    public static final byte ERASE_PLATFORM = 10;
+
+    private static final byte[] MAGIC = { 'S', 'M', 'W', 'L' };
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + 8 + 4;
+    //a record longer than this can only be a torn or corrupt length
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private final Path path;
+    private final boolean waitForDisk;
+    private final long commitIntervalMillis;
+    private FileChannel channel;
+
+    //guarded by this
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long appendedSeq = 0;
+    private long durableSeq = 0;
+    private IOException failure;
+    private boolean closed;
+    private final Thread flusher;
+
+    /**
+     * The snapshot a log applies to, identified by the length and CRC32 of its file
+     */
+    public static final class Base {
+        /** the base of a log that starts from an empty platform (no snapshot) */
+        public static final Base NONE = new Base(-1, 0);
+
+        private final long length;
+        private final int crc;
+
+        private Base(long length, int crc) {
+            this.length = length;
+            this.crc = crc;
+        }
+
+        /**
+         * This method reads a snapshot file to identify it
+         * @param snapshot snapshot file
+         * @return the base of that file
+         * @throws IOException if the file cannot be read
+         */
+        public static Base of(Path snapshot) throws IOException {
+            CRC32 crc = new CRC32();
+            long length = 0;
+            try (InputStream in = Files.newInputStream(snapshot)) {
+                byte[] buffer = new byte[1 << 16];
+                int n;
+                while ((n = in.read(buffer)) > 0) {
+                    crc.update(buffer, 0, n);
+                    length += n;
+                }
+            }
+            return new Base(length, (int) crc.getValue());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof Base other) && (other.length == length) && (other.crc == crc);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(length) * 31 + crc;
+        }
+    }
+
+    /**
+     * A call recorded in the log
+     */
+    public static final class Record {
+        private final byte op;
+        private final String first;
+        private final String second;
+        private final int id;
+
+        /**
+         * The constructor; Record(op, first, second, id)
+         *
+         * @param op operation code
+         * @param first first string argument (usually the handle), may be null
+         * @param second second string argument (description, new handle or message), may be null
+         * @param id post or account ID argument, 0 if the call has none
+         */
+        public Record(byte op, String first, String second, int id) {
+            this.op = op;
+            this.first = first;
+            this.second = second;
+            this.id = id;
+        }
+
+        public byte getOp() {
+            return op;
+        }
+
+        public String getFirst() {
+            return first;
+        }
+
+        public String getSecond() {
+            return second;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+
+    /**
+     * The constructor; WriteAheadLog(path, base, waitForDisk, commitIntervalMillis) starts a new, empty log
+     * on top of a snapshot (replacing any log already at that path)
+     *
+     * @param path log file
+     * @param base snapshot the log applies to
+     * @param waitForDisk true -> append returns once the record is on disk || false -> it returns straight away
+     * @param commitIntervalMillis time the background thread waits to gather more records before each fsync
+     * @throws IOException if the log cannot be created
+     */
+    public WriteAheadLog(Path path, Base base, boolean waitForDisk, long commitIntervalMillis) throws IOException {
+        this(path, createFile(path, base), waitForDisk, commitIntervalMillis);
+    }
+
+    private WriteAheadLog(Path path, FileChannel channel, boolean waitForDisk, long commitIntervalMillis) {
+        this.path = path;
+        this.channel = channel;
+        this.waitForDisk = waitForDisk;
+        this.commitIntervalMillis = commitIntervalMillis;
+        flusher = new Thread(this::flushLoop, "write-ahead-log");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * This method continues an existing log after it has been replayed: records are appended after the last
+     * valid record, and a torn record left by a crash is cut off
+     *
+     * @param path log file
+     * @param validEnd position after the last valid record (see {@link Reader#getValidEnd()})
+     * @param waitForDisk true -> append returns once the record is on disk || false -> it returns straight away
+     * @param commitIntervalMillis time the background thread waits to gather more records before each fsync
+     * @return the log, ready for appending
+     * @throws IOException if the log cannot be opened
+     */
+    public static WriteAheadLog reopen(Path path, long validEnd, boolean waitForDisk, long commitIntervalMillis)
+            throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        channel.force(true);
+        return new WriteAheadLog(path, channel, waitForDisk, commitIntervalMillis);
+    }
+
+    private static FileChannel createFile(Path path, Base base) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put(VERSION).putLong(base.length).putInt(base.crc).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        return channel;
+    }
+
+    /**
+     * This method adds a record to the log
+     *
+     * @param record call to record
+     * @throws UncheckedIOException if the log could not be written to disk
+     */
+    public void append(Record record) {
+        byte[] payload = encode(record);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        long seq;
+        synchronized (this) {
+            checkUsable();
+            writeVarint(pending, payload.length);
+            pending.write(payload, 0, payload.length);
+            writeInt(pending, (int) crc.getValue());
+            seq = ++appendedSeq;
+            notifyAll();
+        }
+        if (waitForDisk) {
+            awaitDurable(seq);
+        }
+    }
+
+    /**
+     * This method waits until every record appended so far is on disk
+     *
+     * @throws UncheckedIOException if the log could not be written to disk
+     */
+    public void sync() {
+        long seq;
+        synchronized (this) {
+            seq = appendedSeq;
+        }
+        awaitDurable(seq);
+    }
+
+    private synchronized void awaitDurable(long seq) {
+        boolean interrupted = false;
+        while ((durableSeq < seq) && (failure == null)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("write-ahead log failed", failure);
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("write-ahead log failed", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("write-ahead log is closed");
+        }
+    }
+
+    /**
+     * Body of the background thread: writes the records gathered since the last batch and forces them to disk
+     */
+    private void flushLoop() {
+        while (true) {
+            ByteArrayOutputStream batch;
+            long batchSeq;
+            synchronized (this) {
+                while ((pending.size() == 0) && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if ((pending.size() == 0) && closed) {
+                    return;
+                }
+                if ((commitIntervalMillis > 0) && !closed) {
+                    try {
+                        wait(commitIntervalMillis); //let more records join this batch
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                batch = pending;
+                batchSeq = appendedSeq;
+                pending = new ByteArrayOutputStream();
+            }
+
+            IOException error = null;
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableSeq = batchSeq;
+                }
+                notifyAll();
+                if (error != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * This method replaces the snapshot and starts a new, empty log for it, so that a crash at any point leaves a
+     * snapshot and a log that belong together:
+     * the new log is written next to the old one, then the snapshot is renamed into place, then the log.
+     * The directory is forced to disk after each rename, so the log is never renamed on disk before the snapshot,
+     * and the checkpoint is durable once this method returns.
+     *
+     * @param newSnapshot snapshot just written (and forced to disk) under a temporary name
+     * @param snapshot final name of the snapshot
+     * @throws IOException if the files cannot be written or renamed
+     */
+    public void checkpoint(Path newSnapshot, Path snapshot) throws IOException {
+        sync();
+        Path newLog = pendingLog(path);
+        FileChannel newChannel = createFile(newLog, Base.of(newSnapshot));
+        Files.move(newSnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(snapshot);
+        Files.move(newLog, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(path);
+        synchronized (this) {
+            channel.close();
+            channel = newChannel;
+        }
+    }
+
+    /**
+     * This method forces the directory of a file to disk, so that a rename into that directory survives a crash
+     * @param file file just renamed
+     * @throws IOException if the directory cannot be forced
+     */
+    public static void forceDirectory(Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException e) {
+            return; //the platform cannot open a directory (Windows), and makes its renames durable by itself
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * This method writes the remaining records to disk and closes the log
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * This method returns the name a new snapshot is written under before a checkpoint renames it into place
+     * @param snapshot snapshot file
+     * @return the temporary snapshot file
+     */
+    public static Path pendingSnapshot(Path snapshot) {
+        return snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+    }
+
+    /**
+     * This method returns the name a new log is written under before it replaces the log at path
+     * @param path log file
+     * @return the temporary log file
+     */
+    public static Path pendingLog(Path path) {
+        return path.resolveSibling(path.getFileName() + ".new");
+    }
+
+    /**
+     * A reader that goes through the records of a log, stopping at the first torn or corrupt record
+     */
+    public static final class Reader implements Closeable {
+        private final DataInputStream in;
+        private final Base base;
+        private long validEnd;
+
+        /**
+         * The constructor; Reader(path) opens a log and reads its header
+         *
+         * @param path log file
+         * @throws IOException if the file cannot be read or is not a log
+         */
+        public Reader(Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            byte[] magic = new byte[MAGIC.length];
+            try {
+                in.readFully(magic);
+                if (!java.util.Arrays.equals(magic, MAGIC) || (in.readByte() != VERSION)) {
+                    throw new IOException(path + " is not a write-ahead log");
+                }
+                base = new Base(in.readLong(), in.readInt());
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            validEnd = HEADER_SIZE;
+        }
+
+        /**
+         * This method returns the snapshot the log applies to
+         * @return base of the log
+         */
+        public Base getBase() {
+            return base;
+        }
+
+        /**
+         * This method reads the next record
+         * @return the record, or null at the end of the log (or at a torn or corrupt record)
+         * @throws IOException if the file cannot be read
+         */
+        public Record next() throws IOException {
+            try {
+                int first = in.read();
+                if (first < 0) {
+                    return null;
+                }
+                int length = readVarint(in, first);
+                if ((length < 0) || (length > MAX_RECORD_SIZE)) {
+                    return null;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                int expected = in.readInt();
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expected) {
+                    return null;
+                }
+                validEnd += varintSize(length) + length + 4;
+                return decode(payload);
+            } catch (EOFException e) {
+                return null; //the last record was only partly written
+            }
+        }
+
+        /**
+         * This method returns the position after the last valid record read so far
+         * @return position in the file
+         */
+        public long getValidEnd() {
+            return validEnd;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    //encoding of the records
+
+    private static byte[] encode(Record record) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        out.write(record.op);
+        writeString(out, record.first);
+        writeString(out, record.second);
+        writeVarint(out, (record.id << 1) ^ (record.id >> 31)); //zig-zag
+        return out.toByteArray();
+    }
+
+    private static Record decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String first = readString(in);
+        String second = readString(in);
+        int zigzag = readVarint(in, in.read());
+        return new Record(op, first, second, (zigzag >>> 1) ^ -(zigzag & 1));
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        if (s == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readVarint(in, in.read()) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(DataInputStream in, int first) throws IOException {
+        int b = first;
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            if (shift > 28) {
+                return -1;
+            }
+            b = in.read();
+        }
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}